@@ -0,0 +1,187 @@
+package org.netbeans.gradle.project;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+
+/**
+ * Maps root directories to values and finds the value of the deepest root
+ * directory containing a given file.
+ * <P>
+ * A lookup walks the path of the file only once and checks every prefix of
+ * the path ending at a separator character. The hash codes of these prefixes
+ * are calculated incrementally and the prefixes are compared to the roots in
+ * place, so the time of a lookup is proportional to the length of the path
+ * (regardless of the number of roots) and a lookup by path does not allocate
+ * objects.
+ * <P>
+ * Instances of this class are immutable and are created by the
+ * {@link Builder}.
+ *
+ * @param <V> the type of the values associated with the roots
+ */
+public final class FileRootIndex<V> {
+    private static final FileRootIndex<Object> EMPTY = new Builder<Object>().create();
+
+    private final String[] rootPaths;
+    private final int[] rootHashes;
+    private final Object[] values;
+    private final int mask;
+    private final int size;
+
+    private FileRootIndex(Map<String, ?> roots) {
+        int capacity = 4;
+        while (capacity < 2 * roots.size()) {
+            capacity *= 2;
+        }
+
+        this.rootPaths = new String[capacity];
+        this.rootHashes = new int[capacity];
+        this.values = new Object[capacity];
+        this.mask = capacity - 1;
+        this.size = roots.size();
+
+        for (Map.Entry<String, ?> entry: roots.entrySet()) {
+            String rootPath = entry.getKey();
+            int hash = rootPath.hashCode();
+
+            int index = spread(hash) & mask;
+            while (rootPaths[index] != null) {
+                index = (index + 1) & mask;
+            }
+
+            rootPaths[index] = rootPath;
+            rootHashes[index] = hash;
+            values[index] = entry.getValue();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <V> FileRootIndex<V> empty() {
+        return (FileRootIndex<V>)EMPTY;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    static String toRootPath(File root) {
+        String path = FileUtil.normalizeFile(root.getAbsoluteFile()).getPath();
+
+        int length = path.length();
+        while (length > 0 && path.charAt(length - 1) == File.separatorChar) {
+            length--;
+        }
+        return path.substring(0, length);
+    }
+
+    public int getRootCount() {
+        return size;
+    }
+
+    public V tryGetValue(FileObject file) {
+        if (file == null) throw new NullPointerException("file");
+
+        File fileAsFile = FileUtil.toFile(file);
+        return fileAsFile != null ? tryGetValue(fileAsFile.getPath()) : null;
+    }
+
+    public V tryGetValue(File file) {
+        if (file == null) throw new NullPointerException("file");
+        return tryGetValue(file.getPath());
+    }
+
+    /**
+     * Returns the value of the deepest root which is the same as the given
+     * path or contains the given path. The given path is expected to be
+     * absolute and normalized.
+     *
+     * @param path the path to be looked up. This argument cannot be
+     *   {@code null}.
+     * @return the value of the deepest root containing the given path or
+     *   {@code null} if there is no such root
+     */
+    public V tryGetValue(String path) {
+        if (path == null) throw new NullPointerException("path");
+
+        if (size == 0) {
+            return null;
+        }
+
+        Object result = null;
+        int length = path.length();
+        // The hash code of the prefix of the path having the length "i".
+        // This is the same as String.hashCode() would return.
+        int prefixHash = 0;
+        for (int i = 0; i <= length; i++) {
+            if (i == length || path.charAt(i) == File.separatorChar) {
+                Object value = tryGetValueOfPrefix(path, i, prefixHash);
+                if (value != null) {
+                    result = value;
+                }
+            }
+
+            if (i < length) {
+                prefixHash = 31 * prefixHash + path.charAt(i);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        V typedResult = (V)result;
+        return typedResult;
+    }
+
+    private Object tryGetValueOfPrefix(String path, int prefixLength, int prefixHash) {
+        int index = spread(prefixHash) & mask;
+        while (true) {
+            String rootPath = rootPaths[index];
+            if (rootPath == null) {
+                return null;
+            }
+
+            if (rootHashes[index] == prefixHash
+                    && rootPath.length() == prefixLength
+                    && path.regionMatches(0, rootPath, 0, prefixLength)) {
+                return values[index];
+            }
+
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * Collects the roots of a {@link FileRootIndex}.
+     * <P>
+     * Methods of this class cannot be accessed concurrently.
+     *
+     * @param <V> the type of the values associated with the roots
+     */
+    public static final class Builder<V> {
+        private final Map<String, V> roots;
+
+        public Builder() {
+            this.roots = new LinkedHashMap<String, V>();
+        }
+
+        /**
+         * Associates the given value with the given root directory. If the
+         * same root directory was added before, this method does nothing, so
+         * the first value added for a root takes precedence.
+         */
+        public void addRoot(File root, V value) {
+            if (root == null) throw new NullPointerException("root");
+            if (value == null) throw new NullPointerException("value");
+
+            String rootPath = toRootPath(root);
+            if (!roots.containsKey(rootPath)) {
+                roots.put(rootPath, value);
+            }
+        }
+
+        public FileRootIndex<V> create() {
+            return new FileRootIndex<V>(roots);
+        }
+    }
+}
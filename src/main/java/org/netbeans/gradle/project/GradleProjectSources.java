@@ -3,8 +3,8 @@ package org.netbeans.gradle.project;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import java.io.File;
-import java.net.URI;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -25,6 +25,7 @@ import org.netbeans.gradle.project.java.JavaExtension;
 import org.netbeans.gradle.project.java.JavaModelChangeListener;
 import org.netbeans.gradle.project.java.model.NbJavaModel;
 import org.netbeans.gradle.project.java.model.NbJavaModule;
+import org.netbeans.gradle.project.java.model.NbOutput;
 import org.netbeans.gradle.project.java.model.NbSourceRoot;
 import org.netbeans.gradle.project.java.model.NbSourceType;
 import org.openide.filesystems.FileObject;
@@ -53,20 +54,66 @@ public final class GradleProjectSources implements Sources, JavaModelChangeListe
         this.scanRequestId = new AtomicReference<Object>(null);
     }
 
-    private static SourceGroup createSourceGroup(File sourceDir, String caption) {
+    private static String toPathPrefix(File dir) {
+        String path = FileUtil.normalizeFile(dir).getPath().replace(File.separatorChar, '/');
+        return path.endsWith("/") ? path : path + "/";
+    }
+
+    private static void addNotSharableDir(File dir, List<String> result) {
+        String prefix = toPathPrefix(dir);
+        if (!result.contains(prefix)) {
+            result.add(prefix);
+        }
+    }
+
+    /**
+     * Returns the path prefixes (with a trailing '/') of the directories
+     * excluded by {@code GradleSharabilityQuery}. These do not depend on
+     * the model of the project.
+     */
+    private static List<String> findNotSharableDirs(File projectDir) {
+        List<String> result = new ArrayList<String>(5);
+        addNotSharableDir(new File(projectDir, "build"), result);
+        addNotSharableDir(new File(new File(projectDir, ".nb-gradle"), "private"), result);
+        addNotSharableDir(new File(new File(new File(projectDir, ".nb-gradle"), "profiles"), "private"), result);
+        return result;
+    }
+
+    /**
+     * Returns the path prefixes (with a trailing '/') of the directories
+     * which are known to be {@link SharabilityQuery.Sharability#NOT_SHARABLE not sharable}.
+     * These are the directories excluded by {@code GradleSharabilityQuery} and
+     * the output directories of the project.
+     */
+    private static List<String> findNotSharableDirs(File projectDir, NbJavaModule module) {
+        List<String> result = findNotSharableDirs(projectDir);
+
+        NbOutput output = module.getProperties().getOutput();
+        addNotSharableDir(output.getBuildDir(), result);
+        addNotSharableDir(output.getTestBuildDir(), result);
+        return result;
+    }
+
+    private static SourceGroup createSourceGroup(
+            File sourceDir,
+            String caption,
+            List<String> notSharableDirs) {
         if (sourceDir.isDirectory()) {
             FileObject groupRoot = FileUtil.toFileObject(sourceDir);
             if (groupRoot != null) {
-                return new GradleSourceGroup(groupRoot, caption);
+                return new GradleSourceGroup(groupRoot, caption, notSharableDirs);
             }
         }
         return null;
     }
 
-    private static SourceGroup[] toSourceGroup(String displayName, List<NbSourceRoot> rootDirs) {
+    private static SourceGroup[] toSourceGroup(
+            String displayName,
+            List<NbSourceRoot> rootDirs,
+            List<String> notSharableDirs) {
         // Don't add a marker when there are only one source roots
         if (rootDirs.size() == 1) {
-            SourceGroup group = createSourceGroup(rootDirs.get(0).getPath(), displayName);
+            SourceGroup group = createSourceGroup(rootDirs.get(0).getPath(), displayName, notSharableDirs);
             return group != null
                     ? new SourceGroup[]{group}
                     : NO_SOURCE_GROUPS;
@@ -75,7 +122,7 @@ public final class GradleProjectSources implements Sources, JavaModelChangeListe
         List<SourceGroup> result = new ArrayList<SourceGroup>(rootDirs.size());
         for (NbSourceRoot root: rootDirs) {
             String rootName = displayName + " [" + root.getName() + "]";
-            SourceGroup group = createSourceGroup(root.getPath(), rootName);
+            SourceGroup group = createSourceGroup(root.getPath(), rootName, notSharableDirs);
             if (group != null) {
                 result.add(group);
             }
@@ -99,7 +146,8 @@ public final class GradleProjectSources implements Sources, JavaModelChangeListe
     }
 
     private static Map<String, SourceGroup[]> findSourceGroupsOfModule(
-            NbJavaModule module) {
+            NbJavaModule module,
+            List<String> notSharableDirs) {
         Map<String, SourceGroup[]> groups = new LinkedHashMap<String, SourceGroup[]>(8);
 
         String sourceGroupCaption = NbStrings.getSrcPackageCaption();
@@ -109,16 +157,20 @@ public final class GradleProjectSources implements Sources, JavaModelChangeListe
 
         SourceGroup[] sources = toSourceGroup(
                 sourceGroupCaption,
-                module.getSources(NbSourceType.SOURCE).getPaths());
+                module.getSources(NbSourceType.SOURCE).getPaths(),
+                notSharableDirs);
         SourceGroup[] resources = toSourceGroup(
                 resourceGroupCaption,
-                module.getSources(NbSourceType.RESOURCE).getPaths());
+                module.getSources(NbSourceType.RESOURCE).getPaths(),
+                notSharableDirs);
         SourceGroup[] testSources = toSourceGroup(
                 testGroupCaption,
-                module.getSources(NbSourceType.TEST_SOURCE).getPaths());
+                module.getSources(NbSourceType.TEST_SOURCE).getPaths(),
+                notSharableDirs);
         SourceGroup[] testResources = toSourceGroup(
                 testResourceGroupCaption,
-                module.getSources(NbSourceType.TEST_RESOURCE).getPaths());
+                module.getSources(NbSourceType.TEST_RESOURCE).getPaths(),
+                notSharableDirs);
 
         groups.put(GradleProjectConstants.SOURCES, sources);
         groups.put(GradleProjectConstants.RESOURCES, resources);
@@ -131,7 +183,9 @@ public final class GradleProjectSources implements Sources, JavaModelChangeListe
         NbJavaModel projectModel = javaExt.getCurrentModel();
         NbJavaModule mainModule = projectModel.getMainModule();
 
-        Map<String, SourceGroup[]> moduleSources = findSourceGroupsOfModule(mainModule);
+        List<String> notSharableDirs = findNotSharableDirs(javaExt.getProjectDirectoryAsFile(), mainModule);
+
+        Map<String, SourceGroup[]> moduleSources = findSourceGroupsOfModule(mainModule, notSharableDirs);
         SourceGroup[] sources = moduleSources.get(GradleProjectConstants.SOURCES);
         SourceGroup[] resources = moduleSources.get(GradleProjectConstants.RESOURCES);
         SourceGroup[] testSources = moduleSources.get(GradleProjectConstants.TEST_SOURCES);
@@ -153,11 +207,73 @@ public final class GradleProjectSources implements Sources, JavaModelChangeListe
         groups.put(GradleProjectConstants.TEST_RESOURCES, testResources);
 
         groups.put(Sources.TYPE_GENERIC, new SourceGroup[] {
-            new GradleSourceGroup(javaExt.getProjectDirectory())});
+            new GradleSourceGroup(javaExt.getProjectDirectory(), notSharableDirs)});
 
         return groups;
     }
 
+    /**
+     * Replaces the newly created source groups with the previously created
+     * instances which are equivalent to them. This way listeners rebuilding
+     * their nodes on change can recognize the groups which did not change.
+     */
+    private static Map<String, SourceGroup[]> reuseUnchangedGroups(
+            Map<String, SourceGroup[]> prevGroups,
+            Map<String, SourceGroup[]> newGroups) {
+
+        List<GradleSourceGroup> reusableGroups = new ArrayList<GradleSourceGroup>();
+        for (SourceGroup[] groups: prevGroups.values()) {
+            for (SourceGroup group: groups) {
+                if (group instanceof GradleSourceGroup) {
+                    reusableGroups.add((GradleSourceGroup)group);
+                }
+            }
+        }
+
+        if (reusableGroups.isEmpty()) {
+            return newGroups;
+        }
+
+        Map<String, SourceGroup[]> result = new HashMap<String, SourceGroup[]>();
+        for (Map.Entry<String, SourceGroup[]> entry: newGroups.entrySet()) {
+            SourceGroup[] groups = entry.getValue().clone();
+            for (int i = 0; i < groups.length; i++) {
+                SourceGroup group = groups[i];
+                if (!(group instanceof GradleSourceGroup)) {
+                    continue;
+                }
+
+                for (GradleSourceGroup reusableGroup: reusableGroups) {
+                    if (reusableGroup.hasSameSettings((GradleSourceGroup)group)) {
+                        groups[i] = reusableGroup;
+                        break;
+                    }
+                }
+            }
+            result.put(entry.getKey(), groups);
+        }
+        return result;
+    }
+
+    private static boolean isSameGroups(
+            Map<String, SourceGroup[]> groups1,
+            Map<String, SourceGroup[]> groups2) {
+
+        if (!groups1.keySet().equals(groups2.keySet())) {
+            return false;
+        }
+
+        for (Map.Entry<String, SourceGroup[]> entry: groups1.entrySet()) {
+            // SourceGroup does not override equals, so this compares the
+            // instances which is what we need after reusing the unchanged
+            // groups.
+            if (!Arrays.equals(entry.getValue(), groups2.get(entry.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public void onModelChange() {
         SwingUtilities.invokeLater(new Runnable() {
@@ -194,7 +310,12 @@ public final class GradleProjectSources implements Sources, JavaModelChangeListe
             public void run() {
                 scanRequestId.compareAndSet(requestId, null);
 
-                Map<String, SourceGroup[]> groups = findSourceGroups(javaExt);
+                Map<String, SourceGroup[]> prevGroups = currentGroups;
+                Map<String, SourceGroup[]> groups = reuseUnchangedGroups(prevGroups, findSourceGroups(javaExt));
+                if (isSameGroups(prevGroups, groups)) {
+                    LOGGER.log(Level.FINE, "Location of the sources of {0} did not change.", javaExt.getName());
+                    return;
+                }
 
                 currentGroups = groups;
                 LOGGER.log(Level.FINE, "Location of the sources of {0} has been updated.", javaExt.getName());
@@ -215,8 +336,11 @@ public final class GradleProjectSources implements Sources, JavaModelChangeListe
 
         SourceGroup[] foundGroup = currentGroups.get(type);
         if (foundGroup == null && Sources.TYPE_GENERIC.equals(type)) {
+            // The output directories are not known before the model has been
+            // loaded but the other excluded directories are.
+            List<String> notSharableDirs = findNotSharableDirs(javaExt.getProjectDirectoryAsFile());
             return new SourceGroup[] {
-                new GradleSourceGroup(javaExt.getProjectDirectory())};
+                new GradleSourceGroup(javaExt.getProjectDirectory(), notSharableDirs)};
         }
         else {
             return foundGroup != null ? foundGroup.clone() : NO_SOURCE_GROUPS;
@@ -238,14 +362,37 @@ public final class GradleProjectSources implements Sources, JavaModelChangeListe
         private final PropertyChangeSupport changes;
         private final String displayName;
 
-        public GradleSourceGroup(FileObject location) {
-            this(location, NbStrings.getSrcPackageCaption());
+        private final String locationPrefix;
+        private final String[] excludedPrefixes;
+
+        public GradleSourceGroup(FileObject location, List<String> notSharableDirs) {
+            this(location, NbStrings.getSrcPackageCaption(), notSharableDirs);
         }
 
-        public GradleSourceGroup(FileObject location, String displayName) {
+        public GradleSourceGroup(FileObject location, String displayName, List<String> notSharableDirs) {
             this.location = location;
             this.displayName = displayName;
             this.changes = new PropertyChangeSupport(this);
+
+            String locationPath = location.getPath();
+            this.locationPrefix = locationPath.length() == 0 || locationPath.endsWith("/")
+                    ? locationPath
+                    : locationPath + "/";
+
+            // Only the excluded directories within this group are relevant.
+            List<String> excluded = new ArrayList<String>(notSharableDirs.size());
+            for (String dir: notSharableDirs) {
+                if (dir.startsWith(locationPrefix)) {
+                    excluded.add(dir);
+                }
+            }
+            this.excludedPrefixes = excluded.toArray(new String[excluded.size()]);
+        }
+
+        public boolean hasSameSettings(GradleSourceGroup other) {
+            return location.equals(other.location)
+                    && displayName.equals(other.displayName)
+                    && Arrays.equals(excludedPrefixes, other.excludedPrefixes);
         }
 
         @Override
@@ -275,14 +422,20 @@ public final class GradleProjectSources implements Sources, JavaModelChangeListe
                 return true;
             }
 
-            if (FileUtil.getRelativePath(location, file) == null) {
+            // The not sharable directories are precomputed when the model
+            // is loaded, so there is no need to call SharabilityQuery
+            // which is expensive because this method is called very often.
+            String path = file.getPath();
+            if (!path.startsWith(locationPrefix)) {
                 return false;
             }
 
-            URI f = file.toURI();
-            if (f != null && SharabilityQuery.getSharability(f) == SharabilityQuery.Sharability.NOT_SHARABLE) {
-                return false;
-            } // else MIXED, UNKNOWN, or SHARABLE; or not a disk file
+            for (String excludedPrefix: excludedPrefixes) {
+                if (path.startsWith(excludedPrefix)
+                        || path.length() + 1 == excludedPrefix.length() && excludedPrefix.startsWith(path)) {
+                    return false;
+                }
+            }
             return true;
         }
 
@@ -53,6 +53,7 @@ import org.netbeans.gradle.project.query.GradleSourceEncodingQuery;
 import org.netbeans.gradle.project.query.GradleTemplateAttrProvider;
 import org.netbeans.gradle.project.tasks.DefaultGradleCommandExecutor;
 import org.netbeans.gradle.project.tasks.GradleDaemonManager;
+import org.netbeans.gradle.project.tasks.GradleDaemonWarmUp;
 import org.netbeans.gradle.project.tasks.MergedBuiltInGradleCommandQuery;
 import org.netbeans.gradle.project.tasks.StandardTaskVariable;
 import org.netbeans.gradle.project.view.GradleActionProvider;
@@ -574,6 +575,7 @@ public final class NbGradleProject implements Project {
         protected void projectOpened() {
             GradleModelLoader.addModelLoadedListener(modelLoadListener);
             reloadProject(true);
+            GradleDaemonWarmUp.warmUpDaemon(NbGradleProject.this);
 
             if (licenseChangeListener != null) {
                 LOGGER.warning("projectOpened() without close.");
@@ -617,6 +619,10 @@ public final class NbGradleProject implements Project {
             }
 
             GradleModelLoader.removeModelLoadedListener(modelLoadListener);
+
+            // Do not wait for further changes, the properties are unlikely to
+            // be changed after the project has been closed.
+            ProjectPropertiesManager.flushPendingSaves();
         }
     }
 
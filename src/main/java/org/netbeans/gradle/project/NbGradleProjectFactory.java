@@ -3,9 +3,14 @@ package org.netbeans.gradle.project;
 import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.util.Map;
+import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.netbeans.api.project.Project;
@@ -13,7 +18,11 @@ import org.netbeans.api.project.ProjectManager;
 import org.netbeans.spi.project.ProjectFactory;
 import org.netbeans.spi.project.ProjectFactory2;
 import org.netbeans.spi.project.ProjectState;
+import org.openide.filesystems.FileChangeAdapter;
+import org.openide.filesystems.FileChangeListener;
+import org.openide.filesystems.FileEvent;
 import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileRenameEvent;
 import org.openide.filesystems.FileUtil;
 
 @org.openide.util.lookup.ServiceProvider(service = ProjectFactory.class)
@@ -23,6 +32,10 @@ public class NbGradleProjectFactory implements ProjectFactory2 {
     private static ConcurrentMap<File, RefCounter> SAFE_TO_OPEN_PROJECTS = new ConcurrentHashMap<File, RefCounter>();
     private static final String TEMP_DIR = System.getProperty("java.io.tmpdir");
 
+    private static final Lock DIR_INFOS_LOCK = new ReentrantLock();
+    private static final Map<FileObject, DirInfo> DIR_INFOS = new WeakHashMap<FileObject, DirInfo>();
+    private static final FileChangeListener DIR_CHANGE_LISTENER = new DirChangeListener();
+
     public static Closeable safeToOpen(FileObject projectDir) {
         File projectDirFile = FileUtil.toFile(projectDir);
         if (projectDirFile == null) {
@@ -67,7 +80,80 @@ public class NbGradleProjectFactory implements ProjectFactory2 {
         return SAFE_TO_OPEN_PROJECTS.containsKey(projectDirFile);
     }
 
+    private static DirInfo getDirInfo(FileObject directory) {
+        DirInfo result;
+        DIR_INFOS_LOCK.lock();
+        try {
+            result = DIR_INFOS.get(directory);
+            if (result == null) {
+                result = new DirInfo(isInTempDir(directory));
+                DIR_INFOS.put(directory, result);
+            }
+            else {
+                return result;
+            }
+        } finally {
+            DIR_INFOS_LOCK.unlock();
+        }
+
+        // Directories in the temporary directory are never considered to be
+        // projects, so there is no need to cache anything for them.
+        if (!result.isInTempDir()) {
+            // The listener is only added once for each directory, since the
+            // DirInfo is kept as long as the FileObject is reachable. The
+            // listener is cheap: It only listens for the direct children
+            // of the directory and it does not keep the FileObject reachable
+            // (so it is removed along with the FileObject).
+            directory.addFileChangeListener(DIR_CHANGE_LISTENER);
+            // The DirInfo is already visible to other threads but it does not
+            // cache anything until we can be notified of changes.
+            result.startCaching();
+        }
+        return result;
+    }
+
+    private static void invalidateDirInfo(FileObject directory) {
+        if (directory == null) {
+            return;
+        }
+
+        DirInfo info;
+        DIR_INFOS_LOCK.lock();
+        try {
+            info = DIR_INFOS.get(directory);
+        } finally {
+            DIR_INFOS_LOCK.unlock();
+        }
+
+        if (info != null) {
+            info.invalidate();
+        }
+    }
+
+    private static boolean isInTempDir(FileObject directory) {
+        // We will not load projects from the temporary directory simply
+        // because NetBeans has a habit to put temporary gradle files to
+        // them and then tries to load it which will fail because NetBeans will
+        // delete them soon.
+        FileObject tempDirObj = TempDirHolder.TEMP_DIR_OBJ;
+        return tempDirObj != null && FileUtil.getRelativePath(tempDirObj, directory) != null;
+    }
+
     private static boolean hasBuildFile(FileObject directory) {
+        return hasBuildFile(directory, getDirInfo(directory));
+    }
+
+    private static boolean hasBuildFile(FileObject directory, DirInfo info) {
+        Boolean result = info.tryGetHasBuildFile();
+        if (result == null) {
+            long changeCount = info.getChangeCount();
+            result = hasBuildFileUncached(directory);
+            info.setHasBuildFile(changeCount, result);
+        }
+        return result;
+    }
+
+    private static boolean hasBuildFileUncached(FileObject directory) {
         if (directory.getFileObject(GradleProjectConstants.BUILD_FILE_NAME) != null) {
             return true;
         }
@@ -96,21 +182,12 @@ public class NbGradleProjectFactory implements ProjectFactory2 {
             return true;
         }
 
-        // We will not load projects from the temporary directory simply
-        // because NetBeans has a habit to put temporary gradle files to
-        // them and then tries to load it which will fail because NetBeans will
-        // delete them soon.
-        if (TEMP_DIR != null) {
-            File tempDir = FileUtil.normalizeFile(new File(TEMP_DIR));
-            FileObject tempDirObj = FileUtil.toFileObject(tempDir);
-            if (tempDirObj != null) {
-                if (FileUtil.getRelativePath(tempDirObj, projectDirectory) != null) {
-                    return false;
-                }
-            }
+        DirInfo info = getDirInfo(projectDirectory);
+        if (info.isInTempDir()) {
+            return false;
         }
 
-        if (hasBuildFile(projectDirectory)) {
+        if (hasBuildFile(projectDirectory, info)) {
             return true;
         }
         if (projectDirectory.getNameExt().equalsIgnoreCase(GradleProjectConstants.BUILD_SRC_NAME)) {
@@ -142,6 +219,103 @@ public class NbGradleProjectFactory implements ProjectFactory2 {
     public void saveProject(final Project project) throws IOException {
     }
 
+    private static final class TempDirHolder {
+        public static final FileObject TEMP_DIR_OBJ = findTempDir();
+
+        private static FileObject findTempDir() {
+            if (TEMP_DIR == null) {
+                return null;
+            }
+
+            File tempDir = FileUtil.normalizeFile(new File(TEMP_DIR));
+            return FileUtil.toFileObject(tempDir);
+        }
+    }
+
+    /**
+     * Caches the classification of a directory: If it is in the temporary
+     * directory and if it contains a Gradle build file. Whether the directory
+     * contains a build file is recomputed after any of its children has been
+     * created, deleted or renamed. Nothing is cached before
+     * {@link #startCaching()} is called (i.e., before the changes of the
+     * directory are listened for).
+     */
+    private static final class DirInfo {
+        private final boolean inTempDir;
+        private final AtomicLong changeCount;
+        private volatile boolean caching;
+        private volatile Boolean hasBuildFile;
+
+        public DirInfo(boolean inTempDir) {
+            this.inTempDir = inTempDir;
+            this.changeCount = new AtomicLong(0);
+            this.caching = false;
+            this.hasBuildFile = null;
+        }
+
+        public void startCaching() {
+            caching = true;
+        }
+
+        public boolean isInTempDir() {
+            return inTempDir;
+        }
+
+        public long getChangeCount() {
+            return changeCount.get();
+        }
+
+        public Boolean tryGetHasBuildFile() {
+            return hasBuildFile;
+        }
+
+        public void setHasBuildFile(long expectedChangeCount, boolean newValue) {
+            if (!caching) {
+                return;
+            }
+
+            hasBuildFile = newValue;
+            // Do not keep the result if the directory has been changed while
+            // we were checking its content.
+            if (changeCount.get() != expectedChangeCount) {
+                hasBuildFile = null;
+            }
+        }
+
+        public void invalidate() {
+            changeCount.incrementAndGet();
+            hasBuildFile = null;
+        }
+    }
+
+    private static final class DirChangeListener extends FileChangeAdapter {
+        private static void invalidate(FileEvent fe) {
+            FileObject file = fe.getFile();
+            invalidateDirInfo(file);
+            invalidateDirInfo(file.getParent());
+        }
+
+        @Override
+        public void fileFolderCreated(FileEvent fe) {
+            invalidate(fe);
+        }
+
+        @Override
+        public void fileDataCreated(FileEvent fe) {
+            invalidate(fe);
+        }
+
+        @Override
+        public void fileDeleted(FileEvent fe) {
+            invalidate(fe);
+        }
+
+        @Override
+        public void fileRenamed(FileRenameEvent fe) {
+            invalidate(fe);
+        }
+    }
+
     private enum DummyCloseable implements Closeable {
         INSTANCE;
 
@@ -30,6 +30,14 @@ public final class NbStrings {
         return NbBundle.getMessage(NbStrings.class, "LBL_LoadingProject", projectName);
     }
 
+    public static String getWarmingUpDaemonCaption(String projectName) {
+        return NbBundle.getMessage(NbStrings.class, "LBL_WarmingUpDaemon", projectName);
+    }
+
+    public static String getDownloadingSourcesCaption(String projectName) {
+        return NbBundle.getMessage(NbStrings.class, "LBL_DownloadingSources", projectName);
+    }
+
     public static String getExecuteTasksText(List<String> taskNames) {
         return NbBundle.getMessage(NbStrings.class, "LBL_ExecutingGradleTasks", taskNames);
     }
@@ -283,6 +291,18 @@ public final class NbStrings {
         return NbBundle.getMessage(NbStrings.class, "MSG_BuildFailure", tasks);
     }
 
+    public static String getSlowestTasksCaption(long totalMillis) {
+        return NbBundle.getMessage(NbStrings.class, "MSG_SlowestTasks", Long.toString(totalMillis));
+    }
+
+    public static String getPreviousAverageTaskTime(long averageMillis) {
+        return NbBundle.getMessage(NbStrings.class, "MSG_PreviousAverageTaskTime", Long.toString(averageMillis));
+    }
+
+    public static String getTaskTimelineCaption() {
+        return NbBundle.getMessage(NbStrings.class, "MSG_TaskTimeline");
+    }
+
     public static String getGradleTaskFailure() {
         return NbBundle.getMessage(NbStrings.class, "MSG_GradleTaskFailure");
     }
@@ -5,6 +5,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import javax.swing.SwingUtilities;
@@ -16,12 +17,14 @@ public final class ProjectInfoManager {
     private final Map<InfoKey, ProjectInfo> informations;
     private final ChangeSupport changes;
     private final AtomicBoolean hasUnprocessedChangeEvent;
+    private final AtomicLong version;
 
     public ProjectInfoManager() {
         this.mainLock = new ReentrantLock();
         this.informations = new HashMap<InfoKey, ProjectInfo>();
         this.changes = new ChangeSupport(this);
         this.hasUnprocessedChangeEvent = new AtomicBoolean(false);
+        this.version = new AtomicLong(0);
     }
 
     public void addChangeListener(ChangeListener listener) {
@@ -44,6 +47,16 @@ public final class ProjectInfoManager {
         }
     }
 
+    /**
+     * Returns a number which is changed every time the informations of this
+     * manager are changed. This method does not need to acquire any lock, so
+     * it can be used to cheaply check if values derived from the informations
+     * need to be recomputed.
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
     public Collection<ProjectInfo> getInformations() {
         mainLock.lock();
         try {
@@ -75,6 +88,10 @@ public final class ProjectInfoManager {
                 else {
                     prevInfo = informations.put(key, info);
                 }
+
+                if (prevInfo != info) {
+                    version.incrementAndGet();
+                }
             } finally {
                 mainLock.unlock();
             }
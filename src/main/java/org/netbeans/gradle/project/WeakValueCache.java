@@ -0,0 +1,178 @@
+package org.netbeans.gradle.project;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Defines a concurrent cache which only references its values weakly. That
+ * is, a value is kept in the cache only as long as it is referenced from
+ * somewhere else. This allows a cache to return the same object for the same
+ * key as long as anyone can notice the difference and still not grow without
+ * bounds.
+ * <P>
+ * Entries whose value has been garbage collected are removed when the cache is
+ * modified, so the cache does not need a cleanup thread. Retrieving a value
+ * from the cache does not need a lock.
+ * <P>
+ * Methods of this class are safe to be called from multiple threads
+ * concurrently.
+ *
+ * @param <K> the type of the keys of the cache
+ * @param <V> the type of the values of the cache
+ */
+public final class WeakValueCache<K, V> {
+    private final ConcurrentMap<K, KeyedReference<K, V>> entries;
+    private final ConcurrentMap<K, Object> creationLocks;
+    private final ReferenceQueue<V> collectedValues;
+
+    public WeakValueCache() {
+        this.entries = new ConcurrentHashMap<K, KeyedReference<K, V>>();
+        this.creationLocks = new ConcurrentHashMap<K, Object>();
+        this.collectedValues = new ReferenceQueue<V>();
+    }
+
+    /**
+     * Returns the value associated with the given key or {@code null} if
+     * there is no value associated with the key or it has already been
+     * garbage collected.
+     */
+    public V get(K key) {
+        if (key == null) throw new NullPointerException("key");
+
+        KeyedReference<K, V> ref = entries.get(key);
+        return ref != null ? ref.get() : null;
+    }
+
+    /**
+     * Associates the given value with the given key, unless there is already
+     * a (not yet garbage collected) value associated with the key.
+     *
+     * @return the value associated with the key after this method returns.
+     *   That is, the previous value if there was one, or the given value.
+     *   This method never returns {@code null}.
+     */
+    public V putIfAbsent(K key, V value) {
+        if (key == null) throw new NullPointerException("key");
+        if (value == null) throw new NullPointerException("value");
+
+        removeCollectedEntries();
+
+        KeyedReference<K, V> newRef = new KeyedReference<K, V>(key, value, collectedValues);
+        while (true) {
+            KeyedReference<K, V> oldRef = entries.putIfAbsent(key, newRef);
+            if (oldRef == null) {
+                return value;
+            }
+
+            V oldValue = oldRef.get();
+            if (oldValue != null) {
+                return oldValue;
+            }
+
+            if (entries.replace(key, oldRef, newRef)) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Returns the value associated with the given key, creating it with the
+     * given factory if there is no (not yet garbage collected) value
+     * associated with the key.
+     * <P>
+     * Values for the same key are not created concurrently: If a value is
+     * being created for the key, this method waits for that value instead of
+     * creating a new one. Values for different keys may be created
+     * concurrently and the factory may request the value of another key from
+     * this cache. Retrieving an already created value does not need a lock.
+     *
+     * @return the value associated with the key after this method returns.
+     *   This method never returns {@code null}.
+     */
+    public V getOrCreate(K key, ValueFactory<? super K, ? extends V> factory) {
+        if (key == null) throw new NullPointerException("key");
+        if (factory == null) throw new NullPointerException("factory");
+
+        V result = get(key);
+        if (result != null) {
+            return result;
+        }
+
+        Object newLock = new Object();
+        Object creationLock = creationLocks.putIfAbsent(key, newLock);
+        if (creationLock == null) {
+            creationLock = newLock;
+        }
+
+        try {
+            synchronized (creationLock) {
+                result = get(key);
+                if (result == null) {
+                    V newValue = factory.createValue(key);
+                    if (newValue == null) {
+                        throw new NullPointerException("ValueFactory.createValue");
+                    }
+                    result = putIfAbsent(key, newValue);
+                }
+                return result;
+            }
+        } finally {
+            creationLocks.remove(key, creationLock);
+        }
+    }
+
+    /**
+     * Returns the number of values in this cache which were not yet garbage
+     * collected. This method is intended for diagnostic purposes.
+     */
+    public int getLiveSize() {
+        removeCollectedEntries();
+
+        int result = 0;
+        for (KeyedReference<K, V> ref: entries.values()) {
+            if (ref.get() != null) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    private void removeCollectedEntries() {
+        while (true) {
+            @SuppressWarnings("unchecked")
+            KeyedReference<K, V> ref = (KeyedReference<K, V>)collectedValues.poll();
+            if (ref == null) {
+                break;
+            }
+
+            // Only remove if it has not yet been replaced by a new value.
+            entries.remove(ref.key, ref);
+        }
+    }
+
+    /**
+     * Creates the values of a {@link WeakValueCache} for
+     * {@link WeakValueCache#getOrCreate(Object, ValueFactory) getOrCreate}.
+     *
+     * @param <K> the type of the keys of the cache
+     * @param <V> the type of the values of the cache
+     */
+    public interface ValueFactory<K, V> {
+        /**
+         * Creates the value to be associated with the given key. This method
+         * may not return {@code null}.
+         */
+        public V createValue(K key);
+    }
+
+    private static final class KeyedReference<K, V> extends WeakReference<V> {
+        public final K key;
+
+        public KeyedReference(K key, V referent, ReferenceQueue<? super V> queue) {
+            super(referent, queue);
+            this.key = key;
+        }
+    }
+}
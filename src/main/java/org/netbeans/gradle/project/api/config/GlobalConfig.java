@@ -11,6 +11,10 @@ import org.netbeans.gradle.project.properties.NbPropertySourceWrapper;
 public final class GlobalConfig {
     private static final NbPropertySource<Boolean> SKIP_TESTS
             = new NbPropertySourceWrapper<Boolean>(GlobalGradleSettings.getSkipTests());
+    private static final NbPropertySource<Boolean> SKIP_UNCHANGED_COMPILE
+            = new NbPropertySourceWrapper<Boolean>(GlobalGradleSettings.getSkipUnchangedCompile());
+    private static final NbPropertySource<Boolean> DOWNLOAD_SOURCES
+            = new NbPropertySourceWrapper<Boolean>(GlobalGradleSettings.getDownloadSources());
 
     /**
      * Returns the property indicating if tests should be skipped when executing
@@ -29,6 +33,40 @@ public final class GlobalConfig {
         return SKIP_TESTS;
     }
 
+    /**
+     * Returns the property indicating if compiling the sources should be
+     * skipped when running or debugging a project whose sources did not
+     * change since the last successful execution of the same command.
+     * Extensions may consider this value when providing their own
+     * {@link org.netbeans.gradle.project.api.task.BuiltInGradleCommandQuery custom built-in tasks}.
+     * <P>
+     * The value of the returned property is never {@code null}.
+     *
+     * @return the property indicating if compiling unchanged sources should
+     *   be skipped when running or debugging a project. This method never
+     *   returns {@code null}.
+     */
+    @Nonnull
+    public static NbPropertySource<Boolean> skipUnchangedCompile() {
+        return SKIP_UNCHANGED_COMPILE;
+    }
+
+    /**
+     * Returns the property indicating if the sources and javadoc of the
+     * external dependencies of projects should be downloaded in the
+     * background after the projects have been loaded.
+     * <P>
+     * The value of the returned property is never {@code null}.
+     *
+     * @return the property indicating if the sources and javadoc of
+     *   dependencies should be downloaded. This method never returns
+     *   {@code null}.
+     */
+    @Nonnull
+    public static NbPropertySource<Boolean> downloadSources() {
+        return DOWNLOAD_SOURCES;
+    }
+
     private GlobalConfig() {
         throw new AssertionError();
     }
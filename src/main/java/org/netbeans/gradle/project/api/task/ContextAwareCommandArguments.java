@@ -0,0 +1,41 @@
+package org.netbeans.gradle.project.api.task;
+
+import java.util.List;
+import javax.annotation.Nonnull;
+import org.netbeans.api.project.Project;
+import org.openide.util.Lookup;
+
+/**
+ * Defines additional arguments for a {@link GradleCommandTemplate Gradle command}
+ * which can only be determined when the command is about to be executed.
+ * The arguments returned by this interface are not part of the command
+ * template, so they are never displayed or saved as part of it.
+ * <P>
+ * The method of this interface is called from a background thread (not the Event Dispatch Thread).
+ *
+ * @see CustomCommandActions
+ */
+public interface ContextAwareCommandArguments {
+    /**
+     * Returns the arguments to be appended to the arguments of the Gradle
+     * command about to be executed. The returned arguments may contain
+     * {@link TaskVariable task variables} which are replaced the same way as
+     * the variables of the command template.
+     * <P>
+     * If the command to be executed is a built-in task, then the
+     * {@code commandContext} is the {@code Lookup}, NetBeans passes to the
+     * {@link org.netbeans.spi.project.ActionProvider}. Otherwise it is an empty
+     * {@code Lookup}.
+     *
+     * @param project the Gradle project in which context the command is
+     *   executed. This argument cannot be {@code null}.
+     * @param commandContext the context when the command was started. This
+     *   argument cannot be {@code null}.
+     *
+     * @return the arguments to be appended to the arguments of the Gradle
+     *   command. This method may never return {@code null} but may return
+     *   an empty list.
+     */
+    @Nonnull
+    public List<String> getCommandArguments(@Nonnull Project project, @Nonnull Lookup commandContext);
+}
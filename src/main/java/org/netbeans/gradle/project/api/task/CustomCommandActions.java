@@ -67,6 +67,7 @@ public final class CustomCommandActions {
         private TaskOutputProcessor stdOutProcessor;
         private TaskOutputProcessor stdErrProcessor;
         private ContextAwareCommandAction contextAwareAction;
+        private ContextAwareCommandArguments contextAwareArguments;
 
         /**
          * Creates a new {@code Builder} with the specified task kind and with
@@ -88,6 +89,7 @@ public final class CustomCommandActions {
             this.stdOutProcessor = null;
             this.stdErrProcessor = null;
             this.contextAwareAction = null;
+            this.contextAwareArguments = null;
         }
 
         /**
@@ -160,6 +162,24 @@ public final class CustomCommandActions {
             this.contextAwareAction = contextAwareAction;
         }
 
+        /**
+         * Sets the code providing additional arguments for the Gradle command
+         * when it is about to be executed. These arguments are not part of
+         * the command template, so they are not visible to the user when
+         * editing the command.
+         * <P>
+         * You may set this property to {@code null}, if there is no need for
+         * additional arguments. The default value for this property is
+         * {@code null}.
+         *
+         * @param contextAwareArguments the code providing additional arguments
+         *   for the Gradle command. This argument can be {@code null}, if
+         *   no additional arguments are needed.
+         */
+        public void setContextAwareArguments(@Nullable ContextAwareCommandArguments contextAwareArguments) {
+            this.contextAwareArguments = contextAwareArguments;
+        }
+
         /**
          * Creates a new {@code CustomCommandActions} instances with the
          * properties currently set for this builder. Subsequent modifications
@@ -180,6 +200,7 @@ public final class CustomCommandActions {
     private final TaskOutputProcessor stdOutProcessor;
     private final TaskOutputProcessor stdErrProcessor;
     private final ContextAwareCommandAction contextAwareAction;
+    private final ContextAwareCommandArguments contextAwareArguments;
 
     private CustomCommandActions(Builder builder) {
         this.taskKind = builder.taskKind;
@@ -187,6 +208,7 @@ public final class CustomCommandActions {
         this.stdOutProcessor = builder.stdOutProcessor;
         this.stdErrProcessor = builder.stdErrProcessor;
         this.contextAwareAction = builder.contextAwareAction;
+        this.contextAwareArguments = builder.contextAwareArguments;
     }
 
     /**
@@ -265,4 +287,18 @@ public final class CustomCommandActions {
     public ContextAwareCommandAction getContextAwareAction() {
         return contextAwareAction;
     }
+
+    /**
+     * Returns the code providing additional arguments for the Gradle command
+     * when it is about to be executed.
+     *
+     * @return the code providing additional arguments for the Gradle command.
+     *   This method may return {@code null}, if no additional arguments are
+     *   needed.
+     */
+    @Nullable
+    @CheckForNull
+    public ContextAwareCommandArguments getContextAwareArguments() {
+        return contextAwareArguments;
+    }
 }
@@ -1,19 +1,114 @@
 package org.netbeans.gradle.project.java.model;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import org.netbeans.gradle.project.FileRootIndex;
+
 /**
  * Defines an immutable model of a J2SE Gradle project.
+ * <P>
+ * The transitive dependencies of the main module and the index of the source
+ * roots are only calculated once (when first requested) and are shared by
+ * every caller.
  */
 public final class NbJavaModel {
     private final NbJavaModule mainModule;
 
+    // EnumMap is not a ConcurrentMap, so it cannot be used.
+    private final ConcurrentMap<NbDependencyType, Collection<NbJavaDependency>> allDependencies;
+    private final AtomicReference<Collection<NbJavaModule>> allModuleDependenciesRef;
+    private final AtomicReference<FileRootIndex<NbSourceRootInfo>> sourceRootIndexRef;
+
     public NbJavaModel(
             NbJavaModule mainModule) {
         if (mainModule == null) throw new NullPointerException("mainModule");
 
         this.mainModule = mainModule;
+        this.allDependencies = new ConcurrentHashMap<NbDependencyType, Collection<NbJavaDependency>>();
+        this.allModuleDependenciesRef = new AtomicReference<Collection<NbJavaModule>>(null);
+        this.sourceRootIndexRef = new AtomicReference<FileRootIndex<NbSourceRootInfo>>(null);
     }
 
     public NbJavaModule getMainModule() {
         return mainModule;
     }
+
+    /**
+     * Returns the transitive dependencies of the main module of the given
+     * type. This method returns the same dependencies as
+     * {@link NbJavaModelUtils#getAllDependencies(NbJavaModule, NbDependencyType)}
+     * but the returned collection is unmodifiable and is only calculated
+     * once.
+     */
+    public Collection<NbJavaDependency> getAllDependencies(NbDependencyType type) {
+        if (type == null) throw new NullPointerException("type");
+
+        Collection<NbJavaDependency> result = allDependencies.get(type);
+        if (result == null) {
+            result = Collections.unmodifiableList(new ArrayList<NbJavaDependency>(
+                    NbJavaModelUtils.getAllDependencies(mainModule, type)));
+            Collection<NbJavaDependency> prevResult = allDependencies.putIfAbsent(type, result);
+            if (prevResult != null) {
+                result = prevResult;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the modules the main module (transitively) depends on in any
+     * way, including test runtime dependencies. The returned collection is
+     * unmodifiable and is only calculated once.
+     */
+    public Collection<NbJavaModule> getAllModuleDependencies() {
+        Collection<NbJavaModule> result = allModuleDependenciesRef.get();
+        if (result == null) {
+            List<NbJavaModule> modules = new ArrayList<NbJavaModule>();
+            for (NbJavaDependency dependency: getAllDependencies(NbDependencyType.TEST_RUNTIME)) {
+                if (dependency instanceof NbModuleDependency) {
+                    modules.add(((NbModuleDependency)dependency).getModule());
+                }
+            }
+
+            allModuleDependenciesRef.compareAndSet(null, Collections.unmodifiableList(modules));
+            result = allModuleDependenciesRef.get();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the index of the source and test source roots of the main module
+     * and the modules it depends on. The values of the index describe the
+     * module owning the root. If the same root is owned by multiple modules,
+     * the main module takes precedence.
+     */
+    public FileRootIndex<NbSourceRootInfo> getSourceRootIndex() {
+        FileRootIndex<NbSourceRootInfo> result = sourceRootIndexRef.get();
+        if (result == null) {
+            FileRootIndex.Builder<NbSourceRootInfo> builder = new FileRootIndex.Builder<NbSourceRootInfo>();
+            addSourceRoots(mainModule, builder);
+            for (NbJavaModule module: getAllModuleDependencies()) {
+                addSourceRoots(module, builder);
+            }
+
+            sourceRootIndexRef.compareAndSet(null, builder.create());
+            result = sourceRootIndexRef.get();
+        }
+        return result;
+    }
+
+    private static void addSourceRoots(NbJavaModule module, FileRootIndex.Builder<NbSourceRootInfo> builder) {
+        for (NbSourceType sourceType: new NbSourceType[]{NbSourceType.SOURCE, NbSourceType.TEST_SOURCE}) {
+            NbSourceRootInfo info = new NbSourceRootInfo(module, sourceType);
+            for (File root: module.getSources(sourceType).getFiles()) {
+                builder.addRoot(root, info);
+            }
+        }
+    }
 }
@@ -0,0 +1,49 @@
+package org.netbeans.gradle.project.java.model;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Describes what a source root directory (of type {@link NbSourceType#SOURCE}
+ * or {@link NbSourceType#TEST_SOURCE}) belongs to. Instances of this class are
+ * the values of {@link NbJavaModel#getSourceRootIndex()}.
+ */
+public final class NbSourceRootInfo {
+    private final NbJavaModule module;
+    private final NbSourceType sourceType;
+
+    public NbSourceRootInfo(NbJavaModule module, NbSourceType sourceType) {
+        if (module == null) throw new NullPointerException("module");
+        if (sourceType == null) throw new NullPointerException("sourceType");
+
+        this.module = module;
+        this.sourceType = sourceType;
+    }
+
+    public NbJavaModule getModule() {
+        return module;
+    }
+
+    public NbSourceType getSourceType() {
+        return sourceType;
+    }
+
+    /**
+     * Returns the directory where the source root is compiled to.
+     */
+    public File getOutputDir() {
+        NbOutput output = module.getProperties().getOutput();
+        return sourceType.isTest() ? output.getTestBuildDir() : output.getBuildDir();
+    }
+
+    /**
+     * Returns the test source roots of the module if this is a source root
+     * and the source roots of the module if this is a test source root.
+     */
+    public List<File> getCounterpartRoots() {
+        NbSourceType counterpartType = sourceType.isTest()
+                ? NbSourceType.SOURCE
+                : NbSourceType.TEST_SOURCE;
+        return module.getSources(counterpartType).getFiles();
+    }
+}
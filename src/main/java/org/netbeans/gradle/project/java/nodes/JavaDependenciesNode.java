@@ -1,28 +1,28 @@
 package org.netbeans.gradle.project.java.nodes;
 
 import java.awt.Image;
+import java.text.CollationKey;
 import java.text.Collator;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.netbeans.gradle.project.NbIcons;
 import org.netbeans.gradle.project.NbStrings;
-import org.netbeans.gradle.project.api.nodes.SingleNodeFactory;
 import org.netbeans.gradle.project.java.JavaExtension;
 import org.netbeans.gradle.project.java.JavaModelChangeListener;
 import org.netbeans.gradle.project.java.model.NbDependencyType;
 import org.netbeans.gradle.project.java.model.NbJavaDependency;
-import org.netbeans.gradle.project.java.model.NbJavaModelUtils;
-import org.netbeans.gradle.project.java.model.NbJavaModule;
+import org.netbeans.gradle.project.java.model.NbJavaModel;
 import org.netbeans.gradle.project.java.model.NbModuleDependency;
 import org.netbeans.gradle.project.java.model.NbUriDependency;
 import org.openide.filesystems.FileObject;
@@ -76,270 +76,321 @@ public final class JavaDependenciesNode extends AbstractNode implements JavaMode
 
     private static class DependenciesChildFactory
     extends
-            ChildFactory.Detachable<SingleNodeFactory> {
+            ChildFactory.Detachable<String> {
 
         private final JavaExtension javaExt;
 
+        private final Lock groupFactoriesLock;
+        private final Map<String, DependencyGroupChildFactory> groupFactories;
+
         public DependenciesChildFactory(JavaExtension javaExt) {
             if (javaExt == null) throw new NullPointerException("javaExt");
             this.javaExt = javaExt;
+            this.groupFactoriesLock = new ReentrantLock();
+            this.groupFactories = new HashMap<String, DependencyGroupChildFactory>();
         }
 
         public void stateChanged() {
             refresh(false);
         }
 
+        private DependencyGroupChildFactory getGroupFactory(String groupName) {
+            groupFactoriesLock.lock();
+            try {
+                return groupFactories.get(groupName);
+            } finally {
+                groupFactoriesLock.unlock();
+            }
+        }
+
         private void addDependencyGroup(
-                final String groupName,
-                final Collection<NbJavaDependency> dependencies,
-                List<SingleNodeFactory> toPopulate) {
+                String groupName,
+                Collection<NbJavaDependency> dependencies,
+                Map<String, DependencyGroupChildFactory> newGroupFactories,
+                List<String> toPopulate) {
 
             if (dependencies.isEmpty()) {
                 return;
             }
 
-            toPopulate.add(new SingleNodeFactory() {
-                @Override
-                public Node createNode() {
-                    return new AbstractNode(Children.create(new DependencyGroupChildFactory(dependencies), true)) {
-                        @Override
-                        public Image getIcon(int type) {
-                            return NbIcons.getLibrariesIcon();
-                        }
-
-                        @Override
-                        public Image getOpenedIcon(int type) {
-                            return getIcon(type);
-                        }
-
-                        @Override
-                        public String getDisplayName() {
-                            return groupName;
-                        }
-                    };
-                }
-            });
+            // The factory of an already displayed group is reused, so that
+            // only the changed dependencies of the group need to be updated.
+            DependencyGroupChildFactory groupFactory = getGroupFactory(groupName);
+            if (groupFactory == null) {
+                groupFactory = new DependencyGroupChildFactory();
+            }
+            groupFactory.setDependencies(orderDependencies(dependencies));
+
+            newGroupFactories.put(groupName, groupFactory);
+            toPopulate.add(groupName);
         }
 
         private static List<NbJavaDependency> orderDependencies(Collection<NbJavaDependency> dependencies) {
-            List<NbJavaDependency> result = new ArrayList<NbJavaDependency>(dependencies);
-            final Collator textComparer = Collator.getInstance(Locale.US);
-            final Map<Class<?>, Integer> classOrder = new HashMap<Class<?>, Integer>();
-            classOrder.put(NbModuleDependency.class, 0);
-            classOrder.put(NbUriDependency.class, 1);
+            Collator textComparer = Collator.getInstance(Locale.US);
 
-            Collections.sort(result, new Comparator<NbJavaDependency>() {
-                @Override
-                public int compare(NbJavaDependency o1, NbJavaDependency o2) {
-                    if (o1.getClass() != o2.getClass()) {
-                        Integer index1 = classOrder.get(o1.getClass());
-                        Integer index2 = classOrder.get(o2.getClass());
-
-                        if (index1 == null) {
-                            if (index2 != null) {
-                                return 1;
-                            }
-                        }
-                        else if (index2 == null) {
-                            // index1 != null
-                            return -1;
-                        }
-                        else {
-                            int index1Value = index1;
-                            int index2Value = index2;
-                            return index1Value == index2Value
-                                    ? 0
-                                    : (index1Value < index2Value ? -1 : 1);
-                        }
-                    }
-
-                    return textComparer.compare(o1.getShortName(), o2.getShortName());
-                }
-            });
+            List<OrderedDependency> ordered = new ArrayList<OrderedDependency>(dependencies.size());
+            for (NbJavaDependency dependency: dependencies) {
+                ordered.add(new OrderedDependency(dependency, textComparer));
+            }
+            Collections.sort(ordered);
+
+            List<NbJavaDependency> result = new ArrayList<NbJavaDependency>(ordered.size());
+            for (OrderedDependency dependency: ordered) {
+                result.add(dependency.dependency);
+            }
             return result;
         }
 
-        private void readKeys(List<SingleNodeFactory> toPopulate) throws DataObjectNotFoundException {
-            NbJavaModule mainModule = javaExt.getCurrentModel().getMainModule();
+        private void readKeys(List<String> toPopulate) {
+            NbJavaModel projectModel = javaExt.getCurrentModel();
 
             Set<NbJavaDependency> compile = new LinkedHashSet<NbJavaDependency>(
-                    NbJavaModelUtils.getAllDependencies(mainModule, NbDependencyType.COMPILE));
+                    projectModel.getAllDependencies(NbDependencyType.COMPILE));
             Set<NbJavaDependency> runtime = new LinkedHashSet<NbJavaDependency>(
-                    NbJavaModelUtils.getAllDependencies(mainModule, NbDependencyType.RUNTIME));
+                    projectModel.getAllDependencies(NbDependencyType.RUNTIME));
             Set<NbJavaDependency> testCompile = new LinkedHashSet<NbJavaDependency>(
-                    NbJavaModelUtils.getAllDependencies(mainModule, NbDependencyType.TEST_COMPILE));
+                    projectModel.getAllDependencies(NbDependencyType.TEST_COMPILE));
             Set<NbJavaDependency> testRuntime = new LinkedHashSet<NbJavaDependency>(
-                    NbJavaModelUtils.getAllDependencies(mainModule, NbDependencyType.TEST_RUNTIME));
+                    projectModel.getAllDependencies(NbDependencyType.TEST_RUNTIME));
 
             testRuntime.removeAll(runtime);
             testRuntime.removeAll(testCompile);
             runtime.removeAll(compile);
             testCompile.removeAll(compile);
 
+            Map<String, DependencyGroupChildFactory> newGroupFactories
+                    = new HashMap<String, DependencyGroupChildFactory>();
+
             addDependencyGroup(NbStrings.getCompileDependenciesNodeCaption(),
-                    orderDependencies(compile), toPopulate);
+                    compile, newGroupFactories, toPopulate);
             addDependencyGroup(NbStrings.getRuntimeDependenciesNodeCaption(),
-                    orderDependencies(runtime), toPopulate);
+                    runtime, newGroupFactories, toPopulate);
             addDependencyGroup(NbStrings.getTestCompileDependenciesNodeCaption(),
-                    orderDependencies(testCompile), toPopulate);
+                    testCompile, newGroupFactories, toPopulate);
             addDependencyGroup(NbStrings.getTestRuntimeDependenciesNodeCaption(),
-                    orderDependencies(testRuntime), toPopulate);
+                    testRuntime, newGroupFactories, toPopulate);
+
+            groupFactoriesLock.lock();
+            try {
+                groupFactories.clear();
+                groupFactories.putAll(newGroupFactories);
+            } finally {
+                groupFactoriesLock.unlock();
+            }
 
             LOGGER.fine("Dependencies for the Gradle project were found.");
         }
 
         @Override
-        protected boolean createKeys(List<SingleNodeFactory> toPopulate) {
-            try {
-                readKeys(toPopulate);
-            } catch (DataObjectNotFoundException ex) {
-                throw new RuntimeException(ex);
-            }
+        protected boolean createKeys(List<String> toPopulate) {
+            readKeys(toPopulate);
             return true;
         }
 
         @Override
-        protected Node createNodeForKey(SingleNodeFactory key) {
-            return key.createNode();
+        protected Node createNodeForKey(final String groupName) {
+            DependencyGroupChildFactory groupFactory = getGroupFactory(groupName);
+            if (groupFactory == null) {
+                return null;
+            }
+
+            return new AbstractNode(Children.create(groupFactory, true)) {
+                @Override
+                public Image getIcon(int type) {
+                    return NbIcons.getLibrariesIcon();
+                }
+
+                @Override
+                public Image getOpenedIcon(int type) {
+                    return getIcon(type);
+                }
+
+                @Override
+                public String getDisplayName() {
+                    return groupName;
+                }
+            };
         }
     }
 
-    private static class DependencyGroupChildFactory extends ChildFactory<SingleNodeFactory> {
-        private final List<NbJavaDependency> dependencies;
+    private static final class OrderedDependency implements Comparable<OrderedDependency> {
+        public final NbJavaDependency dependency;
+        private final int classOrder;
+        private final CollationKey nameKey;
 
-        public DependencyGroupChildFactory(Collection<NbJavaDependency> dependencies) {
-            this.dependencies = new ArrayList<NbJavaDependency>(dependencies);
+        public OrderedDependency(NbJavaDependency dependency, Collator textComparer) {
+            this.dependency = dependency;
+            this.classOrder = getClassOrder(dependency);
+            this.nameKey = textComparer.getCollationKey(dependency.getShortName());
         }
 
-        private void addModuleDependency(
-                final NbModuleDependency dependency,
-                List<SingleNodeFactory> toPopulate) throws DataObjectNotFoundException {
+        private static int getClassOrder(NbJavaDependency dependency) {
+            if (dependency instanceof NbModuleDependency) {
+                return 0;
+            }
+            if (dependency instanceof NbUriDependency) {
+                return 1;
+            }
+            return 2;
+        }
 
-            FileObject moduleRoot = FileUtil.toFileObject(dependency.getModule().getModuleDir());
-            final String displayName = dependency.getModule().getShortName();
+        @Override
+        public int compareTo(OrderedDependency other) {
+            if (classOrder != other.classOrder) {
+                return classOrder < other.classOrder ? -1 : 1;
+            }
+            return nameKey.compareTo(other.nameKey);
+        }
+    }
+
+    /**
+     * The key of a dependency node. The key also records if the dependency
+     * was available when the key was created, so that the node of a
+     * dependency is recreated when it becomes available (or unavailable).
+     */
+    private static final class DependencyKey {
+        public final NbJavaDependency dependency;
+        private final boolean available;
+
+        public DependencyKey(NbJavaDependency dependency) {
+            this.dependency = dependency;
+            this.available = isAvailable(dependency);
+        }
 
-            if (moduleRoot != null) {
-                final DataObject fileObject = DataObject.find(moduleRoot);
-                toPopulate.add(new SingleNodeFactory() {
-                    @Override
-                    public Node createNode() {
-                        return new FilterNode(fileObject.getNodeDelegate()) {
-                            @Override
-                            public Image getIcon(int type) {
-                                return NbIcons.getGradleIcon();
-                            }
-
-                            @Override
-                            public Image getOpenedIcon(int type) {
-                                return getIcon(type);
-                            }
-
-                            @Override
-                            public String getDisplayName() {
-                                return displayName;
-                            }
-                        };
-                    }
-                });
+        private static boolean isAvailable(NbJavaDependency dependency) {
+            if (dependency instanceof NbUriDependency) {
+                return ((NbUriDependency)dependency).tryGetAsFileObject() != null;
             }
-            else {
-                toPopulate.add(new SingleNodeFactory() {
-                    @Override
-                    public Node createNode() {
-                        return new FilterNode(Node.EMPTY) {
-                            @Override
-                            public Image getIcon(int type) {
-                                return NbIcons.getGradleIcon();
-                            }
-
-                            @Override
-                            public Image getOpenedIcon(int type) {
-                                return getIcon(type);
-                            }
-
-                            @Override
-                            public String getDisplayName() {
-                                return displayName;
-                            }
-                        };
-                    }
-                });
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return 41 * dependency.hashCode() + (available ? 1 : 0);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == null) return false;
+            if (getClass() != obj.getClass()) return false;
+
+            final DependencyKey other = (DependencyKey)obj;
+            return this.available == other.available
+                    && this.dependency.equals(other.dependency);
+        }
+    }
+
+    /**
+     * Lists the dependencies of a single dependency group. The dependencies
+     * (along with their availability) are used as keys, so after a reload
+     * only the nodes of the changed dependencies are recreated. The keys are added in batches of
+     * {@link #KEY_BATCH_SIZE}, so that the first dependencies are displayed
+     * before the keys of all the dependencies were collected.
+     */
+    private static class DependencyGroupChildFactory extends ChildFactory<DependencyKey> {
+        private static final int KEY_BATCH_SIZE = 50;
+
+        private volatile List<DependencyKey> dependencies;
+
+        public DependencyGroupChildFactory() {
+            this.dependencies = Collections.emptyList();
+        }
+
+        public void setDependencies(List<NbJavaDependency> newDependencies) {
+            if (newDependencies == null) throw new NullPointerException("newDependencies");
+
+            List<DependencyKey> newKeys = new ArrayList<DependencyKey>(newDependencies.size());
+            for (NbJavaDependency dependency: newDependencies) {
+                newKeys.add(new DependencyKey(dependency));
+            }
+
+            if (!dependencies.equals(newKeys)) {
+                dependencies = newKeys;
+                refresh(false);
             }
         }
 
-        private void addFileDependency(
-                NbUriDependency dependency,
-                List<SingleNodeFactory> toPopulate) throws DataObjectNotFoundException {
+        private static Node createModuleDependencyNode(NbModuleDependency dependency) throws DataObjectNotFoundException {
+            FileObject moduleRoot = FileUtil.toFileObject(dependency.getModule().getModuleDir());
+            final String displayName = dependency.getModule().getShortName();
+
+            Node original = moduleRoot != null
+                    ? DataObject.find(moduleRoot).getNodeDelegate()
+                    : Node.EMPTY;
+
+            return new FilterNode(original) {
+                @Override
+                public Image getIcon(int type) {
+                    return NbIcons.getGradleIcon();
+                }
+
+                @Override
+                public Image getOpenedIcon(int type) {
+                    return getIcon(type);
+                }
+
+                @Override
+                public String getDisplayName() {
+                    return displayName;
+                }
+            };
+        }
 
+        private static Node createFileDependencyNode(NbUriDependency dependency) throws DataObjectNotFoundException {
             FileObject file = dependency.tryGetAsFileObject();
             if (file == null) {
                 LOGGER.log(Level.WARNING, "Dependency is not available: {0}", dependency.getUri());
-                return;
+                return null;
             }
-            final DataObject fileObject = DataObject.find(file);
-            toPopulate.add(new SingleNodeFactory() {
+            return DataObject.find(file).getNodeDelegate().cloneNode();
+        }
+
+        private static Node createGenericDependencyNode(NbJavaDependency dependency) {
+            final String nodeCaption = dependency.toString();
+            return new FilterNode(Node.EMPTY) {
                 @Override
-                public Node createNode() {
-                    return fileObject.getNodeDelegate().cloneNode();
+                public Image getIcon(int type) {
+                    return NbIcons.getLibraryIcon();
                 }
-            });
-        }
 
-        private void addGenericDependency(
-                NbJavaDependency dependency,
-                List<SingleNodeFactory> toPopulate) throws DataObjectNotFoundException {
+                @Override
+                public Image getOpenedIcon(int type) {
+                    return getIcon(type);
+                }
 
-            final String nodeCaption = dependency.toString();
-            toPopulate.add(new SingleNodeFactory() {
                 @Override
-                public Node createNode() {
-                    return new FilterNode(Node.EMPTY) {
-                        @Override
-                        public Image getIcon(int type) {
-                            return NbIcons.getLibraryIcon();
-                        }
-
-                        @Override
-                        public Image getOpenedIcon(int type) {
-                            return getIcon(type);
-                        }
-
-                        @Override
-                        public String getDisplayName() {
-                            return nodeCaption;
-                        }
-                    };
+                public String getDisplayName() {
+                    return nodeCaption;
                 }
-            });
+            };
         }
 
-        protected void readKeys(List<SingleNodeFactory> toPopulate) throws DataObjectNotFoundException {
-            for (NbJavaDependency dependency: dependencies) {
+        @Override
+        protected boolean createKeys(List<DependencyKey> toPopulate) {
+            List<DependencyKey> currentDependencies = dependencies;
+
+            int offset = Math.min(toPopulate.size(), currentDependencies.size());
+            int end = Math.min(offset + KEY_BATCH_SIZE, currentDependencies.size());
+            toPopulate.addAll(currentDependencies.subList(offset, end));
+            return end >= currentDependencies.size();
+        }
+
+        @Override
+        protected Node createNodeForKey(DependencyKey key) {
+            NbJavaDependency dependency = key.dependency;
+            try {
                 if (dependency instanceof NbModuleDependency) {
-                    addModuleDependency((NbModuleDependency)dependency, toPopulate);
+                    return createModuleDependencyNode((NbModuleDependency)dependency);
                 }
                 else if (dependency instanceof NbUriDependency) {
-                    addFileDependency((NbUriDependency)dependency, toPopulate);
+                    return createFileDependencyNode((NbUriDependency)dependency);
                 }
                 else {
-                    addGenericDependency(dependency, toPopulate);
+                    return createGenericDependencyNode(dependency);
                 }
-            }
-        }
-
-        @Override
-        protected boolean createKeys(List<SingleNodeFactory> toPopulate) {
-            try {
-                readKeys(toPopulate);
             } catch (DataObjectNotFoundException ex) {
                 throw new RuntimeException(ex);
             }
-            return true;
-        }
-
-        @Override
-        protected Node createNodeForKey(SingleNodeFactory key) {
-            return key.createNode();
         }
     }
 }
@@ -11,8 +11,8 @@ import javax.swing.event.ChangeListener;
 import org.netbeans.api.java.queries.BinaryForSourceQuery;
 import org.netbeans.gradle.project.java.JavaExtension;
 import org.netbeans.gradle.project.java.JavaModelChangeListener;
-import org.netbeans.gradle.project.java.model.NbJavaModule;
-import org.netbeans.gradle.project.java.model.NbSourceType;
+import org.netbeans.gradle.project.java.model.NbJavaModel;
+import org.netbeans.gradle.project.java.model.NbSourceRootInfo;
 import org.netbeans.gradle.project.query.AbstractBinaryForSourceQuery;
 import org.openide.filesystems.FileObject;
 import org.openide.filesystems.FileUtil;
@@ -40,59 +40,31 @@ implements
         eventSource.init(this.changes);
     }
 
-    private static SourceType getSourceRootType(NbJavaModule module, FileObject root) {
-        for (FileObject src: module.getSources(NbSourceType.SOURCE).getFileObjects()) {
-            if (FileUtil.getRelativePath(src, root) != null) {
-                return SourceType.NORMAL;
-            }
-        }
-        for (FileObject src: module.getSources(NbSourceType.TEST_SOURCE).getFileObjects()) {
-            if (FileUtil.getRelativePath(src, root) != null) {
-                return SourceType.TEST;
-            }
+    private static NbSourceRootInfo tryGetRootInfo(NbJavaModel model, FileObject root) {
+        NbSourceRootInfo rootInfo = model.getSourceRootIndex().tryGetValue(root);
+        if (rootInfo == null || rootInfo.getModule() != model.getMainModule()) {
+            return null;
         }
-
-        return SourceType.UNKNOWN;
+        return rootInfo;
     }
 
-    private static URL[] getBinariesOfModule(NbJavaModule module) {
-        File buildDir = module.getProperties().getOutput().getBuildDir();
-        try {
-            URL url = Utilities.toURI(buildDir).toURL();
-            return new URL[]{url};
-        } catch (MalformedURLException ex) {
-            LOGGER.log(Level.INFO, "Cannot convert to URL: " + buildDir, ex);
+    private static URL[] tryGetRoots(NbJavaModel model, FileObject root) {
+        NbSourceRootInfo rootInfo = tryGetRootInfo(model, root);
+        if (rootInfo == null) {
+            return NO_ROOTS;
         }
 
-        return NO_ROOTS;
-    }
-
-    private static URL[] getTestBinariesOfModule(NbJavaModule module) {
-        File testBuildDir = module.getProperties().getOutput().getTestBuildDir();
+        File outputDir = rootInfo.getOutputDir();
         try {
-            URL url = Utilities.toURI(testBuildDir).toURL();
+            URL url = Utilities.toURI(outputDir).toURL();
             return new URL[]{url};
         } catch (MalformedURLException ex) {
-            LOGGER.log(Level.INFO, "Cannot convert to URL: " + testBuildDir, ex);
+            LOGGER.log(Level.INFO, "Cannot convert to URL: " + outputDir, ex);
         }
 
         return NO_ROOTS;
     }
 
-    private static URL[] tryGetRoots(
-            NbJavaModule module, FileObject root) {
-        SourceType sourceType = getSourceRootType(module, root);
-        switch (sourceType) {
-            case NORMAL:
-                return getBinariesOfModule(module);
-            case TEST:
-                return getTestBinariesOfModule(module);
-            default:
-                return NO_ROOTS;
-
-        }
-    }
-
     @Override
     public void onModelChange() {
         SwingUtilities.invokeLater(new Runnable() {
@@ -114,18 +86,14 @@ implements
             return null;
         }
 
-        NbJavaModule mainModule = javaExt.getCurrentModel().getMainModule();
-        SourceType rootType = getSourceRootType(mainModule, sourceRootObj);
-        if (rootType == SourceType.UNKNOWN) {
+        if (tryGetRootInfo(javaExt.getCurrentModel(), sourceRootObj) == null) {
             return null;
         }
 
         return new BinaryForSourceQuery.Result() {
             @Override
             public URL[] getRoots() {
-                NbJavaModule mainModule = javaExt.getCurrentModel().getMainModule();
-
-                return tryGetRoots(mainModule, sourceRootObj);
+                return tryGetRoots(javaExt.getCurrentModel(), sourceRootObj);
             }
 
             @Override
@@ -145,12 +113,6 @@ implements
         };
     }
 
-    private enum SourceType {
-        NORMAL,
-        TEST,
-        UNKNOWN
-    }
-
     private static final class EventSource implements BinaryForSourceQuery.Result {
         private volatile ChangeSupport changes;
 
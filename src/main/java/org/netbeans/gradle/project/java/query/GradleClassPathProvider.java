@@ -7,6 +7,8 @@ import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -20,6 +22,7 @@ import java.util.logging.Logger;
 import javax.swing.SwingUtilities;
 import org.netbeans.api.java.classpath.ClassPath;
 import org.netbeans.api.java.classpath.JavaClassPathConstants;
+import org.netbeans.gradle.project.FileRootIndex;
 import org.netbeans.gradle.project.NbGradleProject;
 import org.netbeans.gradle.project.NbStrings;
 import org.netbeans.gradle.project.ProjectInfo;
@@ -33,7 +36,6 @@ import org.netbeans.gradle.project.java.JavaModelChangeListener;
 import org.netbeans.gradle.project.java.model.NbDependencyType;
 import org.netbeans.gradle.project.java.model.NbJavaDependency;
 import org.netbeans.gradle.project.java.model.NbJavaModel;
-import org.netbeans.gradle.project.java.model.NbJavaModelUtils;
 import org.netbeans.gradle.project.java.model.NbJavaModule;
 import org.netbeans.gradle.project.java.model.NbModuleDependency;
 import org.netbeans.gradle.project.java.model.NbOutput;
@@ -41,13 +43,13 @@ import org.netbeans.gradle.project.java.model.NbSourceGroup;
 import org.netbeans.gradle.project.java.model.NbSourceType;
 import org.netbeans.gradle.project.java.model.NbUriDependency;
 import org.netbeans.gradle.project.query.GradleFilesClassPathProvider;
+import org.netbeans.gradle.project.query.PathResourceRegistry;
 import org.netbeans.spi.java.classpath.ClassPathFactory;
 import org.netbeans.spi.java.classpath.ClassPathImplementation;
 import org.netbeans.spi.java.classpath.ClassPathProvider;
 import org.netbeans.spi.java.classpath.PathResourceImplementation;
 import org.netbeans.spi.java.classpath.support.ClassPathSupport;
 import org.openide.filesystems.FileObject;
-import org.openide.filesystems.FileUtil;
 
 public final class GradleClassPathProvider
 implements
@@ -60,7 +62,12 @@ implements
     private final ConcurrentMap<ClassPathType, List<PathResourceImplementation>> classpathResources;
     private final ConcurrentMap<ClassPathType, ClassPath> classpaths;
 
+    // Notifies listeners of the provider and not the listeners of the
+    // individual class paths.
     private final PropertyChangeSupport changes;
+    // Only read after the constructor returns.
+    private final Map<ClassPathType, PropertyChangeSupport> classPathChanges;
+    private final PropertyChangeSupport allSourcesChanges;
     private volatile ProjectPlatform currentPlatform;
 
     private final AtomicReference<ProjectInfoRef> infoRefRef;
@@ -68,6 +75,8 @@ implements
     private final AtomicReference<ClassPath> allSourcesClassPathRef;
     private volatile List<PathResourceImplementation> allSources;
 
+    private volatile FileTypeIndex fileTypeIndex;
+
     // EnumMap is not a ConcurrentMap, so it cannot be used.
     @SuppressWarnings("MapReplaceableByEnumMap")
     public GradleClassPathProvider(JavaExtension javaExt) {
@@ -82,10 +91,17 @@ implements
         this.classpaths = new ConcurrentHashMap<ClassPathType, ClassPath>(classPathTypeCount);
         this.allSources = Collections.emptyList();
         this.allSourcesClassPathRef = new AtomicReference<ClassPath>(null);
+        this.fileTypeIndex = null;
 
         EventSource eventSource = new EventSource();
         this.changes = new PropertyChangeSupport(eventSource);
         eventSource.init(this.changes);
+
+        this.classPathChanges = new EnumMap<ClassPathType, PropertyChangeSupport>(ClassPathType.class);
+        for (ClassPathType classPathType: ClassPathType.values()) {
+            this.classPathChanges.put(classPathType, new PropertyChangeSupport(eventSource));
+        }
+        this.allSourcesChanges = new PropertyChangeSupport(eventSource);
     }
 
     private ProjectInfoRef getInfoRef() {
@@ -143,7 +159,9 @@ implements
         NbGradleProject.PROJECT_PROCESSOR.execute(new Runnable() {
             @Override
             public void run() {
-                loadPathResources(javaExt.getCurrentModel());
+                NbJavaModel projectModel = javaExt.getCurrentModel();
+                getFileTypeIndex(projectModel);
+                loadPathResources(projectModel);
             }
         });
     }
@@ -175,28 +193,42 @@ implements
         changes.removePropertyChangeListener(listener);
     }
 
-    private FileType getTypeOfFile(NbJavaModule module, FileObject file) {
+    private static void addToFileTypeIndex(NbJavaModule module, FileRootIndex.Builder<FileType> index) {
         for (Map.Entry<NbSourceType, NbSourceGroup> entry: module.getSources().entrySet()) {
-            for (FileObject sourceRoot: entry.getValue().getFileObjects()) {
-                if (FileUtil.getRelativePath(sourceRoot, file) != null) {
-                    return sourceTypeToFileType(entry.getKey());
-                }
+            FileType fileType = sourceTypeToFileType(entry.getKey());
+            for (File sourceRoot: entry.getValue().getFiles()) {
+                index.addRoot(sourceRoot, fileType);
             }
         }
 
         NbOutput output = module.getProperties().getOutput();
+        index.addRoot(output.getBuildDir(), FileType.COMPILED);
+        index.addRoot(output.getTestBuildDir(), FileType.COMPILED_TEST);
+    }
 
-        FileObject outputDir = FileUtil.toFileObject(output.getBuildDir());
-        if (outputDir != null && FileUtil.getRelativePath(outputDir, file) != null) {
-            return FileType.COMPILED;
-        }
+    private static FileRootIndex<FileType> createFileTypeIndex(NbJavaModel projectModel) {
+        FileRootIndex.Builder<FileType> result = new FileRootIndex.Builder<FileType>();
 
-        FileObject testOutputDir = FileUtil.toFileObject(output.getTestBuildDir());
-        if (testOutputDir != null && FileUtil.getRelativePath(testOutputDir, file) != null) {
-            return FileType.COMPILED_TEST;
+        // The roots of the main module are added first because they take
+        // precedence if a root is shared with a dependency.
+        NbJavaModule mainModule = projectModel.getMainModule();
+        addToFileTypeIndex(mainModule, result);
+        for (NbJavaModule module: projectModel.getAllModuleDependencies()) {
+            addToFileTypeIndex(module, result);
         }
 
-        return null;
+        return result.create();
+    }
+
+    private FileRootIndex<FileType> getFileTypeIndex(NbJavaModel projectModel) {
+        // Concurrent calls might create the same index multiple times but
+        // that is harmless.
+        FileTypeIndex currentIndex = fileTypeIndex;
+        if (currentIndex == null || currentIndex.getModel() != projectModel) {
+            currentIndex = new FileTypeIndex(projectModel, createFileTypeIndex(projectModel));
+            fileTypeIndex = currentIndex;
+        }
+        return currentIndex.getIndex();
     }
 
     private static FileType sourceTypeToFileType(NbSourceType sourceType) {
@@ -217,19 +249,7 @@ implements
     }
 
     private FileType getTypeOfFile(NbJavaModel projectModel, FileObject file) {
-        NbJavaModule mainModule = projectModel.getMainModule();
-        FileType result = getTypeOfFile(mainModule, file);
-        if (result != null) {
-            return result;
-        }
-        for (NbJavaModule module: NbJavaModelUtils.getAllModuleDependencies(mainModule)) {
-            FileType depResult = getTypeOfFile(module, file);
-            if (depResult != null) {
-                return depResult;
-            }
-        }
-
-        return null;
+        return getFileTypeIndex(projectModel).tryGetValue(file);
     }
 
     private static ClassPathType getClassPathType(FileType fileType, String type) {
@@ -287,17 +307,20 @@ implements
         }
     }
 
-    private void updateAllSources() {
+    private boolean updateAllSources() {
         List<PathResourceImplementation> sourceContainer = new LinkedList<PathResourceImplementation>();
 
-        NbJavaModule mainModule = javaExt.getCurrentModel().getMainModule();
+        NbJavaModel projectModel = javaExt.getCurrentModel();
+        NbJavaModule mainModule = projectModel.getMainModule();
         addSourcesToList(mainModule, sourceContainer, NbSourceType.SOURCE, NbSourceType.TEST_SOURCE);
 
-        for (NbJavaModule module: NbJavaModelUtils.getAllModuleDependencies(mainModule)) {
+        for (NbJavaModule module: projectModel.getAllModuleDependencies()) {
             addSourcesToList(module, sourceContainer, NbSourceType.SOURCE);
         }
 
+        List<PathResourceImplementation> prevAllSources = allSources;
         allSources = Collections.unmodifiableList(new ArrayList<PathResourceImplementation>(sourceContainer));
+        return !prevAllSources.equals(allSources);
     }
 
     @SuppressWarnings("varargs")
@@ -316,13 +339,15 @@ implements
             }
         }
 
+        Map<File, PathResourceImplementation> resources = PathResourceRegistry.getResources(filesSet);
+
         List<PathResourceImplementation> result = new ArrayList<PathResourceImplementation>(filesSet.size());
         for (File file: filesSet) {
-            URL url = FileUtil.urlForArchiveOrDir(file);
+            PathResourceImplementation resource = resources.get(file);
 
             // Ignore invalid classpath entries
-            if (url != null) {
-                result.add(ClassPathSupport.createResource(url));
+            if (resource != null) {
+                result.add(resource);
             }
             else {
                 invalid.add(file);
@@ -332,13 +357,27 @@ implements
         return result;
     }
 
-    private void setClassPathResources(
+    // Returns true if the resources of the class path have changed. Note that
+    // PathResourceImplementation instances are shared through
+    // PathResourceRegistry, so the same entries are equal.
+    private boolean setClassPathResources(
             ClassPathType classPathType,
             List<PathResourceImplementation> paths) {
-        classpathResources.put(classPathType, Collections.unmodifiableList(paths));
+        List<PathResourceImplementation> prevPaths
+                = classpathResources.put(classPathType, Collections.unmodifiableList(paths));
+        return prevPaths == null || !prevPaths.equals(paths);
     }
 
-    private void loadPathResourcesForSources(NbJavaModel projectModel) {
+    private void setClassPathResources(
+            ClassPathType classPathType,
+            List<PathResourceImplementation> paths,
+            Set<ClassPathType> changedClassPaths) {
+        if (setClassPathResources(classPathType, paths)) {
+            changedClassPaths.add(classPathType);
+        }
+    }
+
+    private void loadPathResourcesForSources(NbJavaModel projectModel, Set<ClassPathType> changedClassPaths) {
         List<File> sources = new LinkedList<File>();
         List<File> testSources = new LinkedList<File>();
 
@@ -350,12 +389,12 @@ implements
         @SuppressWarnings("unchecked")
         List<PathResourceImplementation> sourcePaths = getPathResources(
                 new HashSet<File>(), sources);
-        setClassPathResources(ClassPathType.SOURCES, sourcePaths);
+        setClassPathResources(ClassPathType.SOURCES, sourcePaths, changedClassPaths);
 
         @SuppressWarnings("unchecked")
         List<PathResourceImplementation> testSourcePaths = getPathResources(
                 new HashSet<File>(), testSources);
-        setClassPathResources(ClassPathType.SOURCES_FOR_TEST, testSourcePaths);
+        setClassPathResources(ClassPathType.SOURCES_FOR_TEST, testSourcePaths, changedClassPaths);
     }
 
     private static void addModuleClassPaths(
@@ -389,7 +428,8 @@ implements
     }
 
     private void loadPathResources(NbJavaModel projectModel) {
-        loadPathResourcesForSources(projectModel);
+        final Set<ClassPathType> changedClassPaths = EnumSet.noneOf(ClassPathType.class);
+        loadPathResourcesForSources(projectModel, changedClassPaths);
 
         List<File> compile = new LinkedList<File>();
         List<File> testCompile = new LinkedList<File>();
@@ -413,7 +453,7 @@ implements
 
         addModuleClassPaths(mainModule, runtime, testRuntime, notRequiredPaths);
 
-        for (NbJavaDependency dependency: NbJavaModelUtils.getAllDependencies(mainModule, NbDependencyType.COMPILE)) {
+        for (NbJavaDependency dependency: projectModel.getAllDependencies(NbDependencyType.COMPILE)) {
             if (dependency instanceof NbUriDependency) {
                 addExternalClassPaths((NbUriDependency)dependency, compile);
                 addExternalClassPaths((NbUriDependency)dependency, globalCompile);
@@ -426,7 +466,7 @@ implements
                 buildOutputDirs.add(moduleDep.getModule().getProperties().getOutput().getTestBuildDir());
             }
         }
-        for (NbJavaDependency dependency: NbJavaModelUtils.getAllDependencies(mainModule, NbDependencyType.RUNTIME)) {
+        for (NbJavaDependency dependency: projectModel.getAllDependencies(NbDependencyType.RUNTIME)) {
             if (dependency instanceof NbUriDependency) {
                 addExternalClassPaths((NbUriDependency)dependency, runtime);
                 addExternalClassPaths((NbUriDependency)dependency, globalRuntime);
@@ -436,7 +476,7 @@ implements
                 addModuleClassPaths(moduleDep.getModule(), runtime, null, notRequiredPaths);
             }
         }
-        for (NbJavaDependency dependency: NbJavaModelUtils.getAllDependencies(mainModule, NbDependencyType.TEST_COMPILE)) {
+        for (NbJavaDependency dependency: projectModel.getAllDependencies(NbDependencyType.TEST_COMPILE)) {
             if (dependency instanceof NbUriDependency) {
                 addExternalClassPaths((NbUriDependency)dependency, testCompile);
                 addExternalClassPaths((NbUriDependency)dependency, globalCompile);
@@ -446,7 +486,7 @@ implements
                 addModuleClassPaths(moduleDep.getModule(), testCompile, null, notRequiredPaths);
             }
         }
-        for (NbJavaDependency dependency: NbJavaModelUtils.getAllDependencies(mainModule, NbDependencyType.TEST_RUNTIME)) {
+        for (NbJavaDependency dependency: projectModel.getAllDependencies(NbDependencyType.TEST_RUNTIME)) {
             if (dependency instanceof NbUriDependency) {
                 addExternalClassPaths((NbUriDependency)dependency, testRuntime);
                 addExternalClassPaths((NbUriDependency)dependency, globalRuntime);
@@ -461,32 +501,32 @@ implements
 
         @SuppressWarnings("unchecked")
         List<PathResourceImplementation> buildOutputPaths = getPathResources(missing, buildOutputDirs);
-        setClassPathResources(ClassPathType.PROJECT_BUILD_OUTPUT, buildOutputPaths);
+        setClassPathResources(ClassPathType.PROJECT_BUILD_OUTPUT, buildOutputPaths, changedClassPaths);
 
         @SuppressWarnings("unchecked")
         List<PathResourceImplementation> compilePaths = getPathResources(missing, compile);
-        setClassPathResources(ClassPathType.COMPILE, compilePaths);
+        setClassPathResources(ClassPathType.COMPILE, compilePaths, changedClassPaths);
 
         @SuppressWarnings("unchecked")
         List<PathResourceImplementation> testCompilePaths = getPathResources(missing, compile, testCompile);
-        setClassPathResources(ClassPathType.COMPILE_FOR_TEST, testCompilePaths);
+        setClassPathResources(ClassPathType.COMPILE_FOR_TEST, testCompilePaths, changedClassPaths);
 
         @SuppressWarnings("unchecked")
         List<PathResourceImplementation> globalCompilePaths = getPathResources(new HashSet<File>(), globalCompile);
-        setClassPathResources(ClassPathType.COMPILE_FOR_GLOBAL, globalCompilePaths);
+        setClassPathResources(ClassPathType.COMPILE_FOR_GLOBAL, globalCompilePaths, changedClassPaths);
 
         @SuppressWarnings("unchecked")
         List<PathResourceImplementation> runtimePaths = getPathResources(missing, compile, runtime);
-        setClassPathResources(ClassPathType.RUNTIME, runtimePaths);
+        setClassPathResources(ClassPathType.RUNTIME, runtimePaths, changedClassPaths);
 
         @SuppressWarnings("unchecked")
         List<PathResourceImplementation> testRuntimePaths = getPathResources(
                 missing, compile, testCompile, runtime, testRuntime);
-        setClassPathResources(ClassPathType.RUNTIME_FOR_TEST, testRuntimePaths);
+        setClassPathResources(ClassPathType.RUNTIME_FOR_TEST, testRuntimePaths, changedClassPaths);
 
         @SuppressWarnings("unchecked")
         List<PathResourceImplementation> globalRuntimePaths = getPathResources(new HashSet<File>(), globalRuntime);
-        setClassPathResources(ClassPathType.RUNTIME_FOR_GLOBAL, globalRuntimePaths);
+        setClassPathResources(ClassPathType.RUNTIME_FOR_GLOBAL, globalRuntimePaths, changedClassPaths);
 
         List<PathResourceImplementation> platformResources = new LinkedList<PathResourceImplementation>();
         ProjectPlatform platform = currentPlatform;
@@ -494,13 +534,13 @@ implements
             platform = getPlatformProperty().getValue();
         }
         for (URL url: platform.getBootLibraries()) {
-            platformResources.add(ClassPathSupport.createResource(url));
+            platformResources.add(PathResourceRegistry.getResource(url));
         }
 
-        setClassPathResources(ClassPathType.BOOT, platformResources);
-        setClassPathResources(ClassPathType.BOOT_FOR_TEST, platformResources);
+        setClassPathResources(ClassPathType.BOOT, platformResources, changedClassPaths);
+        setClassPathResources(ClassPathType.BOOT_FOR_TEST, platformResources, changedClassPaths);
 
-        updateAllSources();
+        final boolean allSourcesChanged = updateAllSources();
 
         missing.removeAll(notRequiredPaths);
 
@@ -516,9 +556,22 @@ implements
             getInfoRef().setInfo(new ProjectInfo(infos));
         }
 
+        if (changedClassPaths.isEmpty() && !allSourcesChanged) {
+            // Reloading the same model: Let's not make NetBeans reevaluate
+            // the class paths for nothing.
+            return;
+        }
+
         SwingUtilities.invokeLater(new Runnable() {
             @Override
             public void run() {
+                for (ClassPathType classPathType: changedClassPaths) {
+                    classPathChanges.get(classPathType).firePropertyChange(
+                            ClassPathImplementation.PROP_RESOURCES, null, null);
+                }
+                if (allSourcesChanged) {
+                    allSourcesChanges.firePropertyChange(ClassPathImplementation.PROP_RESOURCES, null, null);
+                }
                 changes.firePropertyChange(ClassPathImplementation.PROP_RESOURCES, null, null);
             }
         });
@@ -575,18 +628,25 @@ implements
     }
 
     private abstract class AbstractGradleClassPaths implements ClassPathImplementation {
+        protected abstract PropertyChangeSupport getChanges();
+
         @Override
         public final void addPropertyChangeListener(PropertyChangeListener listener) {
-            changes.addPropertyChangeListener(listener);
+            getChanges().addPropertyChangeListener(listener);
         }
 
         @Override
         public final void removePropertyChangeListener(PropertyChangeListener listener) {
-            changes.removePropertyChangeListener(listener);
+            getChanges().removePropertyChangeListener(listener);
         }
     }
 
     private class AllSourcesClassPaths extends AbstractGradleClassPaths {
+        @Override
+        protected PropertyChangeSupport getChanges() {
+            return allSourcesChanges;
+        }
+
         @Override
         public List<PathResourceImplementation> getResources() {
             return allSources;
@@ -601,6 +661,11 @@ implements
             this.classPathType = classPathType;
         }
 
+        @Override
+        protected PropertyChangeSupport getChanges() {
+            return classPathChanges.get(classPathType);
+        }
+
         @Override
         public List<PathResourceImplementation> getResources() {
             List<PathResourceImplementation> result = classpathResources.get(classPathType);
@@ -610,6 +675,24 @@ implements
         }
     }
 
+    private static final class FileTypeIndex {
+        private final NbJavaModel model;
+        private final FileRootIndex<FileType> index;
+
+        public FileTypeIndex(NbJavaModel model, FileRootIndex<FileType> index) {
+            this.model = model;
+            this.index = index;
+        }
+
+        public NbJavaModel getModel() {
+            return model;
+        }
+
+        public FileRootIndex<FileType> getIndex() {
+            return index;
+        }
+    }
+
     private enum FileType {
         SOURCE(false),
         RESOURCE(false),
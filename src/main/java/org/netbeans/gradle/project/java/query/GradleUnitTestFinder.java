@@ -5,9 +5,7 @@ import java.net.URL;
 import java.util.LinkedList;
 import java.util.List;
 import org.netbeans.gradle.project.java.JavaExtension;
-import org.netbeans.gradle.project.java.model.NbJavaModel;
-import org.netbeans.gradle.project.java.model.NbJavaModelUtils;
-import org.netbeans.gradle.project.java.model.NbJavaModule;
+import org.netbeans.gradle.project.java.model.NbSourceRootInfo;
 import org.netbeans.gradle.project.java.model.NbSourceType;
 import org.netbeans.spi.java.queries.MultipleRootsUnitTestForSourceQueryImplementation;
 import org.openide.filesystems.FileObject;
@@ -23,76 +21,31 @@ public final class GradleUnitTestFinder implements MultipleRootsUnitTestForSourc
         this.javaExt = javaExt;
     }
 
-    private static boolean hasSource(NbJavaModule module, FileObject source) {
-        for (FileObject srcDir: module.getSources(NbSourceType.SOURCE).getFileObjects()) {
-            if (FileUtil.getRelativePath(srcDir, source) != null) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    private static boolean hasTest(NbJavaModule module, FileObject source) {
-        for (FileObject srcDir: module.getSources(NbSourceType.TEST_SOURCE).getFileObjects()) {
-            if (FileUtil.getRelativePath(srcDir, source) != null) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    private static URL[] getSourceRoots(NbJavaModule module) {
+    private static URL[] getCounterpartRoots(NbSourceRootInfo rootInfo) {
         List<URL> result = new LinkedList<URL>();
-        for (File srcDirFile: module.getSources(NbSourceType.SOURCE).getFiles()) {
+        for (File srcDirFile: rootInfo.getCounterpartRoots()) {
             result.add(FileUtil.urlForArchiveOrDir(srcDirFile));
         }
 
         return result.toArray(NO_URL);
     }
 
-    private static URL[] getTestRoots(NbJavaModule module) {
-        List<URL> result = new LinkedList<URL>();
-        for (File srcDirFile: module.getSources(NbSourceType.TEST_SOURCE).getFiles()) {
-            result.add(FileUtil.urlForArchiveOrDir(srcDirFile));
+    private URL[] findCounterpartRoots(FileObject file, NbSourceType sourceType) {
+        NbSourceRootInfo rootInfo = javaExt.getCurrentModel().getSourceRootIndex().tryGetValue(file);
+        if (rootInfo == null || rootInfo.getSourceType() != sourceType) {
+            return null;
         }
 
-
-        return result.toArray(NO_URL);
+        return getCounterpartRoots(rootInfo);
     }
 
     @Override
     public URL[] findUnitTests(FileObject source) {
-        NbJavaModel projectModel = javaExt.getCurrentModel();
-
-        NbJavaModule mainModule = projectModel.getMainModule();
-        if (hasSource(mainModule, source)) {
-            return getTestRoots(mainModule);
-        }
-
-        for (NbJavaModule module: NbJavaModelUtils.getAllModuleDependencies(mainModule)) {
-            if (hasSource(module, source)) {
-                return getTestRoots(module);
-            }
-        }
-
-        return null;
+        return findCounterpartRoots(source, NbSourceType.SOURCE);
     }
 
     @Override
     public URL[] findSources(FileObject unitTest) {
-        NbJavaModel projectModel = javaExt.getCurrentModel();
-
-        NbJavaModule mainModule = projectModel.getMainModule();
-        if (hasTest(mainModule, unitTest)) {
-            return getSourceRoots(mainModule);
-        }
-
-        for (NbJavaModule module: NbJavaModelUtils.getAllModuleDependencies(mainModule)) {
-            if (hasTest(module, unitTest)) {
-                return getSourceRoots(module);
-            }
-        }
-
-        return null;
+        return findCounterpartRoots(unitTest, NbSourceType.TEST_SOURCE);
     }
 }
@@ -0,0 +1,447 @@
+package org.netbeans.gradle.project.java.tasks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.gradle.tooling.BuildLauncher;
+import org.gradle.tooling.GradleConnectionException;
+import org.gradle.tooling.GradleConnector;
+import org.gradle.tooling.ProgressEvent;
+import org.gradle.tooling.ProgressListener;
+import org.gradle.tooling.ProjectConnection;
+import org.netbeans.api.progress.ProgressHandle;
+import org.netbeans.gradle.project.NbGradleProject;
+import org.netbeans.gradle.project.NbStrings;
+import org.netbeans.gradle.project.StringAsFileRef;
+import org.netbeans.gradle.project.api.config.GlobalConfig;
+import org.netbeans.gradle.project.api.task.CommandCompleteListener;
+import org.netbeans.gradle.project.java.JavaExtension;
+import org.netbeans.gradle.project.java.JavaModelChangeListener;
+import org.netbeans.gradle.project.java.model.NbDependencyType;
+import org.netbeans.gradle.project.java.model.NbJavaDependency;
+import org.netbeans.gradle.project.java.model.NbJavaModel;
+import org.netbeans.gradle.project.java.model.NbUriDependency;
+import org.netbeans.gradle.project.model.GradleModelLoader;
+import org.netbeans.gradle.project.properties.GlobalGradleSettings;
+import org.netbeans.gradle.project.query.GradleCacheIndex;
+import org.netbeans.gradle.project.query.GradleCacheIndexer;
+import org.netbeans.gradle.project.query.GradleFileUtils;
+import org.netbeans.gradle.project.tasks.DaemonTask;
+import org.netbeans.gradle.project.tasks.GradleDaemonManager;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Downloads the sources and the javadoc of the external dependencies of
+ * projects in the background, if this was enabled in the global settings.
+ * <P>
+ * The dependencies of every project loaded within a short period of time are
+ * collected, so that all of them can be downloaded with a single Gradle
+ * command per build. The command is executed with a generated init script
+ * adding a task to each project which resolves the source and javadoc
+ * artifacts of the dependencies (ignoring failures). Once the download
+ * completes, the queries relying on the artifact cache of Gradle are
+ * notified only once.
+ * <P>
+ * Every artifact is only attempted to be downloaded once per session, unless
+ * the Gradle command attempting to download it fails (or is canceled).
+ */
+public final class DependencySourceDownloader implements JavaModelChangeListener {
+    private static final Logger LOGGER = Logger.getLogger(DependencySourceDownloader.class.getName());
+
+    static final String TASK_NAME = "nbDownloadSourcesAndJavadoc";
+
+    private static final int BATCH_DELAY_MS = 3000;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final RequestProcessor DOWNLOAD_PROCESSOR
+            = new RequestProcessor("Gradle-Source-Downloader", 1, true);
+
+    private static final Executor LOW_PRIORITY_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            DOWNLOAD_PROCESSOR.post(command, 0, Thread.MIN_PRIORITY);
+        }
+    };
+
+    private static final Set<String> REQUESTED_ARTIFACTS
+            = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    private static final PendingDownloads<NbGradleProject> PENDING_DOWNLOADS
+            = new PendingDownloads<NbGradleProject>();
+
+    private static final RequestProcessor.Task DOWNLOAD_TASK = DOWNLOAD_PROCESSOR.create(new Runnable() {
+        @Override
+        public void run() {
+            startPendingDownloads();
+        }
+    });
+
+    private final JavaExtension javaExt;
+
+    public DependencySourceDownloader(JavaExtension javaExt) {
+        if (javaExt == null) throw new NullPointerException("javaExt");
+        this.javaExt = javaExt;
+    }
+
+    @Override
+    public void onModelChange() {
+        if (!GlobalConfig.downloadSources().getValue()) {
+            return;
+        }
+
+        NbGradleProject project = javaExt.getProjectLookup().lookup(NbGradleProject.class);
+        if (project == null) {
+            return;
+        }
+
+        File gradleUserHome = GradleFileUtils.GRADLE_USER_HOME.getValue();
+        if (gradleUserHome == null) {
+            return;
+        }
+
+        Map<String, File> artifacts = collectNewArtifacts(gradleUserHome,
+                getAllDependencies(javaExt.getCurrentModel()));
+        if (artifacts.isEmpty()) {
+            return;
+        }
+
+        File rootProjectDir = project.getCurrentModel().getRootProjectDir();
+        PENDING_DOWNLOADS.addArtifacts(project, rootProjectDir, artifacts);
+
+        DOWNLOAD_TASK.schedule(BATCH_DELAY_MS);
+    }
+
+    private static Collection<NbJavaDependency> getAllDependencies(NbJavaModel model) {
+        Set<NbJavaDependency> result = new LinkedHashSet<NbJavaDependency>();
+        for (NbDependencyType type: NbDependencyType.values()) {
+            result.addAll(model.getAllDependencies(type));
+        }
+        return result;
+    }
+
+    /**
+     * Returns "group:name:version" mapped to the version directory of the
+     * artifact in the cache for each dependency found in the artifact cache
+     * of Gradle which has no known sources and was not requested before.
+     * The returned artifacts are considered to be requested until
+     * {@link #downloadArtifacts(Map, ArtifactDownloader) downloading them}
+     * fails.
+     */
+    static Map<String, File> collectNewArtifacts(
+            File gradleUserHome,
+            Collection<? extends NbJavaDependency> dependencies) {
+
+        Map<String, File> result = new TreeMap<String, File>();
+        for (NbJavaDependency dependency: dependencies) {
+            if (!(dependency instanceof NbUriDependency)) {
+                continue;
+            }
+
+            NbUriDependency uriDependency = (NbUriDependency)dependency;
+            if (uriDependency.getSrcUri() != null) {
+                continue;
+            }
+
+            File file = uriDependency.tryGetAsFile();
+            if (file == null || !GradleFileUtils.isParentOrSame(gradleUserHome, file)) {
+                continue;
+            }
+
+            GradleCacheIndex.ArtifactKey key = GradleCacheIndex.ArtifactKey.tryGetKeyOfFile(file);
+            if (key == null || !key.getClassifier().isEmpty()) {
+                continue;
+            }
+
+            String notation = key.getGroup() + ":" + key.getName() + ":" + key.getVersion();
+            if (!result.containsKey(notation) && REQUESTED_ARTIFACTS.add(notation)) {
+                // FILE/HASH/TYPE/VERSION
+                result.put(notation, file.getParentFile().getParentFile().getParentFile());
+            }
+        }
+        return result;
+    }
+
+    private static void startPendingDownloads() {
+        for (PendingDownload<NbGradleProject> download: PENDING_DOWNLOADS.takeAll()) {
+            submitDownload(download);
+        }
+    }
+
+    private static void submitDownload(final PendingDownload<NbGradleProject> download) {
+        String caption = NbStrings.getDownloadingSourcesCaption(download.project.getDisplayName());
+        // The download is submitted as a blocking task (i.e., it does not
+        // hold the queue of the daemon tasks), so that it never delays
+        // loading projects or executing builds. The download might take
+        // minutes and cannot be aborted once it was started.
+        GradleDaemonManager.submitGradleTask(LOW_PRIORITY_EXECUTOR, caption, new DaemonTask() {
+            @Override
+            public void run(ProgressHandle progress) {
+                downloadNow(download, progress);
+            }
+        }, false, new CommandCompleteListener() {
+            @Override
+            public void onComplete(Throwable error) {
+                if (error != null) {
+                    LOGGER.log(Level.INFO, "Failed to download sources and javadoc.", error);
+                }
+            }
+        });
+    }
+
+    private static void downloadNow(
+            final PendingDownload<NbGradleProject> download,
+            final ProgressHandle progress) {
+
+        LOGGER.log(Level.INFO, "Downloading sources and javadoc of {0} artifacts for {1}",
+                new Object[]{download.artifacts.size(), download.rootProjectDir});
+
+        downloadArtifacts(download.artifacts, new ArtifactDownloader() {
+            @Override
+            public void download(Collection<String> notations) throws IOException {
+                StringAsFileRef initScript = StringAsFileRef.createRef(
+                        "download-sources-script", createInitScript(notations), UTF8);
+                try {
+                    runDownloadTask(download, initScript.getFile(), progress);
+                } finally {
+                    initScript.close();
+                }
+            }
+
+            @Override
+            public void refreshDirs(Collection<File> dirs) {
+                GradleCacheIndexer.refreshDirs(dirs);
+            }
+        });
+    }
+
+    /**
+     * Downloads the given artifacts ("group:name:version" mapped to the
+     * version directory of the artifact) using the given downloader, then
+     * notifies the downloader to refresh the directories where the sources
+     * and javadoc are expected to be. If the download fails, the artifacts
+     * are no longer considered to be requested, so they will be attempted to
+     * be downloaded again.
+     */
+    static void downloadArtifacts(Map<String, File> artifacts, ArtifactDownloader downloader) {
+        boolean success = false;
+        try {
+            downloader.download(artifacts.keySet());
+            success = true;
+        } catch (IOException ex) {
+            LOGGER.log(Level.INFO, "Failed to create the init script for downloading sources.", ex);
+        } catch (GradleConnectionException ex) {
+            LOGGER.log(Level.INFO, "Failed to download sources and javadoc.", ex);
+        } finally {
+            if (!success) {
+                REQUESTED_ARTIFACTS.removeAll(artifacts.keySet());
+            }
+
+            // Even if the build failed, some of the artifacts might have been
+            // downloaded.
+            downloader.refreshDirs(getDownloadDirs(artifacts.values()));
+        }
+    }
+
+    private static void runDownloadTask(
+            PendingDownload<NbGradleProject> download,
+            File initScript,
+            final ProgressHandle progress) {
+
+        GradleConnector gradleConnector = GradleModelLoader.createGradleConnector(download.project);
+        gradleConnector.forProjectDirectory(download.rootProjectDir);
+
+        ProjectConnection projectConnection = gradleConnector.connect();
+        try {
+            BuildLauncher buildLauncher = projectConnection.newBuild();
+
+            File jdkHome = GradleModelLoader.getScriptJavaHome(download.project);
+            if (jdkHome != null && !jdkHome.getPath().isEmpty()) {
+                buildLauncher.setJavaHome(jdkHome);
+            }
+
+            List<String> globalJvmArgs = GlobalGradleSettings.getGradleJvmArgs().getValue();
+            if (globalJvmArgs != null && !globalJvmArgs.isEmpty()) {
+                buildLauncher.setJvmArguments(globalJvmArgs.toArray(new String[0]));
+            }
+
+            buildLauncher.addProgressListener(new ProgressListener() {
+                @Override
+                public void statusChanged(ProgressEvent pe) {
+                    progress.progress(pe.getDescription());
+                }
+            });
+
+            buildLauncher.withArguments("--init-script", initScript.getPath());
+            buildLauncher.forTasks(TASK_NAME);
+            buildLauncher.run();
+        } finally {
+            projectConnection.close();
+        }
+    }
+
+    private static List<File> getDownloadDirs(Collection<File> versionDirs) {
+        List<File> result = new ArrayList<File>(2 * versionDirs.size());
+        for (File versionDir: versionDirs) {
+            result.add(new File(versionDir, GradleFileUtils.SOURCE_DIR_NAME));
+            result.add(new File(versionDir, GradleFileUtils.JAVADOC_DIR_NAME));
+        }
+        return result;
+    }
+
+    private static String toGroovyString(String str) {
+        return "'" + str.replace("\\", "\\\\").replace("'", "\\'") + "'";
+    }
+
+    /**
+     * Creates the init script adding a task named {@link #TASK_NAME} to every
+     * project, resolving the source and javadoc artifacts of the given
+     * artifacts (in "group:name:version" format) using the repositories of
+     * the project. Artifacts already resolved by a previous project are not
+     * resolved again.
+     */
+    static String createInitScript(Collection<String> notations) {
+        StringBuilder result = new StringBuilder(1024 + 64 * notations.size());
+        result.append("// Downloads the sources and javadoc of dependencies for NetBeans.\n");
+        result.append("def nbArtifacts = [\n");
+        for (String notation: notations) {
+            String[] parts = notation.split(":", 3);
+            if (parts.length != 3) {
+                continue;
+            }
+
+            result.append("    [group: ");
+            result.append(toGroovyString(parts[0]));
+            result.append(", name: ");
+            result.append(toGroovyString(parts[1]));
+            result.append(", version: ");
+            result.append(toGroovyString(parts[2]));
+            result.append("],\n");
+        }
+        result.append("]\n");
+        result.append("def nbResolved = new HashSet()\n");
+        result.append("\n");
+        result.append("allprojects { project ->\n");
+        result.append("    project.task('").append(TASK_NAME).append("') << {\n");
+        result.append("        nbArtifacts.each { artifact ->\n");
+        result.append("            [source: 'sources', javadoc: 'javadoc'].each { artifactType, artifactClassifier ->\n");
+        result.append("                String id = \"${artifact.group}:${artifact.name}:${artifact.version}:${artifactClassifier}\"\n");
+        result.append("                if (nbResolved.contains(id)) {\n");
+        result.append("                    return\n");
+        result.append("                }\n");
+        result.append("\n");
+        result.append("                try {\n");
+        result.append("                    def dependency = project.dependencies.create(artifact)\n");
+        result.append("                    dependency.transitive = false\n");
+        result.append("                    dependency.artifact { dependencyArtifact ->\n");
+        result.append("                        dependencyArtifact.name = artifact.name\n");
+        result.append("                        dependencyArtifact.type = artifactType\n");
+        result.append("                        dependencyArtifact.extension = 'jar'\n");
+        result.append("                        dependencyArtifact.classifier = artifactClassifier\n");
+        result.append("                    }\n");
+        result.append("\n");
+        result.append("                    def config = project.configurations.detachedConfiguration(dependency)\n");
+        result.append("                    def lenientConfig = config.resolvedConfiguration.lenientConfiguration\n");
+        result.append("                    if (!lenientConfig.getFiles(org.gradle.api.specs.Specs.SATISFIES_ALL).isEmpty()) {\n");
+        result.append("                        nbResolved.add(id)\n");
+        result.append("                    }\n");
+        result.append("                } catch (Exception ex) {\n");
+        result.append("                    project.logger.info(\"Failed to resolve ${id}: ${ex}\")\n");
+        result.append("                }\n");
+        result.append("            }\n");
+        result.append("        }\n");
+        result.append("    }\n");
+        result.append("}\n");
+        return result.toString();
+    }
+
+    /**
+     * Executes the actual download of artifacts. This interface only exists,
+     * so that the download can be replaced in tests.
+     */
+    interface ArtifactDownloader {
+        /**
+         * Downloads the sources and javadoc of the given artifacts (in
+         * "group:name:version" format). This method returns normally only
+         * if the Gradle command downloading the artifacts completed.
+         */
+        public void download(Collection<String> notations) throws IOException;
+
+        /**
+         * Notifies the queries that the given directories might have changed.
+         */
+        public void refreshDirs(Collection<File> dirs);
+    }
+
+    /**
+     * Collects the artifacts to be downloaded, so that the artifacts of each
+     * build (root project directory) can be downloaded by a single command.
+     * The project is only a context for executing the command: The project
+     * added first to a build is used for the build.
+     */
+    static final class PendingDownloads<ProjectType> {
+        private final Lock pendingLock;
+        private final Map<File, PendingDownload<ProjectType>> downloads;
+
+        public PendingDownloads() {
+            this.pendingLock = new ReentrantLock();
+            this.downloads = new LinkedHashMap<File, PendingDownload<ProjectType>>();
+        }
+
+        public void addArtifacts(ProjectType project, File rootProjectDir, Map<String, File> artifacts) {
+            if (project == null) throw new NullPointerException("project");
+            if (rootProjectDir == null) throw new NullPointerException("rootProjectDir");
+            if (artifacts == null) throw new NullPointerException("artifacts");
+
+            pendingLock.lock();
+            try {
+                PendingDownload<ProjectType> pending = downloads.get(rootProjectDir);
+                if (pending == null) {
+                    pending = new PendingDownload<ProjectType>(project, rootProjectDir);
+                    downloads.put(rootProjectDir, pending);
+                }
+                pending.artifacts.putAll(artifacts);
+            } finally {
+                pendingLock.unlock();
+            }
+        }
+
+        public List<PendingDownload<ProjectType>> takeAll() {
+            pendingLock.lock();
+            try {
+                List<PendingDownload<ProjectType>> result
+                        = new ArrayList<PendingDownload<ProjectType>>(downloads.values());
+                downloads.clear();
+                return result;
+            } finally {
+                pendingLock.unlock();
+            }
+        }
+    }
+
+    static final class PendingDownload<ProjectType> {
+        public final ProjectType project;
+        public final File rootProjectDir;
+        public final Map<String, File> artifacts;
+
+        public PendingDownload(ProjectType project, File rootProjectDir) {
+            this.project = project;
+            this.rootProjectDir = rootProjectDir;
+            this.artifacts = new TreeMap<String, File>();
+        }
+    }
+}
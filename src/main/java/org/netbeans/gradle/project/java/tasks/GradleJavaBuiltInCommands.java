@@ -13,11 +13,13 @@ import org.netbeans.gradle.project.api.config.GlobalConfig;
 import org.netbeans.gradle.project.api.config.ProfileDef;
 import org.netbeans.gradle.project.api.task.BuiltInGradleCommandQuery;
 import org.netbeans.gradle.project.api.task.ContextAwareCommandAction;
+import org.netbeans.gradle.project.api.task.ContextAwareCommandArguments;
 import org.netbeans.gradle.project.api.task.ContextAwareCommandFinalizer;
 import org.netbeans.gradle.project.api.task.CustomCommandActions;
 import org.netbeans.gradle.project.api.task.GradleCommandTemplate;
 import org.netbeans.gradle.project.api.task.TaskKind;
 import org.netbeans.gradle.project.java.JavaExtension;
+import org.netbeans.gradle.project.java.JavaModelChangeListener;
 import org.netbeans.gradle.project.output.DebugTextListener;
 import org.netbeans.gradle.project.tasks.AttacherListener;
 import org.netbeans.gradle.project.tasks.DebugUtils;
@@ -26,7 +28,7 @@ import org.netbeans.spi.project.ActionProvider;
 import org.openide.util.Lookup;
 import org.openide.windows.OutputWriter;
 
-public final class GradleJavaBuiltInCommands implements BuiltInGradleCommandQuery {
+public final class GradleJavaBuiltInCommands implements BuiltInGradleCommandQuery, JavaModelChangeListener {
     private static final CommandWithActions DEFAULT_BUILD_TASK = nonBlockingCommand(
             Arrays.asList("build"),
             Collections.<String>emptyList(),
@@ -42,7 +44,9 @@ public final class GradleJavaBuiltInCommands implements BuiltInGradleCommandQuer
             Arrays.asList("debug"),
             Collections.<String>emptyList(),
             Collections.<String>emptyList(),
-            CustomCommandActions.DEBUG);
+            CustomCommandActions.DEBUG,
+            false,
+            true);
     private static final CommandWithActions DEFAULT_JAVADOC_TASK = nonBlockingCommand(
             Arrays.asList("javadoc"),
             Collections.<String>emptyList(),
@@ -69,12 +73,14 @@ public final class GradleJavaBuiltInCommands implements BuiltInGradleCommandQuer
             Arrays.asList("-PmainClass=" + StandardTaskVariable.SELECTED_CLASS.getScriptReplaceConstant()),
             Collections.<String>emptyList(),
             CustomCommandActions.RUN,
+            true,
             true);
     private static final CommandWithActions DEFAULT_DEBUG_SINGLE_TASK = blockingCommand(
             Arrays.asList(projectTask("debug")),
             Arrays.asList("-PmainClass=" + StandardTaskVariable.SELECTED_CLASS.getScriptReplaceConstant()),
             Collections.<String>emptyList(),
             CustomCommandActions.DEBUG,
+            true,
             true);
     private static final CommandWithActions DEFAULT_APPLY_CODE_CHANGES_TASK = blockingCommand(
             Arrays.asList(projectTask("classes")),
@@ -112,12 +118,19 @@ public final class GradleJavaBuiltInCommands implements BuiltInGradleCommandQuer
 
     private final JavaExtension javaExt;
     private final Set<String> supportedCommands;
+    private final SourceChangeTracker sourceChangeTracker;
 
     public GradleJavaBuiltInCommands(JavaExtension javaExt) {
         if (javaExt == null) throw new NullPointerException("javaExt");
 
         this.javaExt = javaExt;
         this.supportedCommands = Collections.unmodifiableSet(DEFAULT_TASKS.keySet());
+        this.sourceChangeTracker = new SourceChangeTracker(javaExt);
+    }
+
+    @Override
+    public void onModelChange() {
+        sourceChangeTracker.onModelChange();
     }
 
     @Override
@@ -134,16 +147,84 @@ public final class GradleJavaBuiltInCommands implements BuiltInGradleCommandQuer
     @Override
     public GradleCommandTemplate tryGetDefaultGradleCommand(ProfileDef profileDef, String command) {
         CommandWithActions task = DEFAULT_TASKS.get(command);
-        return task != null ? task.getCommand() : null;
+        if (task == null) {
+            return null;
+        }
+
+        // The arguments skipping the compilation are only added when the
+        // command is executed (see skipCompileArguments), because the
+        // default command is displayed and might be saved by the user.
+        return task.getCommand();
     }
 
     @Override
     public CustomCommandActions tryGetCommandDefs(ProfileDef profileDef, String command) {
         CommandWithActions task = DEFAULT_TASKS.get(command);
-        if (task != null && task.getCustomActions().getTaskKind() == TaskKind.DEBUG) {
-            return debugActions(true);
+        if (task == null) {
+            return null;
+        }
+
+        CustomCommandActions result = task.getCustomActions().getTaskKind() == TaskKind.DEBUG
+                ? debugActions(true)
+                : task.getCustomActions();
+
+        if (isCompileFastPathEnabled(task)) {
+            sourceChangeTracker.ensureWatching();
+            result = recordSuccessActions(result, commandKey(profileDef, command));
         }
-        return task != null ? task.getCustomActions() : null;
+        return result;
+    }
+
+    private static boolean isCompileFastPathEnabled(CommandWithActions task) {
+        return task.isSkipCompileIfUnchanged() && GlobalConfig.skipUnchangedCompile().getValue();
+    }
+
+    private static Object commandKey(ProfileDef profileDef, String command) {
+        // Different profiles might compile the sources differently.
+        return Arrays.<Object>asList(profileDef, command);
+    }
+
+    private static List<String> skipCompileArguments() {
+        // Only the tasks of this project are excluded, so the
+        // projects we depend on are still built if needed.
+        return Arrays.asList(
+                "-x", projectTask("compileJava"),
+                "-x", projectTask("processResources"));
+    }
+
+    private CustomCommandActions recordSuccessActions(CustomCommandActions actions, final Object commandKey) {
+        // None of the commands allowing to skip compilation needs a custom
+        // ContextAwareCommandAction, so we do not have to forward it.
+        assert actions.getContextAwareAction() == null;
+        assert actions.getContextAwareArguments() == null;
+
+        CustomCommandActions.Builder result = new CustomCommandActions.Builder(actions.getTaskKind());
+        result.setCommandCompleteListener(actions.getCommandCompleteListener());
+        result.setStdOutProcessor(actions.getStdOutProcessor());
+        result.setStdErrProcessor(actions.getStdErrProcessor());
+        result.setContextAwareArguments(new ContextAwareCommandArguments() {
+            @Override
+            public List<String> getCommandArguments(Project project, Lookup commandContext) {
+                return sourceChangeTracker.isUnchangedSinceLastSuccess(commandKey)
+                        ? skipCompileArguments()
+                        : Collections.<String>emptyList();
+            }
+        });
+        result.setContextAwareAction(new ContextAwareCommandAction() {
+            @Override
+            public ContextAwareCommandFinalizer startCommand(Project project, Lookup commandContext) {
+                // The state must be retrieved before the build starts because
+                // files changed during the build might not have been compiled.
+                final long startState = sourceChangeTracker.getCurrentState();
+                return new ContextAwareCommandFinalizer() {
+                    @Override
+                    public void finalizeSuccessfulCommand(OutputWriter output, OutputWriter errOutput) {
+                        sourceChangeTracker.recordSuccess(commandKey, startState);
+                    }
+                };
+            }
+        });
+        return result.create();
     }
 
     private CustomCommandActions debugActions(boolean test) {
@@ -189,12 +270,23 @@ public final class GradleJavaBuiltInCommands implements BuiltInGradleCommandQuer
             CustomCommandActions customActions,
             boolean skipTestsIfNeeded) {
 
+        return blockingCommand(taskNames, arguments, jvmArguments, customActions, skipTestsIfNeeded, false);
+    }
+
+    private static CommandWithActions blockingCommand(
+            List<String> taskNames,
+            List<String> arguments,
+            List<String> jvmArguments,
+            CustomCommandActions customActions,
+            boolean skipTestsIfNeeded,
+            boolean skipCompileIfUnchanged) {
+
         GradleCommandTemplate.Builder commandBuilder = new GradleCommandTemplate.Builder(taskNames);
         commandBuilder.setArguments(arguments);
         commandBuilder.setJvmArguments(jvmArguments);
         commandBuilder.setBlocking(true);
 
-        return new CommandWithActions(commandBuilder.create(), customActions, skipTestsIfNeeded);
+        return new CommandWithActions(commandBuilder.create(), customActions, skipTestsIfNeeded, skipCompileIfUnchanged);
     }
 
     private static CommandWithActions nonBlockingCommand(
@@ -217,21 +309,28 @@ public final class GradleJavaBuiltInCommands implements BuiltInGradleCommandQuer
         commandBuilder.setJvmArguments(jvmArguments);
         commandBuilder.setBlocking(false);
 
-        return new CommandWithActions(commandBuilder.create(), customActions, skipTestsIfNeeded);
+        return new CommandWithActions(commandBuilder.create(), customActions, skipTestsIfNeeded, false);
     }
 
     private static final class CommandWithActions {
         private final GradleCommandTemplate command;
         private final CustomCommandActions customActions;
         private final boolean skipTestsIfNeeded;
+        private final boolean skipCompileIfUnchanged;
 
         public CommandWithActions(
                 GradleCommandTemplate command,
                 CustomCommandActions customActions,
-                boolean skipTestIfNeeded) {
+                boolean skipTestIfNeeded,
+                boolean skipCompileIfUnchanged) {
             this.command = command;
             this.customActions = customActions;
             this.skipTestsIfNeeded = skipTestIfNeeded;
+            this.skipCompileIfUnchanged = skipCompileIfUnchanged;
+        }
+
+        public boolean isSkipCompileIfUnchanged() {
+            return skipCompileIfUnchanged;
         }
 
         public GradleCommandTemplate getCommand() {
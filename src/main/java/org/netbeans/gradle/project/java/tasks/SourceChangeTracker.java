@@ -0,0 +1,357 @@
+package org.netbeans.gradle.project.java.tasks;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.netbeans.gradle.project.GradleProjectConstants;
+import org.netbeans.gradle.project.java.JavaExtension;
+import org.netbeans.gradle.project.java.model.NbDependencyType;
+import org.netbeans.gradle.project.java.model.NbJavaModelUtils;
+import org.netbeans.gradle.project.java.model.NbJavaModule;
+import org.netbeans.gradle.project.java.model.NbSourceGroup;
+import org.netbeans.gradle.project.java.model.NbSourceType;
+import org.netbeans.gradle.project.model.NbGradleModel;
+import org.openide.filesystems.FileAttributeEvent;
+import org.openide.filesystems.FileChangeListener;
+import org.openide.filesystems.FileEvent;
+import org.openide.filesystems.FileRenameEvent;
+import org.openide.filesystems.FileUtil;
+
+/**
+ * Keeps track of the changes affecting the compilation of the (non-test)
+ * sources of a project, so that it can be determined if a command would need
+ * to compile the sources again since its last successful execution.
+ * <P>
+ * The following changes are tracked:
+ * <ul>
+ *  <li>The (non-test) source roots of the project.</li>
+ *  <li>
+ *   The (non-test) source roots of the projects this project depends on,
+ *   because this project must be compiled against their new API.
+ *  </li>
+ *  <li>
+ *   The build scripts (and gradle.properties) of these projects and of the
+ *   root project, because they might change how the sources are compiled.
+ *  </li>
+ * </ul>
+ * Every change of these files (and every model reload) increments a counter
+ * and the value of this counter is recorded when a command completes
+ * successfully. The sources are considered to be unchanged if the counter has
+ * not been incremented since. Also, the compiled classes must not have been
+ * changed (or removed) since, which is verified by comparing a fingerprint
+ * (the number of files and the last modification time) of the classes
+ * directory.
+ * <P>
+ * The files are only listened to after the first call to
+ * {@link #ensureWatching()} because recursive listeners are not cheap for large
+ * source trees.
+ */
+final class SourceChangeTracker {
+    private static final Logger LOGGER = Logger.getLogger(SourceChangeTracker.class.getName());
+
+    private final JavaExtension javaExt;
+    private final AtomicLong changeCount;
+    private final ConcurrentMap<Object, SuccessState> lastSuccessfulStates;
+
+    private final FileChangeListener changeListener;
+    private final FileChangeListener weakChangeListener;
+
+    private final Lock watchLock;
+    private boolean watching;
+    private Set<File> watchedRoots;
+    private Set<File> watchedFiles;
+
+    public SourceChangeTracker(JavaExtension javaExt) {
+        if (javaExt == null) throw new NullPointerException("javaExt");
+
+        this.javaExt = javaExt;
+        this.changeCount = new AtomicLong(0);
+        this.lastSuccessfulStates = new ConcurrentHashMap<Object, SuccessState>();
+        this.changeListener = new SourceChangeListener();
+        // The listener must not keep the project alive after it was closed.
+        this.weakChangeListener = FileUtil.weakFileChangeListener(changeListener, null);
+        this.watchLock = new ReentrantLock();
+        this.watching = false;
+        this.watchedRoots = Collections.emptySet();
+        this.watchedFiles = Collections.emptySet();
+    }
+
+    private NbJavaModule getMainModule() {
+        return javaExt.getCurrentModel().getMainModule();
+    }
+
+    private List<NbJavaModule> getModulesToWatch() {
+        NbJavaModule mainModule = getMainModule();
+
+        List<NbJavaModule> result = new LinkedList<NbJavaModule>();
+        result.add(mainModule);
+        result.addAll(NbJavaModelUtils.getAllModuleDependencies(mainModule, NbDependencyType.RUNTIME));
+        return result;
+    }
+
+    private static Set<File> getRootsToWatch(List<NbJavaModule> modules) {
+        Set<File> result = new LinkedHashSet<File>();
+        for (NbJavaModule module: modules) {
+            for (Map.Entry<NbSourceType, NbSourceGroup> entry: module.getSources().entrySet()) {
+                if (!entry.getKey().isTest()) {
+                    result.addAll(entry.getValue().getFiles());
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void addBuildScripts(File projectDir, Set<File> result) {
+        result.add(new File(projectDir, GradleProjectConstants.BUILD_FILE_NAME));
+        result.add(new File(projectDir, projectDir.getName() + GradleProjectConstants.DEFAULT_GRADLE_EXTENSION));
+        result.add(new File(projectDir, GradleProjectConstants.GRADLE_PROPERTIES_NAME));
+    }
+
+    private static Set<File> getFilesToWatch(List<NbJavaModule> modules) {
+        Set<File> result = new LinkedHashSet<File>();
+        for (NbJavaModule module: modules) {
+            File moduleDir = module.getModuleDir();
+            addBuildScripts(moduleDir, result);
+
+            File settingsFile = NbGradleModel.findSettingsGradle(moduleDir);
+            if (settingsFile != null) {
+                result.add(settingsFile);
+                addBuildScripts(settingsFile.getParentFile(), result);
+            }
+        }
+        return result;
+    }
+
+    private void onChange() {
+        changeCount.incrementAndGet();
+    }
+
+    private void updateWatchedRootsUnlocked() {
+        List<NbJavaModule> modules = getModulesToWatch();
+        Set<File> newRoots = getRootsToWatch(modules);
+        Set<File> newFiles = getFilesToWatch(modules);
+
+        for (File root: watchedRoots) {
+            FileUtil.removeRecursiveListener(weakChangeListener, root);
+        }
+        for (File file: watchedFiles) {
+            FileUtil.removeFileChangeListener(weakChangeListener, file);
+        }
+
+        for (File root: newRoots) {
+            try {
+                FileUtil.addRecursiveListener(weakChangeListener, root);
+            } catch (IllegalArgumentException ex) {
+                LOGGER.log(Level.INFO, "Cannot listen for changes in " + root, ex);
+            }
+        }
+        for (File file: newFiles) {
+            try {
+                FileUtil.addFileChangeListener(weakChangeListener, file);
+            } catch (IllegalArgumentException ex) {
+                LOGGER.log(Level.INFO, "Cannot listen for changes of " + file, ex);
+            }
+        }
+
+        watchedRoots = newRoots;
+        watchedFiles = newFiles;
+    }
+
+    /**
+     * Starts listening for changes in the source roots if this tracker is
+     * not already listening for them.
+     */
+    public void ensureWatching() {
+        watchLock.lock();
+        try {
+            if (!watching) {
+                updateWatchedRootsUnlocked();
+                watching = true;
+            }
+        } finally {
+            watchLock.unlock();
+        }
+    }
+
+    /**
+     * Needs to be called after the model of the project has been changed.
+     * The source roots might have changed and the changes in the build script
+     * may affect compilation as well, so every previously recorded execution
+     * is forgotten.
+     */
+    public void onModelChange() {
+        watchLock.lock();
+        try {
+            if (watching) {
+                updateWatchedRootsUnlocked();
+            }
+        } finally {
+            watchLock.unlock();
+        }
+
+        lastSuccessfulStates.clear();
+        onChange();
+    }
+
+    public long getCurrentState() {
+        return changeCount.get();
+    }
+
+    /**
+     * Records that the given command completed successfully and that it
+     * was started when the {@link #getCurrentState() state} of this tracker
+     * was the given value. This method must be called after the compiled
+     * classes have been updated by the command.
+     */
+    public void recordSuccess(Object commandKey, long state) {
+        if (commandKey == null) throw new NullPointerException("commandKey");
+
+        OutputFingerprint output = OutputFingerprint.of(getClassesDir());
+        if (output != null) {
+            lastSuccessfulStates.put(commandKey, new SuccessState(state, output));
+        }
+        else {
+            lastSuccessfulStates.remove(commandKey);
+        }
+    }
+
+    private File getClassesDir() {
+        return getMainModule().getProperties().getOutput().getBuildDir();
+    }
+
+    private boolean isWatching() {
+        watchLock.lock();
+        try {
+            return watching;
+        } finally {
+            watchLock.unlock();
+        }
+    }
+
+    /**
+     * Returns {@code true} if the given command has completed successfully
+     * and the sources did not change since then. The compiled classes must
+     * also be the same as after the successful command because they might
+     * have been removed (partially or completely) by someone else.
+     * <P>
+     * Note that this method lists the whole classes directory of the project.
+     */
+    public boolean isUnchangedSinceLastSuccess(Object commandKey) {
+        if (commandKey == null) throw new NullPointerException("commandKey");
+
+        if (!isWatching()) {
+            return false;
+        }
+
+        SuccessState lastState = lastSuccessfulStates.get(commandKey);
+        if (lastState == null || lastState.changeCount != changeCount.get()) {
+            return false;
+        }
+
+        return lastState.output.equals(OutputFingerprint.of(getClassesDir()));
+    }
+
+    private static final class SuccessState {
+        public final long changeCount;
+        public final OutputFingerprint output;
+
+        public SuccessState(long changeCount, OutputFingerprint output) {
+            this.changeCount = changeCount;
+            this.output = output;
+        }
+    }
+
+    private static final class OutputFingerprint {
+        private int fileCount;
+        private long lastModified;
+
+        private OutputFingerprint() {
+            this.fileCount = 0;
+            this.lastModified = 0;
+        }
+
+        /**
+         * Returns the fingerprint of the given directory or {@code null} if
+         * the directory does not exist or contains no files.
+         */
+        public static OutputFingerprint of(File dir) {
+            OutputFingerprint result = new OutputFingerprint();
+            result.addDir(dir);
+            return result.fileCount > 0 ? result : null;
+        }
+
+        private void addDir(File dir) {
+            File[] files = dir.listFiles();
+            if (files == null) {
+                return;
+            }
+
+            for (File file: files) {
+                if (file.isDirectory()) {
+                    addDir(file);
+                }
+                else {
+                    fileCount++;
+                    lastModified = Math.max(lastModified, file.lastModified());
+                }
+            }
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * fileCount + (int)(lastModified ^ (lastModified >>> 32));
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == null) return false;
+            if (getClass() != obj.getClass()) return false;
+
+            final OutputFingerprint other = (OutputFingerprint)obj;
+            return this.fileCount == other.fileCount
+                    && this.lastModified == other.lastModified;
+        }
+    }
+
+    private class SourceChangeListener implements FileChangeListener {
+        @Override
+        public void fileFolderCreated(FileEvent fe) {
+            onChange();
+        }
+
+        @Override
+        public void fileDataCreated(FileEvent fe) {
+            onChange();
+        }
+
+        @Override
+        public void fileChanged(FileEvent fe) {
+            onChange();
+        }
+
+        @Override
+        public void fileDeleted(FileEvent fe) {
+            onChange();
+        }
+
+        @Override
+        public void fileRenamed(FileRenameEvent fe) {
+            onChange();
+        }
+
+        @Override
+        public void fileAttributeChanged(FileAttributeEvent fe) {
+        }
+    }
+}
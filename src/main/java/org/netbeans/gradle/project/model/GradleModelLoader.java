@@ -42,6 +42,7 @@ import org.netbeans.gradle.project.properties.GlobalGradleSettings;
 import org.netbeans.gradle.project.properties.GradleLocation;
 import org.netbeans.gradle.project.properties.ProjectProperties;
 import org.netbeans.gradle.project.tasks.DaemonTask;
+import org.netbeans.gradle.project.tasks.GradleDaemonWarmUp;
 import org.netbeans.gradle.project.tasks.GradleDaemonManager;
 import org.netbeans.gradle.project.tasks.GradleTasks;
 import org.openide.filesystems.FileObject;
@@ -162,6 +163,8 @@ public final class GradleModelLoader {
                     }
                     if (model == null || model.hasUnloadedExtensions(project)) {
                         model = loadModelWithProgress(project, progress, model);
+                        // Loading the model started the daemon.
+                        GradleDaemonWarmUp.daemonStarted(project);
                     }
                 } catch (IOException ex) {
                     error = ex;
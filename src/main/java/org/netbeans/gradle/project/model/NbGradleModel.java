@@ -187,11 +187,7 @@ public final class NbGradleModel {
     }
 
     public static File findSettingsGradle(File projectDir) {
-        FileObject projectDirObj = FileUtil.toFileObject(projectDir);
-        FileObject resultObj = findSettingsGradle(projectDirObj);
-        return resultObj != null
-                ? FileUtil.toFile(resultObj)
-                : null;
+        return SettingsGradleCache.findSettingsGradle(projectDir);
     }
 
     public static FileObject findSettingsGradle(FileObject projectDir) {
@@ -199,6 +195,14 @@ public final class NbGradleModel {
             return null;
         }
 
+        File projectDirFile = FileUtil.toFile(projectDir);
+        if (projectDirFile != null) {
+            File result = SettingsGradleCache.findSettingsGradle(projectDirFile);
+            return result != null
+                    ? FileUtil.toFileObject(result)
+                    : null;
+        }
+
         FileObject settingsGradle = projectDir.getFileObject(GradleProjectConstants.SETTINGS_FILE_NAME);
         if (settingsGradle != null && !settingsGradle.isVirtual()) {
             return settingsGradle;
@@ -0,0 +1,232 @@
+package org.netbeans.gradle.project.model;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.netbeans.gradle.project.GradleProjectConstants;
+import org.openide.filesystems.FileChangeAdapter;
+import org.openide.filesystems.FileChangeListener;
+import org.openide.filesystems.FileEvent;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileRenameEvent;
+import org.openide.filesystems.FileUtil;
+
+/**
+ * Caches the settings.gradle file used by directories. Finding the settings
+ * file requires checking every parent directory of a project directory, so
+ * the result is cached for every directory checked (they all use the same
+ * settings.gradle file).
+ * <P>
+ * Every location where a settings.gradle file was looked for is watched, and
+ * the whole cache is cleared if a settings.gradle file is created, deleted or
+ * renamed in any of these locations. Only a limited number of the most
+ * recently used locations are watched: If a location is no longer
+ * watched, the cached results of the directories within the directory of that
+ * location are removed because only those might rely on that location.
+ */
+final class SettingsGradleCache {
+    private static final Logger LOGGER = Logger.getLogger(SettingsGradleCache.class.getName());
+
+    private static final int MAX_CACHE_SIZE = 1024;
+    private static final int MAX_WATCHED_FILES = 1024;
+
+    private static final Lock CACHE_LOCK = new ReentrantLock();
+    private static final Map<File, File> CACHE = new LinkedHashMap<File, File>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<File, File> eldest) {
+            return size() > MAX_CACHE_SIZE;
+        }
+    };
+    private static long cacheGeneration = 0;
+
+    private static final Lock WATCH_LOCK = new ReentrantLock();
+    private static final Map<File, Boolean> WATCHED_FILES = new LinkedHashMap<File, Boolean>(16, 0.75f, true);
+    private static final FileChangeListener SETTINGS_CHANGE_LISTENER = new SettingsChangeListener();
+
+    /**
+     * Returns the settings.gradle file used by the given directory or
+     * {@code null} if there is no such file.
+     */
+    public static File findSettingsGradle(File projectDir) {
+        if (projectDir == null) throw new NullPointerException("projectDir");
+
+        File normProjectDir = FileUtil.normalizeFile(projectDir);
+
+        long generation;
+        CACHE_LOCK.lock();
+        try {
+            if (CACHE.containsKey(normProjectDir)) {
+                return CACHE.get(normProjectDir);
+            }
+            generation = cacheGeneration;
+        } finally {
+            CACHE_LOCK.unlock();
+        }
+
+        // Non-existent directories are not added to this list, so their
+        // result is not cached because we do not watch the files in them.
+        List<File> visitedDirs = new ArrayList<File>();
+
+        FileObject projectDirObj = FileUtil.toFileObject(normProjectDir);
+        FileObject resultObj = findSettingsGradleUncached(projectDirObj, visitedDirs);
+        File result = resultObj != null
+                ? FileUtil.toFile(resultObj)
+                : null;
+
+        if (!visitedDirs.isEmpty()) {
+            CACHE_LOCK.lock();
+            try {
+                // The cache might have been cleared while we were looking
+                // for the settings file, so the result might be outdated.
+                if (generation == cacheGeneration) {
+                    for (File visitedDir: visitedDirs) {
+                        CACHE.put(visitedDir, result);
+                    }
+                }
+            } finally {
+                CACHE_LOCK.unlock();
+            }
+        }
+        return result;
+    }
+
+    private static FileObject findSettingsGradleUncached(FileObject projectDir, List<File> visitedDirs) {
+        FileObject dir = projectDir;
+        while (dir != null) {
+            File dirFile = watchSettingsFile(dir);
+            if (dirFile != null) {
+                visitedDirs.add(dirFile);
+            }
+
+            FileObject settingsGradle = dir.getFileObject(GradleProjectConstants.SETTINGS_FILE_NAME);
+            if (settingsGradle != null && !settingsGradle.isVirtual()) {
+                return settingsGradle;
+            }
+            dir = dir.getParent();
+        }
+        return null;
+    }
+
+    /**
+     * Starts watching the settings.gradle file in the given directory and
+     * returns the directory as a {@code File} or {@code null} if it cannot
+     * be watched.
+     */
+    private static File watchSettingsFile(FileObject dir) {
+        File dirFile = FileUtil.toFile(dir);
+        if (dirFile == null) {
+            return null;
+        }
+
+        File settingsFile = new File(dirFile, GradleProjectConstants.SETTINGS_FILE_NAME);
+
+        File unwatchedFile = null;
+
+        // The lock is held while adding the listener, so that a file is only
+        // considered to be watched after the listener has been registered.
+        // Note: The CACHE_LOCK must not be held while acquiring this lock.
+        WATCH_LOCK.lock();
+        try {
+            if (WATCHED_FILES.get(settingsFile) != null) {
+                return dirFile;
+            }
+
+            try {
+                FileUtil.addFileChangeListener(SETTINGS_CHANGE_LISTENER, settingsFile);
+            } catch (IllegalArgumentException ex) {
+                LOGGER.log(Level.INFO, "Failed to watch settings file: " + settingsFile, ex);
+                return null;
+            }
+            WATCHED_FILES.put(settingsFile, Boolean.TRUE);
+
+            if (WATCHED_FILES.size() > MAX_WATCHED_FILES) {
+                Iterator<File> watchedItr = WATCHED_FILES.keySet().iterator();
+                unwatchedFile = watchedItr.next();
+                watchedItr.remove();
+
+                FileUtil.removeFileChangeListener(SETTINGS_CHANGE_LISTENER, unwatchedFile);
+            }
+        } finally {
+            WATCH_LOCK.unlock();
+        }
+
+        if (unwatchedFile != null) {
+            removeDependentEntries(unwatchedFile.getParentFile());
+        }
+        return dirFile;
+    }
+
+    /**
+     * Removes the cached results of the given directory and of the
+     * directories within it: Only these directories look for the
+     * settings.gradle file in the given directory.
+     */
+    private static void removeDependentEntries(File dir) {
+        String dirPath = dir.getPath();
+        String prefix = dirPath.endsWith(File.separator)
+                ? dirPath
+                : dirPath + File.separator;
+
+        CACHE_LOCK.lock();
+        try {
+            // A result being looked up concurrently might rely on this
+            // location as well.
+            cacheGeneration++;
+
+            Iterator<File> keyItr = CACHE.keySet().iterator();
+            while (keyItr.hasNext()) {
+                File key = keyItr.next();
+                if (key.equals(dir) || key.getPath().startsWith(prefix)) {
+                    keyItr.remove();
+                }
+            }
+        } finally {
+            CACHE_LOCK.unlock();
+        }
+    }
+
+    public static void clearCache() {
+        CACHE_LOCK.lock();
+        try {
+            cacheGeneration++;
+            CACHE.clear();
+        } finally {
+            CACHE_LOCK.unlock();
+        }
+    }
+
+    private static final class SettingsChangeListener extends FileChangeAdapter {
+        @Override
+        public void fileDataCreated(FileEvent fe) {
+            clearCache();
+        }
+
+        @Override
+        public void fileFolderCreated(FileEvent fe) {
+            clearCache();
+        }
+
+        @Override
+        public void fileDeleted(FileEvent fe) {
+            clearCache();
+        }
+
+        @Override
+        public void fileRenamed(FileRenameEvent fe) {
+            clearCache();
+        }
+    }
+
+    private SettingsGradleCache() {
+        throw new AssertionError();
+    }
+}
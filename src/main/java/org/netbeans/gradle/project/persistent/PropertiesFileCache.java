@@ -0,0 +1,105 @@
+package org.netbeans.gradle.project.persistent;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.netbeans.gradle.project.properties.PropertiesSnapshot;
+
+/**
+ * Caches the parsed content of properties files. The same properties file is
+ * usually read by every subproject and profile relying on it (e.g.: the
+ * properties file of the root project), so this cache ensures that each file
+ * is only parsed once after it has been changed.
+ * <P>
+ * A cached snapshot is considered to be up-to-date as long as the last
+ * modification time and the size of the file is the same as it was when the
+ * file was read.
+ */
+final class PropertiesFileCache {
+    private static final int MAX_CACHE_SIZE = 256;
+
+    private static final Lock CACHE_LOCK = new ReentrantLock();
+    private static final Map<File, CachedSnapshot> CACHE
+            = new LinkedHashMap<File, CachedSnapshot>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<File, CachedSnapshot> eldest) {
+            return size() > MAX_CACHE_SIZE;
+        }
+    };
+
+    /**
+     * Returns the properties stored in the given file, parsing the file only
+     * if it has been changed since it was last read.
+     */
+    public static PropertiesSnapshot readFromXml(File propertiesFile) {
+        if (propertiesFile == null) throw new NullPointerException("propertiesFile");
+
+        File key = propertiesFile.getAbsoluteFile();
+
+        // Get the stamp before reading the file, so if the file is modified
+        // concurrently, we will not keep returning the old content.
+        long lastModified = key.lastModified();
+        long length = key.length();
+
+        CachedSnapshot cached;
+        CACHE_LOCK.lock();
+        try {
+            cached = CACHE.get(key);
+        } finally {
+            CACHE_LOCK.unlock();
+        }
+
+        if (cached != null && cached.isUpToDate(lastModified, length)) {
+            return cached.snapshot;
+        }
+
+        PropertiesSnapshot snapshot = StaxPropertyFormat.readFromXml(key);
+        CACHE_LOCK.lock();
+        try {
+            CACHE.put(key, new CachedSnapshot(snapshot, lastModified, length));
+        } finally {
+            CACHE_LOCK.unlock();
+        }
+        return snapshot;
+    }
+
+    /**
+     * Removes the cached content of the given file. This method must be
+     * called after the file was written, because the modification time of a
+     * file might not change if it is modified quickly.
+     */
+    public static void invalidate(File propertiesFile) {
+        if (propertiesFile == null) throw new NullPointerException("propertiesFile");
+
+        CACHE_LOCK.lock();
+        try {
+            CACHE.remove(propertiesFile.getAbsoluteFile());
+        } finally {
+            CACHE_LOCK.unlock();
+        }
+    }
+
+    private static final class CachedSnapshot {
+        public final PropertiesSnapshot snapshot;
+        private final long lastModified;
+        private final long length;
+
+        public CachedSnapshot(PropertiesSnapshot snapshot, long lastModified, long length) {
+            this.snapshot = snapshot;
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+
+        public boolean isUpToDate(long currentLastModified, long currentLength) {
+            return lastModified == currentLastModified && length == currentLength;
+        }
+    }
+
+    private PropertiesFileCache() {
+        throw new AssertionError();
+    }
+}
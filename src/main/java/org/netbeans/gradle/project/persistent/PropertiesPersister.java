@@ -10,5 +10,10 @@ public interface PropertiesPersister {
             = new RequestProcessor("Gradle-properties-persister", 1, true);
 
     public void save(NbGradleProject project, ProjectProperties properties, Runnable onDone);
+
+    // This method may be called from any thread and returns only after the
+    // properties have been saved.
+    public void saveNow(NbGradleProject project, ProjectProperties properties);
+
     public void load(ProjectProperties properties, boolean usedConcurrently, Runnable onDone);
 }
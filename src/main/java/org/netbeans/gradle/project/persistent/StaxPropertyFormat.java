@@ -0,0 +1,1232 @@
+package org.netbeans.gradle.project.persistent;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.event.ChangeListener;
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import org.netbeans.api.java.platform.JavaPlatform;
+import org.netbeans.gradle.project.NbGradleProject;
+import org.netbeans.gradle.project.api.entry.ProjectPlatform;
+import org.netbeans.gradle.project.others.ChangeLFPlugin;
+import org.netbeans.gradle.project.properties.AbstractProjectProperties;
+import org.netbeans.gradle.project.properties.AuxConfigSource;
+import org.netbeans.gradle.project.properties.ConstPropertySource;
+import org.netbeans.gradle.project.properties.DefaultPropertySources;
+import org.netbeans.gradle.project.properties.GradleLocation;
+import org.netbeans.gradle.project.properties.LicenseHeaderInfo;
+import org.netbeans.gradle.project.properties.PredefinedTask;
+import org.netbeans.gradle.project.properties.ProjectPlatformSource;
+import org.netbeans.gradle.project.properties.PropertiesSnapshot;
+import org.netbeans.gradle.project.properties.PropertySource;
+import org.w3c.dom.Attr;
+import org.w3c.dom.CDATASection;
+import org.w3c.dom.Comment;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.w3c.dom.ProcessingInstruction;
+import org.w3c.dom.Text;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+ * Reads and writes the same format as {@link XmlPropertyFormat} but without
+ * building a DOM of the whole file. The elements in the auxiliary
+ * configuration are not interpreted by this class: They are kept as raw XML
+ * fragments and are only parsed into a DOM element when somebody actually
+ * requests their value. If such a fragment is saved again unchanged, it is
+ * written back as is.
+ */
+final class StaxPropertyFormat {
+    private static final Logger LOGGER = Logger.getLogger(StaxPropertyFormat.class.getName());
+    private static final String XML_ENCODING = "UTF-8";
+    private static final String XML_VERSION = "1.0";
+    private static final String INDENT = "  ";
+
+    private static final String ROOT_NODE = "gradle-project-properties";
+    private static final String SOURCE_ENCODING_NODE = "source-encoding";
+    private static final String PLATFORM_NAME_NODE = "target-platform-name";
+    private static final String PLATFORM_NODE = "target-platform";
+    private static final String SOURCE_LEVEL_NODE = "source-level";
+    private static final String COMMON_TASKS_NODE = "common-tasks";
+    private static final String SCRIPT_PLATFORM_NODE = "script-platform";
+    private static final String GENERIC_PLATFORM_NAME_NODE = "spec-name";
+    private static final String GENERIC_PLATFORM_VERSION_NODE = "spec-version";
+    private static final String GRADLE_HOME_NODE = "gradle-home";
+    private static final String BUILT_IN_TASKS_NODE = "built-in-tasks";
+    private static final String TASK_DISPLAY_NAME_NODE = "display-name";
+    private static final String TASK_NON_BLOCKING_NODE = "non-blocking";
+    private static final String TASK_NODE = "task";
+    private static final String TASK_NAME_LIST_NODE = "task-names";
+    private static final String TASK_NAME_NODE = "name";
+    private static final String TASK_MUST_EXIST_ATTR = "must-exist";
+    private static final String TASK_ARGS_NODE = "task-args";
+    private static final String TASK_JVM_ARGS_NODE = "task-jvm-args";
+    private static final String ARG_NODE = "arg";
+    private static final String AUXILIARY_NODE = "auxiliary";
+    private static final String LICENSE_HEADER_NODE = "license-header";
+    private static final String LICENSE_NAME_NODE = "name";
+    private static final String LICENSE_FILE_NODE = "template";
+    private static final String LICENSE_PROPERTY_NODE = "property";
+    private static final String LICENSE_PROPERTY_NAME_ATTR = "name";
+
+    private static final String VALUE_YES = "yes";
+    private static final String VALUE_NO = "no";
+
+    private static final String DEFAULT_SPECIFICATION_NAME = "j2se";
+
+    private static final String SAVE_FILE_NAME_SEPARATOR = "/";
+
+    private static final XMLInputFactory INPUT_FACTORY = XMLInputFactory.newInstance();
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+    public static void saveToXml(NbGradleProject project, File propertyfile, PropertiesSnapshot snapshot) {
+        if (propertyfile == null) throw new NullPointerException("propertyfile");
+        if (snapshot == null) throw new NullPointerException("snapshot");
+
+        byte[] content = toXmlBytes(project, snapshot);
+        if (content == null) {
+            return;
+        }
+
+        try {
+            writeToFile(propertyfile, content);
+        } catch (IOException ex) {
+            LOGGER.log(Level.INFO, "Failed to save the properties.", ex);
+        }
+    }
+
+    /**
+     * Returns the content of the properties file to be saved for the given
+     * snapshot or {@code null} if the properties cannot be serialized.
+     */
+    public static byte[] toXmlBytes(NbGradleProject project, PropertiesSnapshot snapshot) {
+        if (snapshot == null) throw new NullPointerException("snapshot");
+
+        String lineSeparator = ChangeLFPlugin.getPreferredLineSeparator(project);
+        if (lineSeparator == null) {
+            lineSeparator = System.getProperty("line.separator");
+        }
+
+        try {
+            ByteArrayOutputStream output = new ByteArrayOutputStream(4 * 1024);
+            writeXml(snapshot, lineSeparator, output);
+            return output.toByteArray();
+        } catch (IOException ex) {
+            LOGGER.log(Level.INFO, "Failed to save the properties.", ex);
+        } catch (XMLStreamException ex) {
+            LOGGER.log(Level.INFO, "Failed to save the properties.", ex);
+        }
+        return null;
+    }
+
+    /**
+     * Replaces the content of the given file. The content is first written
+     * to a temporary file in the same directory which is then renamed, so
+     * readers of the file do not see a partially written file.
+     * <P>
+     * Note that the replace is only atomic on platforms where a file can be
+     * renamed over an existing file (not on Windows). Otherwise the previous
+     * file is deleted before renaming the temporary file, so for a short
+     * time there is no file at all (and the file is lost if the process dies
+     * at that moment).
+     * <P>
+     * The name of the temporary file starts with a dot and ends with a tilde,
+     * so that it matches the ignored files pattern of NetBeans (and the
+     * default ignore list of most version control systems).
+     */
+    public static void writeToFile(File propertyfile, byte[] content) throws IOException {
+        if (propertyfile == null) throw new NullPointerException("propertyfile");
+        if (content == null) throw new NullPointerException("content");
+
+        File dir = propertyfile.getAbsoluteFile().getParentFile();
+        if (!dir.mkdirs()) {
+            if (!dir.isDirectory()) {
+                LOGGER.log(Level.WARNING, "Cannot create directory: {0}", dir);
+            }
+        }
+
+        File tempFile = File.createTempFile("." + propertyfile.getName() + ".", ".tmp~", dir);
+        try {
+            OutputStream output = new FileOutputStream(tempFile);
+            try {
+                output.write(content);
+            } finally {
+                output.close();
+            }
+
+            if (!tempFile.renameTo(propertyfile)) {
+                // Renaming fails on some platforms (e.g.: Windows) if the file
+                // exists, in this case the replace is not atomic.
+                if (propertyfile.exists() && !propertyfile.delete()) {
+                    throw new IOException("Failed to remove the previous file: " + propertyfile);
+                }
+                if (!tempFile.renameTo(propertyfile)) {
+                    throw new IOException("Failed to rename " + tempFile + " to " + propertyfile);
+                }
+            }
+        } finally {
+            if (tempFile.exists() && !tempFile.delete()) {
+                LOGGER.log(Level.WARNING, "Failed to remove temporary file: {0}", tempFile);
+            }
+        }
+    }
+
+    public static PropertiesSnapshot readFromXml(File propertiesFile) {
+        if (propertiesFile == null) throw new NullPointerException("propertiesFile");
+
+        if (!propertiesFile.exists()) {
+            return new PropertiesSnapshot.Builder().create();
+        }
+
+        try {
+            InputStream input = new BufferedInputStream(new FileInputStream(propertiesFile));
+            try {
+                return readXml(input);
+            } finally {
+                input.close();
+            }
+        } catch (XMLStreamException ex) {
+            LOGGER.log(Level.INFO, "Failed to parse the property file.", ex);
+        } catch (IOException ex) {
+            LOGGER.log(Level.INFO, "Failed to read the property file.", ex);
+        }
+        return new PropertiesSnapshot.Builder().create();
+    }
+
+    static void writeXml(
+            PropertiesSnapshot snapshot,
+            String lineSeparator,
+            OutputStream output) throws IOException, XMLStreamException {
+
+        Writer textOutput = new BufferedWriter(new OutputStreamWriter(output, XML_ENCODING));
+        XMLStreamWriter writer = OUTPUT_FACTORY.createXMLStreamWriter(textOutput);
+        XmlOutput xml = new XmlOutput(writer, textOutput, lineSeparator);
+
+        writer.writeStartDocument(XML_ENCODING, XML_VERSION);
+        xml.startElement(ROOT_NODE);
+        xml.comment("DO NOT EDIT THIS FILE!"
+                + " - Used by the Gradle plugin of NetBeans.");
+
+        if (!snapshot.getSourceEncoding().isDefault()) {
+            String sourceEncoding = snapshot.getSourceEncoding().getValue().name();
+            xml.simpleElement(SOURCE_ENCODING_NODE, sourceEncoding);
+        }
+
+        if (!snapshot.getPlatform().isDefault()) {
+            ProjectPlatform platform = snapshot.getPlatform().getValue();
+            xml.simpleElement(PLATFORM_NAME_NODE, platform.getName());
+            xml.simpleElement(PLATFORM_NODE, platform.getVersion());
+        }
+
+        if (!snapshot.getSourceLevel().isDefault()) {
+            String sourceLevel = snapshot.getSourceLevel().getValue();
+            xml.simpleElement(SOURCE_LEVEL_NODE, sourceLevel);
+        }
+
+        if (!snapshot.getCommonTasks().isDefault()) {
+            List<PredefinedTask> commonTasks = snapshot.getCommonTasks().getValue();
+            if (!commonTasks.isEmpty()) {
+                writeTasks(xml, COMMON_TASKS_NODE, commonTasks);
+            }
+        }
+
+        if (!snapshot.getScriptPlatform().isDefault()) {
+            JavaPlatform scriptPlatform = snapshot.getScriptPlatform().getValue();
+            writeGenericPlatform(xml, SCRIPT_PLATFORM_NODE, scriptPlatform);
+        }
+
+        if (!snapshot.getGradleHome().isDefault()) {
+            String gradleHome = AbstractProjectProperties.gradleLocationToString(snapshot.getGradleHome().getValue());
+            xml.simpleElement(GRADLE_HOME_NODE, gradleHome);
+        }
+
+        if (!snapshot.getLicenseHeader().isDefault()) {
+            LicenseHeaderInfo licenseHeader = snapshot.getLicenseHeader().getValue();
+            if (licenseHeader != null) {
+                writeLicenseHeader(xml, LICENSE_HEADER_NODE, licenseHeader);
+            }
+        }
+
+        writeBuiltInTasks(xml, snapshot);
+        writeAuxiliaryConfig(xml, snapshot);
+
+        xml.endElement();
+        writer.writeEndDocument();
+        xml.newLine();
+
+        writer.close();
+        textOutput.flush();
+    }
+
+    private static void writeArgs(XmlOutput xml, String nodeName, List<String> args) throws XMLStreamException {
+        if (args.isEmpty()) {
+            xml.emptyElement(nodeName);
+            return;
+        }
+
+        xml.startElement(nodeName);
+        for (String arg: args) {
+            xml.simpleElement(ARG_NODE, arg);
+        }
+        xml.endElement();
+    }
+
+    private static void writeSingleTask(XmlOutput xml, PredefinedTask task) throws XMLStreamException {
+        xml.startElement(TASK_NODE);
+
+        xml.simpleElement(TASK_DISPLAY_NAME_NODE, task.getDisplayName());
+        xml.simpleElement(TASK_NON_BLOCKING_NODE, task.isNonBlocking() ? VALUE_YES : VALUE_NO);
+
+        List<PredefinedTask.Name> names = task.getTaskNames();
+        if (names.isEmpty()) {
+            xml.emptyElement(TASK_NAME_LIST_NODE);
+        }
+        else {
+            xml.startElement(TASK_NAME_LIST_NODE);
+            for (PredefinedTask.Name name: names) {
+                xml.simpleElement(TASK_NAME_NODE,
+                        TASK_MUST_EXIST_ATTR, name.isMustExist() ? VALUE_YES : VALUE_NO,
+                        name.getName());
+            }
+            xml.endElement();
+        }
+
+        writeArgs(xml, TASK_ARGS_NODE, task.getArguments());
+        writeArgs(xml, TASK_JVM_ARGS_NODE, task.getJvmArguments());
+
+        xml.endElement();
+    }
+
+    private static void writeTasks(XmlOutput xml, String nodeName, List<PredefinedTask> tasks) throws XMLStreamException {
+        xml.startElement(nodeName);
+        for (PredefinedTask task: tasks) {
+            writeSingleTask(xml, task);
+        }
+        xml.endElement();
+    }
+
+    private static void writeBuiltInTasks(XmlOutput xml, PropertiesSnapshot snapshot) throws XMLStreamException {
+        Set<String> knownBuiltInCommands = snapshot.getKnownBuiltInCommands();
+        List<PredefinedTask> tasks = new ArrayList<PredefinedTask>(knownBuiltInCommands.size());
+        for (String command: knownBuiltInCommands) {
+            PropertySource<PredefinedTask> taskProperty = snapshot.tryGetBuiltInTask(command);
+            if (taskProperty != null && !taskProperty.isDefault()) {
+                PredefinedTask task = taskProperty.getValue();
+                if (task != null) {
+                    tasks.add(task);
+                }
+            }
+        }
+
+        if (!tasks.isEmpty()) {
+            // Sort them, so that they are saved in a deterministic order.
+            Collections.sort(tasks, new Comparator<PredefinedTask>() {
+                @Override
+                public int compare(PredefinedTask o1, PredefinedTask o2) {
+                    String displayName1 = o1.getDisplayName();
+                    String displayName2 = o2.getDisplayName();
+                    return displayName1.compareTo(displayName2);
+                }
+            });
+
+            writeTasks(xml, BUILT_IN_TASKS_NODE, tasks);
+        }
+    }
+
+    private static void writeGenericPlatform(XmlOutput xml, String nodeName, JavaPlatform platform) throws XMLStreamException {
+        xml.startElement(nodeName);
+        xml.simpleElement(GENERIC_PLATFORM_NAME_NODE, platform.getSpecification().getName());
+        xml.simpleElement(GENERIC_PLATFORM_VERSION_NODE, platform.getSpecification().getVersion().toString());
+        xml.endElement();
+    }
+
+    private static void writeLicenseHeader(XmlOutput xml, String nodeName, LicenseHeaderInfo licenseHeader) throws XMLStreamException {
+        xml.startElement(nodeName);
+        xml.simpleElement(LICENSE_NAME_NODE, licenseHeader.getLicenseName());
+
+        File templateFile = licenseHeader.getLicenseTemplateFile();
+        if (templateFile != null) {
+            String filePathStr = templateFile.getPath().replace(File.separator, SAVE_FILE_NAME_SEPARATOR);
+            xml.simpleElement(LICENSE_FILE_NODE, filePathStr);
+        }
+
+        // We sort them only to save them in a deterministic order, so the
+        // property file only changes if the properties really change.
+        TreeMap<String, String> sortedProperties = new TreeMap<String, String>(licenseHeader.getProperties());
+        for (Map.Entry<String, String> property: sortedProperties.entrySet()) {
+            xml.simpleElement(LICENSE_PROPERTY_NODE,
+                    LICENSE_PROPERTY_NAME_ATTR, property.getKey(),
+                    property.getValue());
+        }
+
+        xml.endElement();
+    }
+
+    private static void writeAuxiliaryConfig(XmlOutput xml, PropertiesSnapshot snapshot) throws XMLStreamException, IOException {
+        List<AuxConfigSource> configs = new ArrayList<AuxConfigSource>(snapshot.getAuxProperties());
+
+        // Sort them, so that they are saved in a deterministic order.
+        Collections.sort(configs, new Comparator<AuxConfigSource>() {
+            @Override
+            public int compare(AuxConfigSource o1, AuxConfigSource o2) {
+                return o1.getKey().compareTo(o2.getKey());
+            }
+        });
+
+        List<Object> auxValues = new ArrayList<Object>(configs.size());
+        for (AuxConfigSource config: configs) {
+            PropertySource<Element> source = config.getSource();
+            if (source instanceof XmlFragmentSource) {
+                auxValues.add(((XmlFragmentSource)source).getFragment());
+            }
+            else {
+                Element value = source.getValue();
+                if (value != null) {
+                    auxValues.add(value);
+                }
+            }
+        }
+
+        if (auxValues.isEmpty()) {
+            return;
+        }
+
+        xml.startElement(AUXILIARY_NODE);
+        for (Object auxValue: auxValues) {
+            if (auxValue instanceof Element) {
+                xml.domElement((Element)auxValue);
+            }
+            else {
+                xml.rawFragment((String)auxValue);
+            }
+        }
+        xml.endElement();
+    }
+
+    static PropertiesSnapshot readXml(InputStream input) throws XMLStreamException {
+        PropertiesSnapshot.Builder result = new PropertiesSnapshot.Builder();
+
+        XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(input);
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                    readRoot(reader, result);
+                    break;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        return result.create();
+    }
+
+    private static void readRoot(XMLStreamReader reader, PropertiesSnapshot.Builder result) throws XMLStreamException {
+        String sourceLevel = null;
+        String sourceEncodingStr = null;
+        String platformName = null;
+        String platformVersion = null;
+        String gradleHomeStr = null;
+        PropertySource<JavaPlatform> scriptPlatform = null;
+        PropertySource<LicenseHeaderInfo> licenseHeader = null;
+        List<PredefinedTask> commonTasks = null;
+        List<PredefinedTask> builtInTasks = null;
+        List<AuxConfigSource> auxConfigs = null;
+
+        // Only the first occurrence of an element is considered, just like
+        // XmlPropertyFormat does.
+        while (nextChildElement(reader)) {
+            String name = reader.getLocalName();
+            if (SOURCE_LEVEL_NODE.equals(name) && sourceLevel == null) {
+                sourceLevel = readTrimmedText(reader);
+            }
+            else if (SOURCE_ENCODING_NODE.equals(name) && sourceEncodingStr == null) {
+                sourceEncodingStr = readTrimmedText(reader);
+            }
+            else if (PLATFORM_NAME_NODE.equals(name) && platformName == null) {
+                platformName = readTrimmedText(reader);
+            }
+            else if (PLATFORM_NODE.equals(name) && platformVersion == null) {
+                platformVersion = readTrimmedText(reader);
+            }
+            else if (GRADLE_HOME_NODE.equals(name) && gradleHomeStr == null) {
+                gradleHomeStr = readTrimmedText(reader);
+            }
+            else if (SCRIPT_PLATFORM_NODE.equals(name) && scriptPlatform == null) {
+                scriptPlatform = readPlatform(reader);
+            }
+            else if (LICENSE_HEADER_NODE.equals(name) && licenseHeader == null) {
+                licenseHeader = readLicenseHeader(reader);
+            }
+            else if (COMMON_TASKS_NODE.equals(name) && commonTasks == null) {
+                commonTasks = readTasks(reader);
+            }
+            else if (BUILT_IN_TASKS_NODE.equals(name) && builtInTasks == null) {
+                builtInTasks = readTasks(reader);
+            }
+            else if (AUXILIARY_NODE.equals(name) && auxConfigs == null) {
+                auxConfigs = readAuxiliaryConfigs(reader);
+            }
+            else {
+                skipElement(reader);
+            }
+        }
+
+        if (sourceLevel != null) {
+            result.setSourceLevel(asConst(sourceLevel, false));
+        }
+
+        Charset sourceEncoding = sourceEncodingStr != null
+                ? parseCharset(sourceEncodingStr)
+                : null;
+        if (sourceEncoding != null) {
+            result.setSourceEncoding(asConst(sourceEncoding, false));
+        }
+
+        if (platformName == null) {
+            platformName = DEFAULT_SPECIFICATION_NAME;
+        }
+        if (platformVersion != null) {
+            result.setPlatform(new ProjectPlatformSource(platformName, platformVersion, false));
+        }
+
+        if (gradleHomeStr != null) {
+            GradleLocation gradleHome = AbstractProjectProperties.getGradleLocationFromString(gradleHomeStr);
+            result.setGradleHome(asConst(gradleHome, false));
+        }
+
+        if (scriptPlatform != null) {
+            result.setScriptPlatform(scriptPlatform);
+        }
+
+        if (licenseHeader != null) {
+            result.setLicenseHeader(licenseHeader);
+        }
+
+        if (commonTasks == null) {
+            commonTasks = Collections.emptyList();
+        }
+        commonTasks = Collections.unmodifiableList(commonTasks);
+        result.setCommonTasks(asConst(commonTasks, commonTasks.isEmpty()));
+
+        if (builtInTasks != null) {
+            for (PredefinedTask builtInTask: builtInTasks) {
+                String command = builtInTask.getDisplayName();
+                result.setBuiltInTask(command, asConst(builtInTask, false));
+            }
+        }
+
+        if (auxConfigs != null) {
+            for (AuxConfigSource auxConfig: auxConfigs) {
+                result.addAuxProperty(auxConfig);
+            }
+        }
+    }
+
+    private static <ValueType> PropertySource<ValueType> asConst(ValueType value, boolean defaultValue) {
+        return new ConstPropertySource<ValueType>(value, defaultValue);
+    }
+
+    private static Charset parseCharset(String name) {
+        try {
+            return Charset.forName(name);
+        } catch (IllegalCharsetNameException ex) {
+            LOGGER.log(Level.INFO, "The name of the character set is invalid: " + name, ex);
+        } catch (UnsupportedCharsetException ex) {
+            LOGGER.log(Level.INFO, "The character set is not supported: " + name, ex);
+        }
+
+        return null;
+    }
+
+    private static List<PredefinedTask> readTasks(XMLStreamReader reader) throws XMLStreamException {
+        List<PredefinedTask> result = new LinkedList<PredefinedTask>();
+        while (nextChildElement(reader)) {
+            if (TASK_NODE.equals(reader.getLocalName())) {
+                result.add(readTask(reader));
+            }
+            else {
+                skipElement(reader);
+            }
+        }
+        return result;
+    }
+
+    private static PredefinedTask readTask(XMLStreamReader reader) throws XMLStreamException {
+        String displayName = null;
+        String nonBlockingStr = null;
+        List<PredefinedTask.Name> names = null;
+        List<String> args = null;
+        List<String> jvmArgs = null;
+
+        while (nextChildElement(reader)) {
+            String name = reader.getLocalName();
+            if (TASK_DISPLAY_NAME_NODE.equals(name) && displayName == null) {
+                displayName = readTrimmedText(reader);
+            }
+            else if (TASK_NON_BLOCKING_NODE.equals(name) && nonBlockingStr == null) {
+                nonBlockingStr = readTrimmedText(reader);
+            }
+            else if (TASK_NAME_LIST_NODE.equals(name) && names == null) {
+                names = readTaskNames(reader);
+            }
+            else if (TASK_ARGS_NODE.equals(name) && args == null) {
+                args = readArgs(reader);
+            }
+            else if (TASK_JVM_ARGS_NODE.equals(name) && jvmArgs == null) {
+                jvmArgs = readArgs(reader);
+            }
+            else {
+                skipElement(reader);
+            }
+        }
+
+        if (displayName == null) {
+            displayName = "?";
+        }
+        boolean nonBlocking = VALUE_YES.equalsIgnoreCase(nonBlockingStr);
+        if (names == null) {
+            names = new LinkedList<PredefinedTask.Name>();
+        }
+        if (args == null) {
+            args = new LinkedList<String>();
+        }
+        if (jvmArgs == null) {
+            jvmArgs = new LinkedList<String>();
+        }
+
+        return new PredefinedTask(displayName, names, args, jvmArgs, nonBlocking);
+    }
+
+    private static List<PredefinedTask.Name> readTaskNames(XMLStreamReader reader) throws XMLStreamException {
+        List<PredefinedTask.Name> result = new LinkedList<PredefinedTask.Name>();
+        while (nextChildElement(reader)) {
+            if (TASK_NAME_NODE.equals(reader.getLocalName())) {
+                boolean mustExist = VALUE_YES.equalsIgnoreCase(reader.getAttributeValue(null, TASK_MUST_EXIST_ATTR));
+                String name = readTrimmedText(reader);
+                if (!name.isEmpty()) {
+                    result.add(new PredefinedTask.Name(name, mustExist));
+                }
+            }
+            else {
+                skipElement(reader);
+            }
+        }
+        return result;
+    }
+
+    private static List<String> readArgs(XMLStreamReader reader) throws XMLStreamException {
+        List<String> result = new LinkedList<String>();
+        while (nextChildElement(reader)) {
+            if (ARG_NODE.equals(reader.getLocalName())) {
+                String arg = readTrimmedText(reader);
+                if (!arg.isEmpty()) {
+                    result.add(arg);
+                }
+            }
+            else {
+                skipElement(reader);
+            }
+        }
+        return result;
+    }
+
+    private static PropertySource<JavaPlatform> readPlatform(XMLStreamReader reader) throws XMLStreamException {
+        String platformName = null;
+        String versionStr = null;
+
+        while (nextChildElement(reader)) {
+            String name = reader.getLocalName();
+            if (GENERIC_PLATFORM_NAME_NODE.equals(name) && platformName == null) {
+                platformName = readTrimmedText(reader);
+            }
+            else if (GENERIC_PLATFORM_VERSION_NODE.equals(name) && versionStr == null) {
+                versionStr = readTrimmedText(reader);
+            }
+            else {
+                skipElement(reader);
+            }
+        }
+
+        if (platformName == null) {
+            platformName = DEFAULT_SPECIFICATION_NAME;
+        }
+
+        if (versionStr != null) {
+            return DefaultPropertySources.findPlatformSource(platformName, versionStr, false);
+        }
+        return null;
+    }
+
+    private static PropertySource<LicenseHeaderInfo> readLicenseHeader(XMLStreamReader reader) throws XMLStreamException {
+        String name = null;
+        String templatePath = null;
+        Map<String, String> properties = new TreeMap<String, String>();
+
+        while (nextChildElement(reader)) {
+            String nodeName = reader.getLocalName();
+            if (LICENSE_NAME_NODE.equals(nodeName) && name == null) {
+                name = readTrimmedText(reader);
+            }
+            else if (LICENSE_FILE_NODE.equals(nodeName) && templatePath == null) {
+                templatePath = readTrimmedText(reader);
+            }
+            else if (LICENSE_PROPERTY_NODE.equals(nodeName)) {
+                String propertyName = reader.getAttributeValue(null, LICENSE_PROPERTY_NAME_ATTR);
+                String propertyValue = readTrimmedText(reader);
+                properties.put(propertyName != null ? propertyName.trim() : "", propertyValue);
+            }
+            else {
+                skipElement(reader);
+            }
+        }
+
+        if (name == null) {
+            return null;
+        }
+
+        File licenseTemplate = templatePath != null
+                ? new File(templatePath.replace(SAVE_FILE_NAME_SEPARATOR, File.separator))
+                : null;
+        return asConst(new LicenseHeaderInfo(name, properties, licenseTemplate), false);
+    }
+
+    private static List<AuxConfigSource> readAuxiliaryConfigs(XMLStreamReader reader) throws XMLStreamException {
+        List<AuxConfigSource> result = new LinkedList<AuxConfigSource>();
+        while (nextChildElement(reader)) {
+            // XmlPropertyFormat parses the file without namespace awareness,
+            // so the key is the qualified name without a namespace.
+            String prefix = reader.getPrefix();
+            String elementName = prefix != null && !prefix.isEmpty()
+                    ? prefix + ":" + reader.getLocalName()
+                    : reader.getLocalName();
+
+            StringWriter fragment = new StringWriter(256);
+            XMLStreamWriter fragmentWriter = OUTPUT_FACTORY.createXMLStreamWriter(fragment);
+            copyElement(reader, fragmentWriter);
+            fragmentWriter.close();
+
+            result.add(new AuxConfigSource(elementName, null, new XmlFragmentSource(fragment.toString())));
+        }
+        return result;
+    }
+
+    /**
+     * Moves the reader to the next child element of the current element. The
+     * reader must be positioned on the start tag of the parent element or on
+     * the end tag of a previous child element.
+     *
+     * @return {@code true} if the reader is positioned on the start tag of
+     *   the next child, {@code false} if the reader is positioned on the end
+     *   tag of the parent element
+     */
+    private static boolean nextChildElement(XMLStreamReader reader) throws XMLStreamException {
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                return true;
+            }
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            }
+            else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Returns the trimmed text content of the current element (including the
+     * text of its descendants) and moves the reader to its end tag.
+     */
+    private static String readTrimmedText(XMLStreamReader reader) throws XMLStreamException {
+        StringBuilder result = new StringBuilder();
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            switch (event) {
+                case XMLStreamConstants.START_ELEMENT:
+                    depth++;
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    depth--;
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    result.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    break;
+                default:
+                    break;
+            }
+        }
+        return result.toString().trim();
+    }
+
+    private static void copyElement(XMLStreamReader reader, XMLStreamWriter writer) throws XMLStreamException {
+        int depth = 0;
+        while (true) {
+            switch (reader.getEventType()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    copyStartElement(reader, writer);
+                    depth++;
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    writer.writeEndElement();
+                    depth--;
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.SPACE:
+                    writer.writeCharacters(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    break;
+                case XMLStreamConstants.CDATA:
+                    writer.writeCData(reader.getText());
+                    break;
+                case XMLStreamConstants.COMMENT:
+                    writer.writeComment(reader.getText());
+                    break;
+                case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                    String data = reader.getPIData();
+                    if (data != null) {
+                        writer.writeProcessingInstruction(reader.getPITarget(), data);
+                    }
+                    else {
+                        writer.writeProcessingInstruction(reader.getPITarget());
+                    }
+                    break;
+                default:
+                    break;
+            }
+
+            if (depth <= 0) {
+                return;
+            }
+            reader.next();
+        }
+    }
+
+    private static void copyStartElement(XMLStreamReader reader, XMLStreamWriter writer) throws XMLStreamException {
+        String prefix = reader.getPrefix();
+        if (prefix == null || prefix.isEmpty()) {
+            writer.writeStartElement(reader.getLocalName());
+        }
+        else {
+            writer.writeStartElement(prefix, reader.getLocalName(), reader.getNamespaceURI());
+        }
+
+        int namespaceCount = reader.getNamespaceCount();
+        for (int i = 0; i < namespaceCount; i++) {
+            String namespacePrefix = reader.getNamespacePrefix(i);
+            String namespaceUri = reader.getNamespaceURI(i);
+            if (namespaceUri == null) {
+                namespaceUri = "";
+            }
+
+            if (namespacePrefix == null || namespacePrefix.isEmpty()) {
+                writer.writeDefaultNamespace(namespaceUri);
+            }
+            else {
+                writer.writeNamespace(namespacePrefix, namespaceUri);
+            }
+        }
+
+        int attributeCount = reader.getAttributeCount();
+        for (int i = 0; i < attributeCount; i++) {
+            String attrPrefix = reader.getAttributePrefix(i);
+            if (attrPrefix == null || attrPrefix.isEmpty()) {
+                writer.writeAttribute(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+            }
+            else {
+                writer.writeAttribute(
+                        attrPrefix,
+                        reader.getAttributeNamespace(i),
+                        reader.getAttributeLocalName(i),
+                        reader.getAttributeValue(i));
+            }
+        }
+    }
+
+    private static Element parseFragment(String fragment) {
+        try {
+            DocumentBuilder builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+            return builder.parse(new InputSource(new StringReader(fragment))).getDocumentElement();
+        } catch (ParserConfigurationException ex) {
+            LOGGER.log(Level.SEVERE, "Failed to create XML builder.", ex);
+        } catch (SAXException ex) {
+            LOGGER.log(Level.INFO, "Failed to parse auxiliary configuration.", ex);
+        } catch (IOException ex) {
+            LOGGER.log(Level.INFO, "Failed to parse auxiliary configuration.", ex);
+        }
+        return null;
+    }
+
+    /**
+     * An element of the auxiliary configuration as it was read from the
+     * properties file. The fragment is only parsed into a DOM element if its
+     * value is requested.
+     */
+    private static final class XmlFragmentSource implements PropertySource<Element> {
+        private final String fragment;
+        private volatile Element parsed;
+
+        public XmlFragmentSource(String fragment) {
+            assert fragment != null;
+            this.fragment = fragment;
+            this.parsed = null;
+        }
+
+        public String getFragment() {
+            return fragment;
+        }
+
+        @Override
+        public Element getValue() {
+            Element result = parsed;
+            if (result == null) {
+                result = parseFragment(fragment);
+                if (result == null) {
+                    return null;
+                }
+                parsed = result;
+            }
+            return (Element)result.cloneNode(true);
+        }
+
+        @Override
+        public boolean isDefault() {
+            return false;
+        }
+
+        @Override
+        public void addChangeListener(ChangeListener listener) {
+        }
+
+        @Override
+        public void removeChangeListener(ChangeListener listener) {
+        }
+    }
+
+    /**
+     * Writes indented elements to an {@code XMLStreamWriter}. Indentation is
+     * two spaces per level, lines are separated by the given line separator.
+     */
+    private static final class XmlOutput {
+        private final XMLStreamWriter writer;
+        private final Writer rawOutput;
+        private final String lineSeparator;
+        private int depth;
+
+        public XmlOutput(XMLStreamWriter writer, Writer rawOutput, String lineSeparator) {
+            assert writer != null;
+            assert rawOutput != null;
+            assert lineSeparator != null;
+
+            this.writer = writer;
+            this.rawOutput = rawOutput;
+            this.lineSeparator = lineSeparator;
+            this.depth = 0;
+        }
+
+        private void indent() throws XMLStreamException {
+            StringBuilder indentation = new StringBuilder(lineSeparator.length() + INDENT.length() * depth);
+            indentation.append(lineSeparator);
+            for (int i = 0; i < depth; i++) {
+                indentation.append(INDENT);
+            }
+            writer.writeCharacters(indentation.toString());
+        }
+
+        public void newLine() throws XMLStreamException {
+            writer.writeCharacters(lineSeparator);
+        }
+
+        public void startElement(String name) throws XMLStreamException {
+            indent();
+            writer.writeStartElement(name);
+            depth++;
+        }
+
+        public void endElement() throws XMLStreamException {
+            depth--;
+            indent();
+            writer.writeEndElement();
+        }
+
+        public void emptyElement(String name) throws XMLStreamException {
+            indent();
+            writer.writeEmptyElement(name);
+        }
+
+        public void comment(String text) throws XMLStreamException {
+            indent();
+            writer.writeComment(text);
+        }
+
+        public void simpleElement(String name, String value) throws XMLStreamException {
+            simpleElement(name, null, null, value);
+        }
+
+        public void simpleElement(String name, String attrName, String attrValue, String value) throws XMLStreamException {
+            indent();
+            if (value.isEmpty()) {
+                writer.writeEmptyElement(name);
+            }
+            else {
+                writer.writeStartElement(name);
+            }
+
+            if (attrName != null) {
+                writer.writeAttribute(attrName, attrValue);
+            }
+
+            if (!value.isEmpty()) {
+                writer.writeCharacters(value);
+                writer.writeEndElement();
+            }
+        }
+
+        public void rawFragment(String fragment) throws XMLStreamException, IOException {
+            indent();
+            // Writing the indentation closed the previous tag, so we may
+            // write directly to the output.
+            writer.flush();
+
+            // The parser has already normalized the line separators to '\n'.
+            rawOutput.write(fragment.replace("\n", lineSeparator));
+        }
+
+        public void domElement(Element element) throws XMLStreamException {
+            indent();
+            writeDomElement(element, Collections.<String, String>emptyMap());
+        }
+
+        private void writeDomElement(Element element, Map<String, String> namespaces) throws XMLStreamException {
+            NodeList children = element.getChildNodes();
+            boolean elementOnly = isElementOnly(children);
+            boolean empty = elementOnly
+                    ? !hasNonTextChild(children)
+                    : children.getLength() == 0;
+
+            if (empty) {
+                writer.writeEmptyElement(element.getNodeName());
+            }
+            else {
+                writer.writeStartElement(element.getNodeName());
+            }
+
+            Map<String, String> elementNamespaces = writeDomAttributes(element, namespaces);
+
+            if (empty) {
+                return;
+            }
+
+            if (elementOnly) {
+                depth++;
+                int childCount = children.getLength();
+                for (int i = 0; i < childCount; i++) {
+                    Node child = children.item(i);
+                    if (!(child instanceof Text)) {
+                        indent();
+                        writeDomNode(child, elementNamespaces);
+                    }
+                }
+                depth--;
+                indent();
+            }
+            else {
+                int childCount = children.getLength();
+                for (int i = 0; i < childCount; i++) {
+                    writeDomNode(children.item(i), elementNamespaces);
+                }
+            }
+
+            writer.writeEndElement();
+        }
+
+        private Map<String, String> writeDomAttributes(Element element, Map<String, String> namespaces) throws XMLStreamException {
+            NamedNodeMap attributes = element.getAttributes();
+            int attributeCount = attributes.getLength();
+
+            Map<String, String> result = namespaces;
+            for (int i = 0; i < attributeCount; i++) {
+                Attr attr = (Attr)attributes.item(i);
+                String name = attr.getNodeName();
+                if (XMLConstants.XMLNS_ATTRIBUTE.equals(name)) {
+                    result = declareNamespace(result, XMLConstants.DEFAULT_NS_PREFIX, attr.getValue());
+                }
+                else if (name.startsWith(XMLConstants.XMLNS_ATTRIBUTE + ":")) {
+                    String prefix = name.substring(XMLConstants.XMLNS_ATTRIBUTE.length() + 1);
+                    result = declareNamespace(result, prefix, attr.getValue());
+                }
+            }
+
+            // Elements created by a namespace aware DOM usually do not
+            // contain the declaration of their namespace as an attribute.
+            result = writeMissingNamespace(element, result);
+            for (int i = 0; i < attributeCount; i++) {
+                Attr attr = (Attr)attributes.item(i);
+                String attrPrefix = attr.getPrefix();
+                if (attrPrefix != null
+                        && !XMLConstants.XMLNS_ATTRIBUTE.equals(attrPrefix)
+                        && !XMLConstants.XML_NS_PREFIX.equals(attrPrefix)) {
+                    result = writeMissingNamespace(attr, result);
+                }
+            }
+
+            for (int i = 0; i < attributeCount; i++) {
+                Attr attr = (Attr)attributes.item(i);
+                writer.writeAttribute(attr.getNodeName(), attr.getValue());
+            }
+            return result;
+        }
+
+        private Map<String, String> writeMissingNamespace(Node node, Map<String, String> namespaces) throws XMLStreamException {
+            String prefix = node.getPrefix();
+            if (prefix == null) {
+                prefix = XMLConstants.DEFAULT_NS_PREFIX;
+            }
+
+            String namespace = node.getNamespaceURI();
+            if (namespace == null) {
+                if (node.getLocalName() == null || !prefix.isEmpty()) {
+                    // Not a namespace aware node.
+                    return namespaces;
+                }
+                namespace = "";
+            }
+
+            String declared = namespaces.get(prefix);
+            if (declared == null) {
+                declared = "";
+            }
+
+            if (declared.equals(namespace)) {
+                return namespaces;
+            }
+
+            if (prefix.isEmpty()) {
+                if (node instanceof Attr) {
+                    // Attributes without prefix have no namespace.
+                    return namespaces;
+                }
+                writer.writeDefaultNamespace(namespace);
+            }
+            else {
+                writer.writeNamespace(prefix, namespace);
+            }
+            return declareNamespace(namespaces, prefix, namespace);
+        }
+
+        private static Map<String, String> declareNamespace(Map<String, String> namespaces, String prefix, String namespace) {
+            Map<String, String> result = new HashMap<String, String>(namespaces);
+            result.put(prefix, namespace);
+            return result;
+        }
+
+        private void writeDomNode(Node node, Map<String, String> namespaces) throws XMLStreamException {
+            if (node instanceof Element) {
+                writeDomElement((Element)node, namespaces);
+            }
+            else if (node instanceof CDATASection) {
+                writer.writeCData(((CDATASection)node).getData());
+            }
+            else if (node instanceof Text) {
+                writer.writeCharacters(((Text)node).getData());
+            }
+            else if (node instanceof Comment) {
+                writer.writeComment(((Comment)node).getData());
+            }
+            else if (node instanceof ProcessingInstruction) {
+                ProcessingInstruction instruction = (ProcessingInstruction)node;
+                writer.writeProcessingInstruction(instruction.getTarget(), instruction.getData());
+            }
+            else {
+                String text = node.getTextContent();
+                if (text != null) {
+                    writer.writeCharacters(text);
+                }
+            }
+        }
+
+        private static boolean isElementOnly(NodeList children) {
+            int childCount = children.getLength();
+            for (int i = 0; i < childCount; i++) {
+                Node child = children.item(i);
+                if (child instanceof CDATASection) {
+                    return false;
+                }
+                if (child instanceof Text && !((Text)child).getData().trim().isEmpty()) {
+                    return false;
+                }
+                if (!(child instanceof Text)
+                        && !(child instanceof Element)
+                        && !(child instanceof Comment)
+                        && !(child instanceof ProcessingInstruction)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean hasNonTextChild(NodeList children) {
+            int childCount = children.getLength();
+            for (int i = 0; i < childCount; i++) {
+                if (!(children.item(i) instanceof Text)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private StaxPropertyFormat() {
+        throw new AssertionError();
+    }
+}
@@ -1,7 +1,14 @@
 package org.netbeans.gradle.project.persistent;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -28,13 +35,16 @@ import org.netbeans.gradle.project.properties.PropertySource;
 
 public final class XmlPropertiesPersister implements PropertiesPersister {
     private static final Logger LOGGER = Logger.getLogger(XmlPropertiesPersister.class.getName());
+    private static final String DIGEST_ALGORITHM = "SHA-1";
 
     private final File propertiesFile;
+    private volatile SavedContent lastSavedContent;
 
     public XmlPropertiesPersister(File propertiesFile) {
         if (propertiesFile == null) throw new NullPointerException("propertiesFile");
 
         this.propertiesFile = propertiesFile;
+        this.lastSavedContent = null;
     }
 
     private void checkCallingThread() {
@@ -55,7 +65,7 @@ public final class XmlPropertiesPersister implements PropertiesPersister {
                     @Override
                     public void run() {
                         try {
-                            XmlPropertyFormat.saveToXml(project, propertiesFile, snapshot);
+                            saveSnapshot(project, snapshot);
                         } finally {
                             if (onDone != null) {
                                 onDone.run();
@@ -67,6 +77,82 @@ public final class XmlPropertiesPersister implements PropertiesPersister {
         });
     }
 
+    @Override
+    public void saveNow(NbGradleProject project, ProjectProperties properties) {
+        saveSnapshot(project, new PropertiesSnapshot(properties));
+    }
+
+    // Synchronized, so that concurrent saves cannot be mixed up when checking
+    // the previously saved content.
+    private synchronized void saveSnapshot(NbGradleProject project, PropertiesSnapshot snapshot) {
+        byte[] content = StaxPropertyFormat.toXmlBytes(project, snapshot);
+        if (content == null) {
+            return;
+        }
+
+        byte[] digest = getDigest(content);
+        if (isSavedContent(content, digest)) {
+            // Rewriting the same content would only cause needless file
+            // change events (and reloading the properties).
+            return;
+        }
+
+        try {
+            StaxPropertyFormat.writeToFile(propertiesFile, content);
+            PropertiesFileCache.invalidate(propertiesFile);
+            lastSavedContent = new SavedContent(propertiesFile, digest);
+        } catch (IOException ex) {
+            LOGGER.log(Level.INFO, "Failed to save the properties.", ex);
+        }
+    }
+
+    private boolean isSavedContent(byte[] content, byte[] digest) {
+        if (propertiesFile.length() != content.length) {
+            return false;
+        }
+
+        SavedContent savedContent = lastSavedContent;
+        if (savedContent != null && savedContent.isUnchanged(propertiesFile)) {
+            return Arrays.equals(savedContent.digest, digest);
+        }
+
+        // We have not yet saved the file or it was modified since, so we have
+        // to check the actual content.
+        try {
+            byte[] fileDigest = getDigest(readFile(propertiesFile, content.length));
+            lastSavedContent = new SavedContent(propertiesFile, fileDigest);
+            return Arrays.equals(fileDigest, digest);
+        } catch (IOException ex) {
+            LOGGER.log(Level.FINE, "Failed to read the properties file: " + propertiesFile, ex);
+            return false;
+        }
+    }
+
+    private static byte[] readFile(File file, int expectedLength) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream(expectedLength);
+        InputStream input = new FileInputStream(file);
+        try {
+            byte[] buffer = new byte[8 * 1024];
+            int readCount = input.read(buffer);
+            while (readCount > 0) {
+                result.write(buffer, 0, readCount);
+                readCount = input.read(buffer);
+            }
+        } finally {
+            input.close();
+        }
+        return result.toByteArray();
+    }
+
+    private static byte[] getDigest(byte[] content) {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM).digest(content);
+        } catch (NoSuchAlgorithmException ex) {
+            // Every Java implementation is required to support SHA-1.
+            throw new AssertionError(ex);
+        }
+    }
+
     private static <ValueType> PropertySetter<ValueType> newPropertySetter(
             MutableProperty<ValueType> property,
             PropertyGetter<ValueType> getter) {
@@ -152,37 +238,44 @@ public final class XmlPropertiesPersister implements PropertiesPersister {
             @Override
             public void run() {
                 try {
-                    final PropertiesSnapshot snapshot = XmlPropertyFormat.readFromXml(propertiesFile);
+                    final PropertiesSnapshot snapshot = PropertiesFileCache.readFromXml(propertiesFile);
 
                     setterExecutor.execute(new Runnable() {
                         @Override
                         public void run() {
-                            for (PropertySetter<?> setter: setters) {
-                                setter.set(snapshot);
-                            }
-
-                            // TODO: This might overwrite concurrently set
-                            //  properties which is unexpected by the user. This
-                            //  is unlikely to happen but should be fixed anyway.
-
-                            Set<Map.Entry<String, PropertySource<PredefinedTask>>> builtInTasks
-                                    = snapshot.getBuiltInTasks().entrySet();
-                            for (Map.Entry<String, PropertySource<PredefinedTask>> taskEntry: builtInTasks) {
-                                MutableProperty<PredefinedTask> property
-                                        = properties.tryGetBuiltInTask(taskEntry.getKey());
-                                if (property == null) {
-                                    LOGGER.log(Level.SEVERE, "Cannot set property for built-in task: {0}", taskEntry.getKey());
-                                }
-                                else {
-                                    property.setValueFromSource(taskEntry.getValue());
+                            // Listeners of the properties are notified only
+                            // once after all the properties have been set.
+                            properties.runBatchUpdate(new Runnable() {
+                                @Override
+                                public void run() {
+                                    for (PropertySetter<?> setter: setters) {
+                                        setter.set(snapshot);
+                                    }
+
+                                    // TODO: This might overwrite concurrently set
+                                    //  properties which is unexpected by the user. This
+                                    //  is unlikely to happen but should be fixed anyway.
+
+                                    Set<Map.Entry<String, PropertySource<PredefinedTask>>> builtInTasks
+                                            = snapshot.getBuiltInTasks().entrySet();
+                                    for (Map.Entry<String, PropertySource<PredefinedTask>> taskEntry: builtInTasks) {
+                                        MutableProperty<PredefinedTask> property
+                                                = properties.tryGetBuiltInTask(taskEntry.getKey());
+                                        if (property == null) {
+                                            LOGGER.log(Level.SEVERE, "Cannot set property for built-in task: {0}", taskEntry.getKey());
+                                        }
+                                        else {
+                                            property.setValueFromSource(taskEntry.getValue());
+                                        }
+                                    }
+
+                                    List<AuxConfig> newAuxConfigs = new LinkedList<AuxConfig>();
+                                    for (AuxConfigSource config: snapshot.getAuxProperties()) {
+                                        newAuxConfigs.add(new AuxConfig(config.getKey(), config.getSource().getValue()));
+                                    }
+                                    properties.setAllAuxConfigs(newAuxConfigs);
                                 }
-                            }
-
-                            List<AuxConfig> newAuxConfigs = new LinkedList<AuxConfig>();
-                            for (AuxConfigSource config: snapshot.getAuxProperties()) {
-                                newAuxConfigs.add(new AuxConfig(config.getKey(), config.getSource().getValue()));
-                            }
-                            properties.setAllAuxConfigs(newAuxConfigs);
+                            });
 
                             if (onDone != null) {
                                 onDone.run();
@@ -206,6 +299,24 @@ public final class XmlPropertiesPersister implements PropertiesPersister {
         });
     }
 
+    private static final class SavedContent {
+        public final byte[] digest;
+        private final long lastModified;
+        private final long length;
+
+        public SavedContent(File file, byte[] digest) {
+            this.digest = digest;
+            this.lastModified = file.lastModified();
+            this.length = file.length();
+        }
+
+        public boolean isUnchanged(File file) {
+            return lastModified != 0
+                    && file.lastModified() == lastModified
+                    && file.length() == length;
+        }
+    }
+
     private interface PropertyGetter<ValueType> {
         public PropertySource<ValueType> get(PropertiesSnapshot snapshot);
     }
@@ -100,4 +100,9 @@ public abstract class AbstractProjectProperties implements ProjectProperties {
         result.add(getAuxConfigListener());
         return result;
     }
+
+    @Override
+    public void runBatchUpdate(Runnable updateTask) {
+        PropertyChangeBatch.runBatch(updateTask);
+    }
 }
@@ -1,12 +1,13 @@
 package org.netbeans.gradle.project.properties;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
-import org.openide.util.ChangeSupport;
 import org.openide.util.Utilities;
 
 public final class DefaultMutableProperty<ValueType> implements MutableProperty<ValueType> {
@@ -15,7 +16,7 @@ public final class DefaultMutableProperty<ValueType> implements MutableProperty<
     private final boolean allowNulls;
     private volatile PropertySource<? extends ValueType> valueSource;
     private final Lock changesLock;
-    private final ChangeSupport changes;
+    private final List<ChangeListener> changeListeners;
     private final ChangeListener changeForwarder;
 
     public DefaultMutableProperty(ValueType value, boolean defaultValue, boolean allowNulls) {
@@ -30,7 +31,7 @@ public final class DefaultMutableProperty<ValueType> implements MutableProperty<
         this.allowNulls = allowNulls;
         this.valueSource = initialValue;
         this.changesLock = new ReentrantLock();
-        this.changes = new ChangeSupport(this);
+        this.changeListeners = new CopyOnWriteArrayList<ChangeListener>();
         this.changeForwarder = new ChangeListener() {
             private ValueType prevValue = initialValue.getValue();
 
@@ -41,7 +42,7 @@ public final class DefaultMutableProperty<ValueType> implements MutableProperty<
                 prevValue = newValue;
 
                 if (!Utilities.compareObjects(value, newValue)) {
-                    changes.fireChange();
+                    fireChange();
                 }
             }
         };
@@ -65,7 +66,7 @@ public final class DefaultMutableProperty<ValueType> implements MutableProperty<
 
         changesLock.lock();
         try {
-            boolean hasListeners = changes.hasListeners();
+            boolean hasListeners = !changeListeners.isEmpty();
             if (hasListeners) {
                 this.valueSource.removeChangeListener(changeForwarder);
             }
@@ -78,7 +79,11 @@ public final class DefaultMutableProperty<ValueType> implements MutableProperty<
         } finally {
             changesLock.unlock();
         }
-        changes.fireChange();
+        fireChange();
+    }
+
+    private void fireChange() {
+        PropertyChangeBatch.fireChange(changeListeners, new ChangeEvent(this));
     }
 
     @Override
@@ -109,8 +114,8 @@ public final class DefaultMutableProperty<ValueType> implements MutableProperty<
     public void addChangeListener(ChangeListener listener) {
         changesLock.lock();
         try {
-            boolean addedNow = !changes.hasListeners();
-            changes.addChangeListener(listener);
+            boolean addedNow = changeListeners.isEmpty();
+            changeListeners.add(listener);
             if (addedNow) {
                 valueSource.addChangeListener(changeForwarder);
             }
@@ -123,12 +128,12 @@ public final class DefaultMutableProperty<ValueType> implements MutableProperty<
     public void removeChangeListener(ChangeListener listener) {
         changesLock.lock();
         try {
-            if (!changes.hasListeners()) {
+            if (changeListeners.isEmpty()) {
                 return;
             }
 
-            changes.removeChangeListener(listener);
-            if (!changes.hasListeners()) {
+            changeListeners.remove(listener);
+            if (changeListeners.isEmpty()) {
                 valueSource.removeChangeListener(changeForwarder);
             }
         } finally {
@@ -1,11 +1,15 @@
 package org.netbeans.gradle.project.properties;
 
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 import java.io.File;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
@@ -35,6 +39,10 @@ public final class GlobalGradleSettings {
     private static final StringBasedProperty<Boolean> ALWAYS_CLEAR_OUTPUT;
     private static final StringBasedProperty<Boolean> OMIT_INIT_SCRIPT;
     private static final StringBasedProperty<Boolean> MAY_RELY_ON_JAVA_OF_SCRIPT;
+    private static final StringBasedProperty<Boolean> SHOW_BUILD_PROFILE;
+    private static final StringBasedProperty<Boolean> SKIP_UNCHANGED_COMPILE;
+    private static final StringBasedProperty<Boolean> WARM_UP_DAEMON;
+    private static final StringBasedProperty<Boolean> DOWNLOAD_SOURCES;
 
     static {
         // "gradle-home" is probably not the best name but it must remain so
@@ -42,12 +50,16 @@ public final class GlobalGradleSettings {
         GRADLE_LOCATION = new GlobalProperty<GradleLocation>("gradle-home", GradleLocationConverter.INSTANCE);
         GRADLE_USER_HOME = new GlobalProperty<File>("gradle-user-home", FileConverter.INSTANCE);
         GRADLE_JVM_ARGS = new GlobalProperty<List<String>>("gradle-jvm-args", StringToStringListConverter.INSTANCE);
-        GRADLE_JDK = new GlobalProperty<JavaPlatform>("gradle-jdk", JavaPlaformConverter.INSTANCE);
+        GRADLE_JDK = new JavaPlatformProperty("gradle-jdk");
         SKIP_TESTS = new GlobalProperty<Boolean>("skip-tests", new BooleanConverter(false));
         PROJECT_CACHE_SIZE = new GlobalProperty<Integer>("project-cache-size", new IntegerConverter(1, Integer.MAX_VALUE, 100));
         ALWAYS_CLEAR_OUTPUT = new GlobalProperty<Boolean>("always-clear-output", new BooleanConverter(false));
         OMIT_INIT_SCRIPT = new GlobalProperty<Boolean>("omit-init-script", new BooleanConverter(false));
         MAY_RELY_ON_JAVA_OF_SCRIPT = new GlobalProperty<Boolean>("rely-on-java-of-script", new BooleanConverter(false));
+        SHOW_BUILD_PROFILE = new GlobalProperty<Boolean>("show-build-profile", new BooleanConverter(false));
+        SKIP_UNCHANGED_COMPILE = new GlobalProperty<Boolean>("skip-unchanged-compile", new BooleanConverter(false));
+        WARM_UP_DAEMON = new GlobalProperty<Boolean>("warm-up-daemon", new BooleanConverter(false));
+        DOWNLOAD_SOURCES = new GlobalProperty<Boolean>("download-sources", new BooleanConverter(false));
     }
 
     public static File getGradleInstallationAsFile() {
@@ -99,6 +111,22 @@ public final class GlobalGradleSettings {
         return MAY_RELY_ON_JAVA_OF_SCRIPT;
     }
 
+    public static StringBasedProperty<Boolean> getShowBuildProfile() {
+        return SHOW_BUILD_PROFILE;
+    }
+
+    public static StringBasedProperty<Boolean> getSkipUnchangedCompile() {
+        return SKIP_UNCHANGED_COMPILE;
+    }
+
+    public static StringBasedProperty<Boolean> getWarmUpDaemon() {
+        return WARM_UP_DAEMON;
+    }
+
+    public static StringBasedProperty<Boolean> getDownloadSources() {
+        return DOWNLOAD_SOURCES;
+    }
+
     public static FileObject getHomeFolder(JavaPlatform platform) {
         Collection<FileObject> installFolders = platform.getInstallFolders();
         int numberOfFolder = installFolders.size();
@@ -314,6 +342,11 @@ public final class GlobalGradleSettings {
         public String toString(ValueType value);
     }
 
+    /**
+     * Stores its value in the global preferences. The converted value is
+     * cached (so that the preferences need not be read and the value need not
+     * be parsed each time), until the preference is changed.
+     */
     private static class GlobalProperty<ValueType> implements StringBasedProperty<ValueType> {
         private final String settingsName;
         private final ValueConverter<ValueType> converter;
@@ -321,6 +354,10 @@ public final class GlobalGradleSettings {
         private final ChangeSupport changes;
         private final PreferenceChangeListener changeForwarder;
 
+        private final AtomicLong cacheVersion;
+        private final AtomicBoolean listeningForInvalidation;
+        private volatile CachedValue<ValueType> cachedValue;
+
         public GlobalProperty(String settingsName, ValueConverter<ValueType> converter) {
             if (settingsName == null) throw new NullPointerException("settingsName");
             if (converter == null) throw new NullPointerException("converter");
@@ -337,6 +374,30 @@ public final class GlobalGradleSettings {
                     }
                 }
             };
+
+            this.cacheVersion = new AtomicLong(0);
+            this.listeningForInvalidation = new AtomicBoolean(false);
+            this.cachedValue = null;
+        }
+
+        protected final void invalidateCachedValue() {
+            cacheVersion.incrementAndGet();
+        }
+
+        /**
+         * Registers the listeners which need to invalidate the cached value.
+         * This method is called at most once, before the value is first
+         * cached.
+         */
+        protected void startListeningForInvalidation() {
+            getPreferences().addPreferenceChangeListener(new PreferenceChangeListener() {
+                @Override
+                public void preferenceChange(PreferenceChangeEvent evt) {
+                    if (settingsName.equals(evt.getKey())) {
+                        invalidateCachedValue();
+                    }
+                }
+            });
         }
 
         private static Preferences getPreferences() {
@@ -359,7 +420,21 @@ public final class GlobalGradleSettings {
 
         @Override
         public ValueType getValue() {
-            return converter.toValue(getValueAsString());
+            long currentVersion = cacheVersion.get();
+            CachedValue<ValueType> cached = cachedValue;
+            if (cached != null && cached.version == currentVersion) {
+                return cached.value;
+            }
+
+            if (listeningForInvalidation.compareAndSet(false, true)) {
+                startListeningForInvalidation();
+            }
+
+            // If the value changes concurrently, we will store it with an
+            // outdated version, so it will not be used.
+            ValueType value = converter.toValue(getValueAsString());
+            cachedValue = new CachedValue<ValueType>(currentVersion, value);
+            return value;
         }
 
         @Override
@@ -404,6 +479,9 @@ public final class GlobalGradleSettings {
             else {
                 getPreferences().remove(settingsName);
             }
+            // Preference change events are delivered asynchronously but
+            // the new value must be visible right after this method returns.
+            invalidateCachedValue();
         }
 
         @Override
@@ -412,6 +490,37 @@ public final class GlobalGradleSettings {
         }
     }
 
+    private static final class CachedValue<ValueType> {
+        public final long version;
+        public final ValueType value;
+
+        public CachedValue(long version, ValueType value) {
+            this.version = version;
+            this.value = value;
+        }
+    }
+
+    private static final class JavaPlatformProperty extends GlobalProperty<JavaPlatform> {
+        public JavaPlatformProperty(String settingsName) {
+            super(settingsName, JavaPlaformConverter.INSTANCE);
+        }
+
+        @Override
+        protected void startListeningForInvalidation() {
+            super.startListeningForInvalidation();
+
+            // The value depends on the installed platforms as well.
+            JavaPlatformManager.getDefault().addPropertyChangeListener(new PropertyChangeListener() {
+                @Override
+                public void propertyChange(PropertyChangeEvent evt) {
+                    if (JavaPlatformManager.PROP_INSTALLED_PLATFORMS.equals(evt.getPropertyName())) {
+                        invalidateCachedValue();
+                    }
+                }
+            });
+        }
+    }
+
     private GlobalGradleSettings() {
         throw new AssertionError();
     }
@@ -138,7 +138,12 @@ public final class GradleCustomizer implements CustomizerProvider {
             category.setOkButtonListener(new ActionListener() {
                 @Override
                 public void actionPerformed(ActionEvent e) {
-                    panel.saveProperties();
+                    PropertyChangeBatch.runBatch(new Runnable() {
+                        @Override
+                        public void run() {
+                            panel.saveProperties();
+                        }
+                    });
                 }
             });
             return panel;
@@ -46,6 +46,10 @@ public class GradleSettingsPanel extends javax.swing.JPanel {
         jAlwayClearOutput.setSelected(GlobalGradleSettings.getAlwaysClearOutput().getValue());
         jDontAddInitScriptCheck.setSelected(GlobalGradleSettings.getOmitInitScript().getValue());
         jReliableJavaVersionCheck.setSelected(GlobalGradleSettings.getMayRelyOnJavaOfScript().getValue());
+        jShowBuildProfileCheck.setSelected(GlobalGradleSettings.getShowBuildProfile().getValue());
+        jSkipUnchangedCompileCheck.setSelected(GlobalGradleSettings.getSkipUnchangedCompile().getValue());
+        jWarmUpDaemonCheck.setSelected(GlobalGradleSettings.getWarmUpDaemon().getValue());
+        jDownloadSourcesCheck.setSelected(GlobalGradleSettings.getDownloadSources().getValue());
 
         File userHome = GlobalGradleSettings.getGradleUserHomeDir().getValue();
         jGradleUserHomeEdit.setText(userHome != null ? userHome.getPath() : "");
@@ -60,6 +64,10 @@ public class GradleSettingsPanel extends javax.swing.JPanel {
         GlobalGradleSettings.getAlwaysClearOutput().setValue(isAlwaysClearOutput());
         GlobalGradleSettings.getOmitInitScript().setValue(isDontAddInitScript());
         GlobalGradleSettings.getMayRelyOnJavaOfScript().setValue(isReliableJavaVersion());
+        GlobalGradleSettings.getShowBuildProfile().setValue(isShowBuildProfile());
+        GlobalGradleSettings.getSkipUnchangedCompile().setValue(isSkipUnchangedCompile());
+        GlobalGradleSettings.getWarmUpDaemon().setValue(isWarmUpDaemon());
+        GlobalGradleSettings.getDownloadSources().setValue(isDownloadSources());
         GlobalGradleSettings.getGradleUserHomeDir().setValueFromString(getGradleUserHomeDir());
     }
 
@@ -100,6 +108,22 @@ public class GradleSettingsPanel extends javax.swing.JPanel {
         return jReliableJavaVersionCheck.isSelected();
     }
 
+    private boolean isShowBuildProfile() {
+        return jShowBuildProfileCheck.isSelected();
+    }
+
+    private boolean isSkipUnchangedCompile() {
+        return jSkipUnchangedCompileCheck.isSelected();
+    }
+
+    private boolean isWarmUpDaemon() {
+        return jWarmUpDaemonCheck.isSelected();
+    }
+
+    private boolean isDownloadSources() {
+        return jDownloadSourcesCheck.isSelected();
+    }
+
     private int getProjectCacheSize() {
         Object value = jProjectCacheSize.getValue();
         int result;
@@ -180,6 +204,10 @@ public class GradleSettingsPanel extends javax.swing.JPanel {
         jGradleUserHomeEdit = new javax.swing.JTextField();
         jBrowseUserHomeDirButton = new javax.swing.JButton();
         jReliableJavaVersionCheck = new javax.swing.JCheckBox();
+        jShowBuildProfileCheck = new javax.swing.JCheckBox();
+        jSkipUnchangedCompileCheck = new javax.swing.JCheckBox();
+        jWarmUpDaemonCheck = new javax.swing.JCheckBox();
+        jDownloadSourcesCheck = new javax.swing.JCheckBox();
 
         org.openide.awt.Mnemonics.setLocalizedText(jGradlePathCaption, org.openide.util.NbBundle.getMessage(GradleSettingsPanel.class, "GradleSettingsPanel.jGradlePathCaption.text")); // NOI18N
 
@@ -221,6 +249,14 @@ public class GradleSettingsPanel extends javax.swing.JPanel {
 
         org.openide.awt.Mnemonics.setLocalizedText(jReliableJavaVersionCheck, org.openide.util.NbBundle.getMessage(GradleSettingsPanel.class, "GradleSettingsPanel.jReliableJavaVersionCheck.text")); // NOI18N
 
+        org.openide.awt.Mnemonics.setLocalizedText(jShowBuildProfileCheck, org.openide.util.NbBundle.getMessage(GradleSettingsPanel.class, "GradleSettingsPanel.jShowBuildProfileCheck.text")); // NOI18N
+
+        org.openide.awt.Mnemonics.setLocalizedText(jSkipUnchangedCompileCheck, org.openide.util.NbBundle.getMessage(GradleSettingsPanel.class, "GradleSettingsPanel.jSkipUnchangedCompileCheck.text")); // NOI18N
+
+        org.openide.awt.Mnemonics.setLocalizedText(jWarmUpDaemonCheck, org.openide.util.NbBundle.getMessage(GradleSettingsPanel.class, "GradleSettingsPanel.jWarmUpDaemonCheck.text")); // NOI18N
+
+        org.openide.awt.Mnemonics.setLocalizedText(jDownloadSourcesCheck, org.openide.util.NbBundle.getMessage(GradleSettingsPanel.class, "GradleSettingsPanel.jDownloadSourcesCheck.text")); // NOI18N
+
         javax.swing.GroupLayout layout = new javax.swing.GroupLayout(this);
         this.setLayout(layout);
         layout.setHorizontalGroup(
@@ -251,7 +287,11 @@ public class GradleSettingsPanel extends javax.swing.JPanel {
                                 .addComponent(jProjectCacheSize, javax.swing.GroupLayout.PREFERRED_SIZE, 95, javax.swing.GroupLayout.PREFERRED_SIZE))
                             .addComponent(jAlwayClearOutput)
                             .addComponent(jDontAddInitScriptCheck)
-                            .addComponent(jReliableJavaVersionCheck))
+                            .addComponent(jReliableJavaVersionCheck)
+                            .addComponent(jShowBuildProfileCheck)
+                            .addComponent(jSkipUnchangedCompileCheck)
+                            .addComponent(jWarmUpDaemonCheck)
+                            .addComponent(jDownloadSourcesCheck))
                         .addGap(0, 114, Short.MAX_VALUE)))
                 .addContainerGap())
         );
@@ -290,6 +330,14 @@ public class GradleSettingsPanel extends javax.swing.JPanel {
                 .addComponent(jDontAddInitScriptCheck)
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
                 .addComponent(jReliableJavaVersionCheck)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
+                .addComponent(jShowBuildProfileCheck)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
+                .addComponent(jSkipUnchangedCompileCheck)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
+                .addComponent(jWarmUpDaemonCheck)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
+                .addComponent(jDownloadSourcesCheck)
                 .addContainerGap(javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
         );
     }// </editor-fold>//GEN-END:initComponents
@@ -320,6 +368,7 @@ public class GradleSettingsPanel extends javax.swing.JPanel {
     private javax.swing.JButton jBrowsePathButton;
     private javax.swing.JButton jBrowseUserHomeDirButton;
     private javax.swing.JCheckBox jDontAddInitScriptCheck;
+    private javax.swing.JCheckBox jDownloadSourcesCheck;
     private javax.swing.JTextArea jGradleJVMArgs;
     private javax.swing.JLabel jGradleJdkCaption;
     private javax.swing.JLabel jGradlePathCaption;
@@ -332,6 +381,9 @@ public class GradleSettingsPanel extends javax.swing.JPanel {
     private javax.swing.JLabel jProjectCacheSizeLabel;
     private javax.swing.JCheckBox jReliableJavaVersionCheck;
     private javax.swing.JScrollPane jScrollPane1;
+    private javax.swing.JCheckBox jShowBuildProfileCheck;
     private javax.swing.JCheckBox jSkipTestsCheck;
+    private javax.swing.JCheckBox jSkipUnchangedCompileCheck;
+    private javax.swing.JCheckBox jWarmUpDaemonCheck;
     // End of variables declaration//GEN-END:variables
 }
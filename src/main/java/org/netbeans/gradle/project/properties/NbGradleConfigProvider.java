@@ -314,8 +314,15 @@ public final class NbGradleConfigProvider implements ProjectConfigurationProvide
             executeOnEdt(new Runnable() {
                 @Override
                 public void run() {
-                    changeSupport.firePropertyChange(PROP_CONFIGURATION_ACTIVE, prevConfig, configuration);
-                    activeConfigChanges.fireChange();
+                    // Switching the profile changes (possibly) every property
+                    // but listeners should be notified only once.
+                    PropertyChangeBatch.runBatch(new Runnable() {
+                        @Override
+                        public void run() {
+                            changeSupport.firePropertyChange(PROP_CONFIGURATION_ACTIVE, prevConfig, configuration);
+                            activeConfigChanges.fireChange();
+                        }
+                    });
                 }
             });
         }
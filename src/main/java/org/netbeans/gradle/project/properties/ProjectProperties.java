@@ -18,7 +18,8 @@ public interface ProjectProperties {
     //   - XmlPropertiesPersister.load: Do the same as with other properties.
     //   - AbstractProjectProperties.getAllProperties: Return the new property as well.
     //   - PropertiesSnapshot's public constructor: Check the newly added property as well
-    //   - Implement saving and loading in XmlPropertyFormat
+    //   - Implement saving and loading in StaxPropertyFormat (and in
+    //     XmlPropertyFormat, which is still used to verify the format)
     //
     //   Other places need to be updated will not compile.
 
@@ -65,4 +66,10 @@ public interface ProjectProperties {
 
     @Nonnull
     public Collection<MutableProperty<?>> getAllProperties();
+
+    // Executes the given task and notifies the change listeners of the
+    // properties only after the task returns. Each listener is notified only
+    // once, regardless how many properties it listens on were changed by the
+    // task. Must be called on the thread setting the properties.
+    public void runBatchUpdate(@Nonnull Runnable updateTask);
 }
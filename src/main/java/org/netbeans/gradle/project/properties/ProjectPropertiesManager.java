@@ -5,11 +5,12 @@ import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
@@ -21,48 +22,46 @@ import javax.swing.event.ChangeListener;
 import org.netbeans.api.java.platform.JavaPlatform;
 import org.netbeans.gradle.project.NbGradleProject;
 import org.netbeans.gradle.project.WaitableSignal;
+import org.netbeans.gradle.project.WeakValueCache;
 import org.netbeans.gradle.project.api.config.ProfileDef;
 import org.netbeans.gradle.project.api.entry.ProjectPlatform;
 import org.netbeans.gradle.project.persistent.PropertiesPersister;
 import org.netbeans.gradle.project.persistent.XmlPropertiesPersister;
+import org.openide.modules.OnStop;
+import org.openide.util.RequestProcessor;
 
 public final class ProjectPropertiesManager {
     private static final Logger LOGGER = Logger.getLogger(ProjectPropertiesManager.class.getName());
 
-    private static final Lock MAIN_LOCK = new ReentrantLock();
-    // Don't forget that the value can't be wrapped, it must be the one to be
-    // returned, otherwise it might get garbage collected.
-    private static final Map<ProjectPropertySource, CachedProperties> PROPERTIES
-            = new WeakValueHashMap<ProjectPropertySource, CachedProperties>();
+    private static final int SAVE_DELAY_MS = 500;
 
-    private static void saveIfRequired(
-            final NbGradleProject project,
-            final AtomicBoolean saveQueued,
-            final ProjectProperties properties,
-            final PropertiesPersister persister) {
+    // The properties changed but whose saving has not yet been started.
+    private static final Set<PendingSave> UNSAVED
+            = Collections.newSetFromMap(new ConcurrentHashMap<PendingSave, Boolean>());
+    // The properties whose saving has been started but not yet completed.
+    private static final Set<PendingSave> SAVING
+            = Collections.newSetFromMap(new ConcurrentHashMap<PendingSave, Boolean>());
 
-        if (saveQueued.compareAndSet(false, true)) {
-            PropertiesPersister.PERSISTER_PROCESSOR.execute(new Runnable() {
-                @Override
-                public void run() {
-                    saveQueued.set(false);
-                    persister.save(project, properties, null);
-                }
-            });
-        }
-    }
+    // Don't forget that the value can't be wrapped, it must be the one to be
+    // returned, otherwise it might get garbage collected.
+    private static final WeakValueCache<ProjectPropertySource, CachedProperties> PROPERTIES
+            = new WeakValueCache<ProjectPropertySource, CachedProperties>();
 
     private static void setSaveOnChange(
             final NbGradleProject project,
             final ProjectProperties properties,
             final PropertiesPersister persister) {
 
-        final AtomicBoolean saveQueued = new AtomicBoolean(false);
+        // Changes are usually done in bursts (e.g.: when the customizer is
+        // closed), so we only save after the properties have not been changed
+        // for a while.
+        final PendingSave pendingSave = new PendingSave(project, properties, persister);
 
         ChangeListener saveIfRequiredTask = new ChangeListener() {
             @Override
             public void stateChanged(ChangeEvent e) {
-                saveIfRequired(project, saveQueued, properties, persister);
+                UNSAVED.add(pendingSave);
+                pendingSave.saveTask.schedule(SAVE_DELAY_MS);
             }
         };
 
@@ -71,6 +70,77 @@ public final class ProjectPropertiesManager {
         }
     }
 
+    /**
+     * Starts saving the changed properties immediately instead of waiting for
+     * further changes. This method does not wait for the properties to be
+     * saved.
+     */
+    public static void flushPendingSaves() {
+        for (PendingSave pendingSave: UNSAVED) {
+            pendingSave.saveTask.schedule(0);
+        }
+    }
+
+    /**
+     * Saves the changed properties (including the ones currently being saved)
+     * synchronously on the calling thread. The saves already scheduled might
+     * still be done later but they will not overwrite the file with
+     * different content.
+     */
+    public static void savePendingNow() {
+        Set<PendingSave> toSave = new HashSet<PendingSave>(UNSAVED);
+        toSave.addAll(SAVING);
+
+        for (PendingSave pendingSave: toSave) {
+            UNSAVED.remove(pendingSave);
+            pendingSave.saveTask.cancel();
+            pendingSave.saveNow();
+        }
+    }
+
+    /**
+     * Saves the changed properties of projects before NetBeans exits.
+     */
+    @OnStop
+    public static final class SaveOnExitTask implements Runnable {
+        @Override
+        public void run() {
+            // This method might be called on the EDT, so we cannot rely on
+            // the asynchronous saves, since they need the EDT.
+            savePendingNow();
+        }
+    }
+
+    private static final class PendingSave implements Runnable {
+        private final NbGradleProject project;
+        private final ProjectProperties properties;
+        private final PropertiesPersister persister;
+        public final RequestProcessor.Task saveTask;
+
+        public PendingSave(NbGradleProject project, ProjectProperties properties, PropertiesPersister persister) {
+            this.project = project;
+            this.properties = properties;
+            this.persister = persister;
+            this.saveTask = PropertiesPersister.PERSISTER_PROCESSOR.create(this);
+        }
+
+        public void saveNow() {
+            persister.saveNow(project, properties);
+        }
+
+        @Override
+        public void run() {
+            SAVING.add(this);
+            UNSAVED.remove(this);
+            persister.save(project, properties, new Runnable() {
+                @Override
+                public void run() {
+                    SAVING.remove(PendingSave.this);
+                }
+            });
+        }
+    }
+
     public static ProjectProperties getProperties(
             NbGradleProject project,
             final WaitableSignal loadedSignal) {
@@ -159,30 +229,12 @@ public final class ProjectPropertiesManager {
 
         @Override
         public ProjectProperties load(PropertiesLoadListener onLoadTask) {
-            CachedProperties result;
-            MAIN_LOCK.lock();
-            try {
-                result = PROPERTIES.get(this);
-            } finally {
-                MAIN_LOCK.unlock();
-            }
-
-            if (result == null) {
-                final CachedProperties newProperties = loadPropertiesAlways(project, propertiesFile);
-
-                MAIN_LOCK.lock();
-                try {
-                    result = PROPERTIES.get(this);
-                    if (result == null) {
-                        PROPERTIES.put(this, newProperties);
-                        result = newProperties;
-                    }
-                } finally {
-                    MAIN_LOCK.unlock();
+            CachedProperties result = PROPERTIES.getOrCreate(this, new WeakValueCache.ValueFactory<ProjectPropertySource, CachedProperties>() {
+                @Override
+                public CachedProperties createValue(ProjectPropertySource key) {
+                    return loadPropertiesAlways(project, propertiesFile);
                 }
-            }
-
-            assert result != null;
+            });
 
             if (onLoadTask != null) {
                 result.notifyOnLoad(onLoadTask);
@@ -220,72 +272,61 @@ public final class ProjectPropertiesManager {
 
         @Override
         public ProjectProperties load(final PropertiesLoadListener onLoadTask) {
-            CachedProperties result;
-            MAIN_LOCK.lock();
-            try {
-                result = PROPERTIES.get(this);
-            } finally {
-                MAIN_LOCK.unlock();
-            }
-
-            if (result == null) {
-                final AtomicReference<CachedProperties> resultRef
-                        = new AtomicReference<CachedProperties>(null);
-
-                final AtomicInteger subTaskCount = new AtomicInteger();
-                // Setting the value of resultRef is counted as a subTask as well.
-                // This resultForwarder will call onLoadTask only after all
-                // properties have been loaded.
-                final PropertiesLoadListener resultForwarder = new PropertiesLoadListener() {
-                    @Override
-                    public void loadedProperties(ProjectProperties properties) {
-                        if (subTaskCount.decrementAndGet() == 0 && onLoadTask != null) {
-                            CachedProperties loadedProperties = resultRef.get();
-                            if (loadedProperties == null) {
-                                String message = "Internal error while loading properties.";
-                                LOGGER.log(Level.SEVERE, message, new IllegalStateException(message));
-                                return;
-                            }
-                            loadedProperties.signalPropertiesLoaded();
-                        }
-                    }
-                };
-
-                ProjectProperties newProperties;
-                if (propertySources.length == 1) {
-                    subTaskCount.set(2);
-                    newProperties = propertySources[0].load(onLoadTask);
+            CachedProperties result = PROPERTIES.getOrCreate(this, new WeakValueCache.ValueFactory<ProjectPropertySource, CachedProperties>() {
+                @Override
+                public CachedProperties createValue(ProjectPropertySource key) {
+                    return loadAlways(onLoadTask);
                 }
-                else {
-                    subTaskCount.set(3);
+            });
 
-                    ProjectProperties mainProperties = propertySources[0].load(resultForwarder);
-                    ProjectProperties fallbackProperties
-                            = combineSources(propertySources, 1).load(resultForwarder);
+            if (onLoadTask != null) {
+                result.notifyOnLoad(onLoadTask);
+            }
 
-                    newProperties = new FallbackProjectProperties(mainProperties, fallbackProperties);
-                }
+            return result;
+        }
 
-                CachedProperties cachedNewProperties = new CachedProperties(newProperties);
-                MAIN_LOCK.lock();
-                try {
-                    result = PROPERTIES.get(this);
-                    if (result == null) {
-                        PROPERTIES.put(this, cachedNewProperties);
-                        result = cachedNewProperties;
+        private CachedProperties loadAlways(final PropertiesLoadListener onLoadTask) {
+            final AtomicReference<CachedProperties> resultRef
+                    = new AtomicReference<CachedProperties>(null);
+
+            final AtomicInteger subTaskCount = new AtomicInteger();
+            // Setting the value of resultRef is counted as a subTask as well.
+            // This resultForwarder will call onLoadTask only after all
+            // properties have been loaded.
+            final PropertiesLoadListener resultForwarder = new PropertiesLoadListener() {
+                @Override
+                public void loadedProperties(ProjectProperties properties) {
+                    if (subTaskCount.decrementAndGet() == 0 && onLoadTask != null) {
+                        CachedProperties loadedProperties = resultRef.get();
+                        if (loadedProperties == null) {
+                            String message = "Internal error while loading properties.";
+                            LOGGER.log(Level.SEVERE, message, new IllegalStateException(message));
+                            return;
+                        }
+                        loadedProperties.signalPropertiesLoaded();
                     }
-                } finally {
-                    MAIN_LOCK.unlock();
                 }
+            };
 
-                resultRef.set(result);
-                resultForwarder.loadedProperties(result);
+            ProjectProperties newProperties;
+            if (propertySources.length == 1) {
+                subTaskCount.set(2);
+                newProperties = propertySources[0].load(onLoadTask);
             }
+            else {
+                subTaskCount.set(3);
 
-            if (onLoadTask != null) {
-                result.notifyOnLoad(onLoadTask);
+                ProjectProperties mainProperties = propertySources[0].load(resultForwarder);
+                ProjectProperties fallbackProperties
+                        = combineSources(propertySources, 1).load(resultForwarder);
+
+                newProperties = new FallbackProjectProperties(mainProperties, fallbackProperties);
             }
 
+            CachedProperties result = new CachedProperties(newProperties);
+            resultRef.set(result);
+            resultForwarder.loadedProperties(result);
             return result;
         }
 
@@ -515,6 +556,11 @@ public final class ProjectPropertiesManager {
         public Collection<MutableProperty<?>> getAllProperties() {
             return properties.getAllProperties();
         }
+
+        @Override
+        public void runBatchUpdate(Runnable updateTask) {
+            properties.runBatchUpdate(updateTask);
+        }
     }
 
     private ProjectPropertiesManager() {
@@ -124,8 +124,15 @@ public final class ProjectPropertiesProxy extends AbstractProjectProperties {
                 ChangeListener reloadTask = new ChangeListener() {
                     @Override
                     public void stateChanged(ChangeEvent e) {
-                        propertiesRef.set(ProjectPropertiesManager.getProperties(project, loadedSignal));
-                        changes.fireChange();
+                        // Every property might have changed but listeners
+                        // should only be notified once.
+                        PropertyChangeBatch.runBatch(new Runnable() {
+                            @Override
+                            public void run() {
+                                propertiesRef.set(ProjectPropertiesManager.getProperties(project, loadedSignal));
+                                changes.fireChange();
+                            }
+                        });
                     }
                 };
 
@@ -306,13 +313,7 @@ public final class ProjectPropertiesProxy extends AbstractProjectProperties {
                     }
 
                     if (listenersCopy != null) {
-                        for (ChangeListener listener: listenersCopy) {
-                            try {
-                                listener.stateChanged(e);
-                            } catch (Throwable ex) {
-                                LOGGER.log(Level.SEVERE, "Unexpected exception in a listener.", ex);
-                            }
-                        }
+                        PropertyChangeBatch.fireChange(listenersCopy, e);
                     }
                 }
             };
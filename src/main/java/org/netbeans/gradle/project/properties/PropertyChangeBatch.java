@@ -0,0 +1,104 @@
+package org.netbeans.gradle.project.properties;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+
+/**
+ * Allows a group of property changes to be done as a single update. While a
+ * batch is running on a thread, the change listeners of the properties
+ * modified on that thread are not notified immediately. Instead, every
+ * listener is notified exactly once after the outermost batch completes,
+ * regardless how many of the properties it listens on were changed.
+ * <P>
+ * Batches are confined to the thread running them, so changes made by other
+ * threads are notified as usual.
+ *
+ * @see ProjectProperties#runBatchUpdate(Runnable)
+ */
+public final class PropertyChangeBatch {
+    private static final Logger LOGGER = Logger.getLogger(PropertyChangeBatch.class.getName());
+
+    private static final ThreadLocal<Map<ChangeListener, ChangeEvent>> PENDING_EVENTS
+            = new ThreadLocal<Map<ChangeListener, ChangeEvent>>();
+
+    /**
+     * Executes the given task as a single update. Batches may be nested, in
+     * which case listeners are only notified after the outermost batch.
+     */
+    public static void runBatch(Runnable task) {
+        if (task == null) throw new NullPointerException("task");
+
+        if (PENDING_EVENTS.get() != null) {
+            task.run();
+            return;
+        }
+
+        Map<ChangeListener, ChangeEvent> pendingEvents = new LinkedHashMap<ChangeListener, ChangeEvent>();
+        PENDING_EVENTS.set(pendingEvents);
+        try {
+            task.run();
+        } finally {
+            PENDING_EVENTS.remove();
+            notifyListeners(pendingEvents);
+        }
+    }
+
+    /**
+     * Notifies the given listener immediately if there is no batch running
+     * on the current thread. Otherwise the listener will be notified after
+     * the batch completes (once, even if this method is called multiple
+     * times).
+     */
+    public static void fireChange(ChangeListener listener, ChangeEvent event) {
+        if (listener == null) throw new NullPointerException("listener");
+        if (event == null) throw new NullPointerException("event");
+
+        Map<ChangeListener, ChangeEvent> pendingEvents = PENDING_EVENTS.get();
+        if (pendingEvents != null) {
+            if (!pendingEvents.containsKey(listener)) {
+                pendingEvents.put(listener, event);
+            }
+            return;
+        }
+
+        listener.stateChanged(event);
+    }
+
+    /**
+     * Notifies all the given listeners, possibly delaying them until the
+     * current batch completes.
+     *
+     * @see #fireChange(ChangeListener, ChangeEvent)
+     */
+    public static void fireChange(List<ChangeListener> listeners, ChangeEvent event) {
+        for (ChangeListener listener: listeners) {
+            try {
+                fireChange(listener, event);
+            } catch (Throwable ex) {
+                LOGGER.log(Level.SEVERE, "Unexpected exception in a listener.", ex);
+            }
+        }
+    }
+
+    private static void notifyListeners(Map<ChangeListener, ChangeEvent> pendingEvents) {
+        List<Map.Entry<ChangeListener, ChangeEvent>> toNotify
+                = new ArrayList<Map.Entry<ChangeListener, ChangeEvent>>(pendingEvents.entrySet());
+        for (Map.Entry<ChangeListener, ChangeEvent> entry: toNotify) {
+            try {
+                entry.getKey().stateChanged(entry.getValue());
+            } catch (Throwable ex) {
+                LOGGER.log(Level.SEVERE, "Unexpected exception in a listener.", ex);
+            }
+        }
+    }
+
+    private PropertyChangeBatch() {
+        throw new AssertionError();
+    }
+}
@@ -2,21 +2,24 @@ package org.netbeans.gradle.project.query;
 
 import java.io.File;
 import java.net.URL;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import org.netbeans.api.java.queries.JavadocForBinaryQuery;
+import org.netbeans.gradle.project.WeakValueCache;
 import org.netbeans.spi.java.queries.JavadocForBinaryQueryImplementation;
 import org.openide.filesystems.FileUtil;
 
 public abstract class AbstractJavadocForBinaryQuery implements JavadocForBinaryQueryImplementation {
-    // This cache cannot shrink because JavadocForBinaryQueryImplementation
-    // requires that we return the exact same object when the same URL is
-    // querried. This is a very limiting constraint but I don't want to risk to
-    // violate the constraint.
-    private final ConcurrentMap<File, JavadocForBinaryQuery.Result> cache;
+    private static final Logger LOGGER = Logger.getLogger(AbstractJavadocForBinaryQuery.class.getName());
+
+    // JavadocForBinaryQueryImplementation requires that we return the exact same
+    // object when the same URL is querried. However, nobody can notice if we
+    // return a different object after the previous one was garbage collected,
+    // so the results are only referenced weakly.
+    private final WeakValueCache<File, JavadocForBinaryQuery.Result> cache;
 
     public AbstractJavadocForBinaryQuery() {
-        this.cache = new ConcurrentHashMap<File, JavadocForBinaryQuery.Result>();
+        this.cache = new WeakValueCache<File, JavadocForBinaryQuery.Result>();
     }
 
     protected abstract JavadocForBinaryQuery.Result tryFindJavadoc(File binaryRoot);
@@ -38,7 +41,24 @@ public abstract class AbstractJavadocForBinaryQuery implements JavadocForBinaryQ
             return null;
         }
 
-        JavadocForBinaryQuery.Result oldResult = cache.putIfAbsent(binaryRootFile, result);
-        return oldResult != null ? oldResult : result;
+        result = cache.putIfAbsent(binaryRootFile, result);
+        logCacheSize();
+        return result;
+    }
+
+    private void logCacheSize() {
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.log(Level.FINE, "Number of cached results of {0}: {1}",
+                    new Object[]{getClass().getName(), getCachedResultCount()});
+        }
+    }
+
+    /**
+     * Returns the number of results returned by this query which are still
+     * referenced by someone (and are therefore cached). The number is logged
+     * (on the FINE level) whenever a new result is cached.
+     */
+    public final int getCachedResultCount() {
+        return cache.getLiveSize();
     }
 }
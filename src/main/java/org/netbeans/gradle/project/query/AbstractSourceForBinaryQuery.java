@@ -2,21 +2,24 @@ package org.netbeans.gradle.project.query;
 
 import java.io.File;
 import java.net.URL;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import org.netbeans.api.java.queries.SourceForBinaryQuery;
+import org.netbeans.gradle.project.WeakValueCache;
 import org.netbeans.spi.java.queries.SourceForBinaryQueryImplementation2;
 import org.openide.filesystems.FileUtil;
 
 public abstract class AbstractSourceForBinaryQuery implements SourceForBinaryQueryImplementation2 {
-    // This cache cannot shrink because SourceForBinaryQueryImplementation
-    // requires that we return the exact same object when the same URL is
-    // querried. This is a very limiting constraint but I don't want to risk to
-    // violate the constraint.
-    private final ConcurrentMap<File, Result> cache;
+    private static final Logger LOGGER = Logger.getLogger(AbstractSourceForBinaryQuery.class.getName());
+
+    // SourceForBinaryQueryImplementation requires that we return the exact same
+    // object when the same URL is querried. However, nobody can notice if we
+    // return a different object after the previous one was garbage collected,
+    // so the results are only referenced weakly.
+    private final WeakValueCache<File, Result> cache;
 
     public AbstractSourceForBinaryQuery() {
-        this.cache = new ConcurrentHashMap<File, Result>();
+        this.cache = new WeakValueCache<File, Result>();
     }
 
     protected abstract Result tryFindSourceRoot(File binaryRoot);
@@ -38,12 +41,29 @@ public abstract class AbstractSourceForBinaryQuery implements SourceForBinaryQue
             return null;
         }
 
-        Result oldResult = cache.putIfAbsent(binaryRootFile, result);
-        return oldResult != null ? oldResult : result;
+        result = cache.putIfAbsent(binaryRootFile, result);
+        logCacheSize();
+        return result;
+    }
+
+    private void logCacheSize() {
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.log(Level.FINE, "Number of cached results of {0}: {1}",
+                    new Object[]{getClass().getName(), getCachedResultCount()});
+        }
     }
 
     @Override
     public final SourceForBinaryQuery.Result findSourceRoots(URL binaryRoot) {
         return findSourceRoots2(binaryRoot);
     }
+
+    /**
+     * Returns the number of results returned by this query which are still
+     * referenced by someone (and are therefore cached). The number is logged
+     * (on the FINE level) whenever a new result is cached.
+     */
+    public final int getCachedResultCount() {
+        return cache.getLiveSize();
+    }
 }
@@ -0,0 +1,448 @@
+package org.netbeans.gradle.project.query;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Indexes the files of the artifact cache of Gradle by group, artifact name,
+ * version and classifier, so that the files of an artifact can be found
+ * without listing the directories of the cache.
+ * <P>
+ * The artifact cache of Gradle looks like this:
+ * <pre>
+ * GRADLE_USER_HOME/caches/CACHE_NAME/filestore/GROUP/NAME/VERSION/TYPE/HASH/FILE
+ * </pre>
+ * where {@code TYPE} is {@code jar}, {@code bundle}, {@code source},
+ * {@code javadoc} or {@code pom}. The classifier is determined from the file
+ * name: It is everything after "NAME-VERSION-" (without the extension).
+ * <P>
+ * Methods of this class are safe to be called from multiple threads
+ * concurrently.
+ */
+public final class GradleCacheIndex {
+    private static final String FILESTORE_DIR_NAME = "filestore";
+    private static final String DIR_LINE_PREFIX = "D ";
+    private static final String FILE_LINE_PREFIX = "F ";
+
+    // The number of directories between the "filestore" dir and the files.
+    // That is: GROUP, NAME, VERSION, TYPE and HASH.
+    private static final int FILE_DEPTH = 5;
+
+    private final Lock indexLock;
+    private final Set<File> filestoreDirs;
+    private final Map<ArtifactKey, List<File>> files;
+    private int fileCount;
+
+    public GradleCacheIndex() {
+        this.indexLock = new ReentrantLock();
+        this.filestoreDirs = new HashSet<File>();
+        this.files = new HashMap<ArtifactKey, List<File>>();
+        this.fileCount = 0;
+    }
+
+    /**
+     * Creates an index of every artifact file in the given {@code caches}
+     * directory of Gradle.
+     */
+    public static GradleCacheIndex scan(File cachesDir) {
+        GradleCacheIndex result = new GradleCacheIndex();
+        result.scanFilestoreDirs(findFilestoreDirs(cachesDir));
+        return result;
+    }
+
+    /**
+     * Returns the directories containing the artifacts in the given
+     * {@code caches} directory of Gradle.
+     */
+    public static List<File> findFilestoreDirs(File cachesDir) {
+        if (cachesDir == null) throw new NullPointerException("cachesDir");
+
+        File[] cacheDirs = cachesDir.listFiles();
+        if (cacheDirs == null) {
+            return Collections.emptyList();
+        }
+
+        List<File> result = new ArrayList<File>(cacheDirs.length);
+        for (File cacheDir: cacheDirs) {
+            File filestoreDir = new File(cacheDir, FILESTORE_DIR_NAME);
+            if (filestoreDir.isDirectory()) {
+                result.add(filestoreDir);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds every artifact file in the given directories (as returned by
+     * {@link #findFilestoreDirs(File) findFilestoreDirs}) to this index.
+     */
+    public void scanFilestoreDirs(Collection<File> filestoreDirs) {
+        if (filestoreDirs == null) throw new NullPointerException("filestoreDirs");
+
+        for (File filestoreDir: filestoreDirs) {
+            addFilestoreDir(filestoreDir);
+            addAllFiles(filestoreDir, FILE_DEPTH);
+        }
+    }
+
+    /**
+     * Reads an index previously written by {@link #writeTo(Writer)}.
+     */
+    public static GradleCacheIndex readFrom(BufferedReader reader) throws IOException {
+        if (reader == null) throw new NullPointerException("reader");
+
+        GradleCacheIndex result = new GradleCacheIndex();
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            if (line.startsWith(DIR_LINE_PREFIX)) {
+                result.addFilestoreDir(new File(line.substring(DIR_LINE_PREFIX.length())));
+            }
+            else if (line.startsWith(FILE_LINE_PREFIX)) {
+                result.addFile(new File(line.substring(FILE_LINE_PREFIX.length())));
+            }
+        }
+        return result;
+    }
+
+    public void writeTo(Writer writer) throws IOException {
+        if (writer == null) throw new NullPointerException("writer");
+
+        List<File> dirsCopy;
+        List<File> filesCopy;
+        indexLock.lock();
+        try {
+            dirsCopy = new ArrayList<File>(filestoreDirs);
+            filesCopy = new ArrayList<File>(fileCount);
+            for (List<File> artifactFiles: files.values()) {
+                filesCopy.addAll(artifactFiles);
+            }
+        } finally {
+            indexLock.unlock();
+        }
+
+        for (File dir: dirsCopy) {
+            writer.write(DIR_LINE_PREFIX);
+            writer.write(dir.getPath());
+            writer.write('\n');
+        }
+        for (File file: filesCopy) {
+            writer.write(FILE_LINE_PREFIX);
+            writer.write(file.getPath());
+            writer.write('\n');
+        }
+    }
+
+    public Set<File> getFilestoreDirs() {
+        indexLock.lock();
+        try {
+            return new HashSet<File>(filestoreDirs);
+        } finally {
+            indexLock.unlock();
+        }
+    }
+
+    public int getFileCount() {
+        indexLock.lock();
+        try {
+            return fileCount;
+        } finally {
+            indexLock.unlock();
+        }
+    }
+
+    private void addFilestoreDir(File filestoreDir) {
+        indexLock.lock();
+        try {
+            filestoreDirs.add(filestoreDir);
+        } finally {
+            indexLock.unlock();
+        }
+    }
+
+    private void addAllFiles(File dir, int depth) {
+        File[] children = dir.listFiles();
+        if (children == null) {
+            return;
+        }
+
+        for (File child: children) {
+            if (depth > 0) {
+                if (child.isDirectory()) {
+                    addAllFiles(child, depth - 1);
+                }
+            }
+            else if (child.isFile()) {
+                addFile(child);
+            }
+        }
+    }
+
+    /**
+     * Adds the given file or every file in the given directory (if it is a
+     * directory within the artifact cache) to the index.
+     */
+    public void addFileOrDir(File fileOrDir) {
+        if (fileOrDir == null) throw new NullPointerException("fileOrDir");
+
+        int depth = getDepthInFilestore(fileOrDir);
+        if (depth < 0) {
+            return;
+        }
+
+        if (fileOrDir.isDirectory()) {
+            if (depth < FILE_DEPTH) {
+                addAllFiles(fileOrDir, FILE_DEPTH - 1 - depth);
+            }
+        }
+        else if (depth == FILE_DEPTH) {
+            addFile(fileOrDir);
+        }
+    }
+
+    /**
+     * Adds the given file to the index. Files not in the layout of the
+     * artifact cache are ignored.
+     */
+    public void addFile(File file) {
+        if (file == null) throw new NullPointerException("file");
+
+        ArtifactKey key = ArtifactKey.tryGetKeyOfFile(file);
+        if (key == null) {
+            return;
+        }
+
+        indexLock.lock();
+        try {
+            List<File> artifactFiles = files.get(key);
+            if (artifactFiles == null) {
+                artifactFiles = new LinkedList<File>();
+                files.put(key, artifactFiles);
+            }
+            if (!artifactFiles.contains(file)) {
+                artifactFiles.add(file);
+                fileCount++;
+            }
+        } finally {
+            indexLock.unlock();
+        }
+    }
+
+    /**
+     * Removes the given file or every file in the given directory from the
+     * index.
+     */
+    public void removeFileOrDir(File fileOrDir) {
+        if (fileOrDir == null) throw new NullPointerException("fileOrDir");
+
+        ArtifactKey key = ArtifactKey.tryGetKeyOfFile(fileOrDir);
+        indexLock.lock();
+        try {
+            if (key != null) {
+                List<File> artifactFiles = files.get(key);
+                if (artifactFiles != null && artifactFiles.remove(fileOrDir)) {
+                    fileCount--;
+                    if (artifactFiles.isEmpty()) {
+                        files.remove(key);
+                    }
+                    return;
+                }
+            }
+
+            // This is a directory (or an unknown file) which is rare, so
+            // we can afford to check every file.
+            String dirPrefix = fileOrDir.getPath() + File.separatorChar;
+            Iterator<List<File>> artifactFilesItr = files.values().iterator();
+            while (artifactFilesItr.hasNext()) {
+                List<File> artifactFiles = artifactFilesItr.next();
+                Iterator<File> fileItr = artifactFiles.iterator();
+                while (fileItr.hasNext()) {
+                    if (fileItr.next().getPath().startsWith(dirPrefix)) {
+                        fileItr.remove();
+                        fileCount--;
+                    }
+                }
+                if (artifactFiles.isEmpty()) {
+                    artifactFilesItr.remove();
+                }
+            }
+        } finally {
+            indexLock.unlock();
+        }
+    }
+
+    private int getDepthInFilestore(File file) {
+        // This method is called on every lookup, so we must not copy the
+        // set of filestore directories here.
+        indexLock.lock();
+        try {
+            int depth = 0;
+            for (File current = file.getParentFile(); current != null; current = current.getParentFile()) {
+                if (filestoreDirs.contains(current)) {
+                    return depth;
+                }
+                depth++;
+            }
+            return -1;
+        } finally {
+            indexLock.unlock();
+        }
+    }
+
+    /**
+     * Returns {@code true} if the given {@code TYPE} directory is in an
+     * indexed part of the artifact cache. That is, if
+     * {@link #tryFindFile(File, String) tryFindFile} can be relied on for
+     * this directory.
+     */
+    public boolean isIndexedTypeDir(File typeDir) {
+        if (typeDir == null) throw new NullPointerException("typeDir");
+        return getDepthInFilestore(typeDir) == FILE_DEPTH - 2;
+    }
+
+    /**
+     * Returns the file with the given name in any of the hash directories of
+     * the given {@code TYPE} directory or {@code null} if there is no such
+     * file in the index.
+     */
+    public File tryFindFile(File typeDir, String fileName) {
+        if (typeDir == null) throw new NullPointerException("typeDir");
+        if (fileName == null) throw new NullPointerException("fileName");
+
+        ArtifactKey key = ArtifactKey.tryGetKey(typeDir.getParentFile(), fileName);
+        if (key == null) {
+            return null;
+        }
+
+        indexLock.lock();
+        try {
+            List<File> artifactFiles = files.get(key);
+            if (artifactFiles == null) {
+                return null;
+            }
+
+            for (File file: artifactFiles) {
+                if (fileName.equals(file.getName())
+                        && typeDir.equals(file.getParentFile().getParentFile())) {
+                    return file;
+                }
+            }
+            return null;
+        } finally {
+            indexLock.unlock();
+        }
+    }
+
+    static String getClassifier(String name, String version, String fileName) {
+        int extSeparatorIndex = fileName.lastIndexOf('.');
+        String baseName = extSeparatorIndex >= 0
+                ? fileName.substring(0, extSeparatorIndex)
+                : fileName;
+
+        String prefix = name + "-" + version;
+        if (!baseName.startsWith(prefix)) {
+            return baseName;
+        }
+
+        String classifier = baseName.substring(prefix.length());
+        return classifier.startsWith("-") ? classifier.substring(1) : classifier;
+    }
+
+    public static final class ArtifactKey {
+        private final String group;
+        private final String name;
+        private final String version;
+        private final String classifier;
+
+        public ArtifactKey(String group, String name, String version, String classifier) {
+            assert group != null;
+            assert name != null;
+            assert version != null;
+            assert classifier != null;
+
+            this.group = group;
+            this.name = name;
+            this.version = version;
+            this.classifier = classifier;
+        }
+
+        public static ArtifactKey tryGetKeyOfFile(File file) {
+            File hashDir = file.getParentFile();
+            File typeDir = hashDir != null ? hashDir.getParentFile() : null;
+            File versionDir = typeDir != null ? typeDir.getParentFile() : null;
+            return versionDir != null ? tryGetKey(versionDir, file.getName()) : null;
+        }
+
+        public static ArtifactKey tryGetKey(File versionDir, String fileName) {
+            if (versionDir == null) {
+                return null;
+            }
+
+            File nameDir = versionDir.getParentFile();
+            File groupDir = nameDir != null ? nameDir.getParentFile() : null;
+            if (groupDir == null) {
+                return null;
+            }
+
+            String name = nameDir.getName();
+            String version = versionDir.getName();
+            return new ArtifactKey(groupDir.getName(), name, version,
+                    GradleCacheIndex.getClassifier(name, version, fileName));
+        }
+
+        public String getGroup() {
+            return group;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+
+        public String getClassifier() {
+            return classifier;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 7;
+            hash = 41 * hash + group.hashCode();
+            hash = 41 * hash + name.hashCode();
+            hash = 41 * hash + version.hashCode();
+            hash = 41 * hash + classifier.hashCode();
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == null) return false;
+            if (getClass() != obj.getClass()) return false;
+
+            final ArtifactKey other = (ArtifactKey)obj;
+            return this.group.equals(other.group)
+                    && this.name.equals(other.name)
+                    && this.version.equals(other.version)
+                    && this.classifier.equals(other.classifier);
+        }
+
+        @Override
+        public String toString() {
+            return group + ":" + name + ":" + version + ":" + classifier;
+        }
+    }
+}
@@ -0,0 +1,390 @@
+package org.netbeans.gradle.project.query;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import org.openide.filesystems.FileAttributeEvent;
+import org.openide.filesystems.FileChangeListener;
+import org.openide.filesystems.FileEvent;
+import org.openide.filesystems.FileRenameEvent;
+import org.openide.filesystems.FileUtil;
+import org.openide.modules.Places;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Maintains the {@link GradleCacheIndex} of the artifact cache in the
+ * current Gradle user home directory.
+ * <P>
+ * The index is built in the background when it is first requested. Until it
+ * is available, callers have to fall back to listing the directories of the
+ * cache. The index is saved to the cache directory of NetBeans, so that it is
+ * available right after the IDE is started. The saved index is then replaced
+ * by a fresh one in the background (to pick up changes made while the IDE was
+ * not running) and kept up-to-date by listening for changes of the artifact
+ * cache. Until the fresh index is available, callers must not rely on the
+ * absence of a file in the index (see {@link #isIndexComplete()}). Even after
+ * that, changes made outside the IDE might not be noticed immediately, so
+ * callers should verify a missing (or removed) file on the disk.
+ */
+public final class GradleCacheIndexer {
+    private static final Logger LOGGER = Logger.getLogger(GradleCacheIndexer.class.getName());
+
+    private static final String CACHE_DIR_NAME = "gradle-cache-index";
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final int NOTIFY_DELAY_MS = 500;
+    private static final int SAVE_DELAY_MS = 10 * 1000;
+
+    private static final RequestProcessor INDEXER_PROCESSOR
+            = new RequestProcessor("Gradle-Cache-Indexer", 1, true);
+
+    private static final AtomicReference<IndexRef> CURRENT_INDEX = new AtomicReference<IndexRef>(null);
+    private static final AtomicBoolean LISTENING_FOR_HOME_CHANGE = new AtomicBoolean(false);
+
+    private static final RequestProcessor.Task NOTIFY_TASK = INDEXER_PROCESSOR.create(new Runnable() {
+        @Override
+        public void run() {
+            GradleCacheSourceForBinaryQuery.notifyCacheChange();
+            GradleCacheBinaryForSourceQuery.notifyCacheChange();
+            GradleCacheJavadocForBinaryQuery.notifyCacheChange();
+        }
+    });
+
+    private static final RequestProcessor.Task SAVE_TASK = INDEXER_PROCESSOR.create(new Runnable() {
+        @Override
+        public void run() {
+            IndexRef indexRef = CURRENT_INDEX.get();
+            if (indexRef != null) {
+                indexRef.saveIndex();
+            }
+        }
+    });
+
+    private static File getCachesDir(File gradleUserHome) {
+        return FileUtil.normalizeFile(new File(gradleUserHome, "caches"));
+    }
+
+    /**
+     * Returns the index of the artifact cache in the current Gradle user
+     * home directory or {@code null} if the index is not yet available. If the
+     * index is not yet available, this method starts building it in the
+     * background.
+     */
+    public static GradleCacheIndex tryGetIndex() {
+        File gradleUserHome = GradleFileUtils.GRADLE_USER_HOME.getValue();
+        if (gradleUserHome == null) {
+            return null;
+        }
+
+        File cachesDir = getCachesDir(gradleUserHome);
+
+        IndexRef indexRef = CURRENT_INDEX.get();
+        if (indexRef == null || !indexRef.cachesDir.equals(cachesDir)) {
+            IndexRef newIndexRef = new IndexRef(cachesDir);
+            if (CURRENT_INDEX.compareAndSet(indexRef, newIndexRef)) {
+                if (indexRef != null) {
+                    indexRef.close();
+                }
+                startListeningForHomeChange();
+                newIndexRef.startLoading();
+            }
+            return null;
+        }
+
+        return indexRef.index;
+    }
+
+    /**
+     * Returns {@code true} if the current index reflects every file of the
+     * artifact cache. That is, if the cache has been scanned during this
+     * session and changes of the cache are being listened for. Until then,
+     * a file missing from the index might still be in the cache.
+     */
+    public static boolean isIndexComplete() {
+        IndexRef indexRef = CURRENT_INDEX.get();
+        return indexRef != null && indexRef.complete;
+    }
+
+    /**
+     * Adds the files in the given directories of the artifact cache to the
+     * index (if it is available) and notifies the queries relying on the
+     * artifact cache. This method should be called after files were added to
+     * the artifact cache and their change events might not yet have been
+     * received. The change notifications are coalesced, so callers need not
+     * notify the queries separately.
+     */
+    public static void refreshDirs(Collection<File> dirs) {
+        if (dirs == null) throw new NullPointerException("dirs");
+
+        IndexRef indexRef = CURRENT_INDEX.get();
+        GradleCacheIndex index = indexRef != null ? indexRef.index : null;
+        if (index != null) {
+            for (File dir: dirs) {
+                index.addFileOrDir(FileUtil.normalizeFile(dir));
+            }
+            SAVE_TASK.schedule(SAVE_DELAY_MS);
+        }
+        NOTIFY_TASK.schedule(NOTIFY_DELAY_MS);
+    }
+
+    private static void startListeningForHomeChange() {
+        if (!LISTENING_FOR_HOME_CHANGE.compareAndSet(false, true)) {
+            return;
+        }
+
+        GradleFileUtils.GRADLE_USER_HOME.addChangeListener(new ChangeListener() {
+            @Override
+            public void stateChanged(ChangeEvent e) {
+                // The index will be rebuilt for the new directory
+                // when requested.
+                IndexRef indexRef = CURRENT_INDEX.getAndSet(null);
+                if (indexRef != null) {
+                    indexRef.close();
+                }
+            }
+        });
+    }
+
+    private static File getIndexFile(File cachesDir) {
+        File cacheDir = Places.getCacheSubdirectory(CACHE_DIR_NAME);
+        String fileName = Integer.toHexString(cachesDir.getAbsolutePath().hashCode()) + ".txt";
+        return new File(cacheDir, fileName);
+    }
+
+    private static GradleCacheIndex tryReadIndex(File cachesDir) throws IOException {
+        File indexFile = getIndexFile(cachesDir);
+        if (!indexFile.isFile()) {
+            return null;
+        }
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(indexFile), UTF8));
+        try {
+            String storedCachesDir = reader.readLine();
+            if (!cachesDir.getAbsolutePath().equals(storedCachesDir)) {
+                // Different directory with the same hash.
+                return null;
+            }
+            return GradleCacheIndex.readFrom(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static void writeIndex(File cachesDir, GradleCacheIndex index) throws IOException {
+        File indexFile = getIndexFile(cachesDir);
+        File tempFile = new File(indexFile.getPath() + ".tmp");
+
+        Writer writer = new OutputStreamWriter(new FileOutputStream(tempFile), UTF8);
+        try {
+            writer.write(cachesDir.getAbsolutePath());
+            writer.write('\n');
+            index.writeTo(writer);
+        } finally {
+            writer.close();
+        }
+
+        if (indexFile.exists() && !indexFile.delete()) {
+            throw new IOException("Failed to remove the previous index: " + indexFile);
+        }
+        if (!tempFile.renameTo(indexFile)) {
+            throw new IOException("Failed to rename " + tempFile + " to " + indexFile);
+        }
+    }
+
+    private static File tryGetFile(FileEvent event) {
+        return FileUtil.toFile(event.getFile());
+    }
+
+    private static final class IndexRef implements FileChangeListener {
+        public final File cachesDir;
+        public volatile GradleCacheIndex index;
+        public volatile boolean complete;
+        private volatile GradleCacheIndex scanningIndex;
+        private volatile boolean closed;
+        private Collection<File> listenedDirs;
+
+        public IndexRef(File cachesDir) {
+            assert cachesDir != null;
+
+            this.cachesDir = cachesDir;
+            this.index = null;
+            this.complete = false;
+            this.scanningIndex = null;
+            this.closed = false;
+            this.listenedDirs = null;
+        }
+
+        public void startLoading() {
+            INDEXER_PROCESSOR.post(new Runnable() {
+                @Override
+                public void run() {
+                    loadIndexNow();
+                }
+            }, 0, Thread.MIN_PRIORITY);
+        }
+
+        private void loadIndexNow() {
+            try {
+                GradleCacheIndex savedIndex = tryReadIndex(cachesDir);
+                if (savedIndex != null && !closed) {
+                    index = savedIndex;
+                    NOTIFY_TASK.schedule(0);
+                }
+            } catch (IOException ex) {
+                LOGGER.log(Level.INFO, "Failed to read the saved index of " + cachesDir, ex);
+            }
+
+            long startTime = System.currentTimeMillis();
+
+            // Start listening before scanning, so that files added during the
+            // scan are not missed. Changes received during the scan are
+            // applied to the index being built as well.
+            List<File> filestoreDirs = GradleCacheIndex.findFilestoreDirs(cachesDir);
+            startListening(filestoreDirs);
+
+            GradleCacheIndex newIndex = new GradleCacheIndex();
+            scanningIndex = newIndex;
+            newIndex.scanFilestoreDirs(filestoreDirs);
+            scanningIndex = null;
+            if (closed) {
+                return;
+            }
+
+            index = newIndex;
+            complete = true;
+            LOGGER.log(Level.INFO, "Indexed {0} files of {1} in {2} ms.", new Object[]{
+                newIndex.getFileCount(),
+                cachesDir,
+                System.currentTimeMillis() - startTime});
+
+            NOTIFY_TASK.schedule(0);
+            saveIndex();
+        }
+
+        private synchronized void startListening(Collection<File> dirs) {
+            if (closed) {
+                return;
+            }
+
+            for (File dir: dirs) {
+                FileUtil.addRecursiveListener(this, dir);
+            }
+            listenedDirs = dirs;
+        }
+
+        public void saveIndex() {
+            GradleCacheIndex currentIndex = index;
+            if (currentIndex == null || closed) {
+                return;
+            }
+
+            try {
+                writeIndex(cachesDir, currentIndex);
+            } catch (IOException ex) {
+                LOGGER.log(Level.INFO, "Failed to save the index of " + cachesDir, ex);
+            }
+        }
+
+        public synchronized void close() {
+            closed = true;
+            if (listenedDirs != null) {
+                for (File dir: listenedDirs) {
+                    FileUtil.removeRecursiveListener(this, dir);
+                }
+                listenedDirs = null;
+            }
+        }
+
+        private void onFileAdded(File file) {
+            if (file == null) {
+                return;
+            }
+
+            GradleCacheIndex currentScanningIndex = scanningIndex;
+            if (currentScanningIndex != null) {
+                currentScanningIndex.addFileOrDir(file);
+            }
+
+            GradleCacheIndex currentIndex = index;
+            if (currentIndex != null) {
+                currentIndex.addFileOrDir(file);
+                onIndexChange();
+            }
+        }
+
+        private void onFileRemoved(File file) {
+            if (file == null) {
+                return;
+            }
+
+            GradleCacheIndex currentScanningIndex = scanningIndex;
+            if (currentScanningIndex != null) {
+                currentScanningIndex.removeFileOrDir(file);
+            }
+
+            GradleCacheIndex currentIndex = index;
+            if (currentIndex != null) {
+                currentIndex.removeFileOrDir(file);
+                onIndexChange();
+            }
+        }
+
+        private void onIndexChange() {
+            NOTIFY_TASK.schedule(NOTIFY_DELAY_MS);
+            SAVE_TASK.schedule(SAVE_DELAY_MS);
+        }
+
+        @Override
+        public void fileFolderCreated(FileEvent fe) {
+            onFileAdded(tryGetFile(fe));
+        }
+
+        @Override
+        public void fileDataCreated(FileEvent fe) {
+            onFileAdded(tryGetFile(fe));
+        }
+
+        @Override
+        public void fileChanged(FileEvent fe) {
+        }
+
+        @Override
+        public void fileDeleted(FileEvent fe) {
+            onFileRemoved(tryGetFile(fe));
+        }
+
+        @Override
+        public void fileRenamed(FileRenameEvent fe) {
+            File newFile = tryGetFile(fe);
+            if (newFile == null) {
+                return;
+            }
+
+            String oldExt = fe.getExt();
+            String oldNameExt = oldExt.isEmpty() ? fe.getName() : fe.getName() + "." + oldExt;
+            onFileRemoved(new File(newFile.getParentFile(), oldNameExt));
+            onFileAdded(newFile);
+        }
+
+        @Override
+        public void fileAttributeChanged(FileAttributeEvent fe) {
+        }
+    }
+
+    private GradleCacheIndexer() {
+        throw new AssertionError();
+    }
+}
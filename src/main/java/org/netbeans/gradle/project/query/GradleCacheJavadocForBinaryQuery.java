@@ -0,0 +1,127 @@
+package org.netbeans.gradle.project.query;
+
+import java.io.File;
+import java.net.URL;
+import javax.swing.SwingUtilities;
+import javax.swing.event.ChangeListener;
+import org.netbeans.api.java.queries.JavadocForBinaryQuery;
+import org.netbeans.spi.java.queries.JavadocForBinaryQueryImplementation;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+import org.openide.util.ChangeSupport;
+import org.openide.util.lookup.ServiceProvider;
+import org.openide.util.lookup.ServiceProviders;
+
+@ServiceProviders({@ServiceProvider(service = JavadocForBinaryQueryImplementation.class)})
+public final class GradleCacheJavadocForBinaryQuery extends AbstractJavadocForBinaryQuery {
+    private static final URL[] NO_ROOTS = new URL[0];
+    private static final ChangeSupport CHANGES;
+
+    static {
+        EventSource eventSource = new EventSource();
+        CHANGES = new ChangeSupport(eventSource);
+        eventSource.init(CHANGES);
+    }
+
+    public GradleCacheJavadocForBinaryQuery() {
+    }
+
+    public static void notifyCacheChange() {
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                CHANGES.fireChange();
+            }
+        });
+    }
+
+    @Override
+    protected JavadocForBinaryQuery.Result tryFindJavadoc(File binaryRoot) {
+        File gradleUserHome = GradleFileUtils.GRADLE_USER_HOME.getValue();
+        if (gradleUserHome == null) {
+            return null;
+        }
+
+        final FileObject binaryRootObj = FileUtil.toFileObject(binaryRoot);
+        if (binaryRootObj == null) {
+            return null;
+        }
+
+        FileObject cacheHome = FileUtil.toFileObject(gradleUserHome);
+        if (cacheHome == null || !FileUtil.isParentOf(cacheHome, binaryRootObj)) {
+            return null;
+        }
+
+        FileObject hashDir = binaryRootObj.getParent();
+        if (hashDir == null) {
+            return null;
+        }
+
+        FileObject binDir = hashDir.getParent();
+        if (binDir == null) {
+            return null;
+        }
+
+        if (!GradleFileUtils.canBeBinaryDirName(binDir.getNameExt())) {
+            return null;
+        }
+
+        final FileObject artifactRoot = binDir.getParent();
+        if (artifactRoot == null) {
+            return null;
+        }
+
+        return new JavadocForBinaryQuery.Result() {
+            @Override
+            public URL[] getRoots() {
+                // The cache directory of Gradle looks like this:
+                //
+                // ...... \\javadoc\\HASH_OF_JAVADOC\\binary-javadoc.jar
+                // ...... \\packaging type\\HASH_OF_BINARY\\binary.jar
+                FileObject javadocDir = artifactRoot.getFileObject(GradleFileUtils.JAVADOC_DIR_NAME);
+                if (javadocDir == null) {
+                    return NO_ROOTS;
+                }
+
+                String javadocFileName = GradleFileUtils.binaryToJavadocName(binaryRootObj);
+
+                FileObject javadocFile = GradleFileUtils.getFileFromASubDir(javadocDir, javadocFileName);
+                return javadocFile != null ? new URL[]{javadocFile.toURL()} : NO_ROOTS;
+            }
+
+            @Override
+            public void addChangeListener(ChangeListener l) {
+                CHANGES.addChangeListener(l);
+            }
+
+            @Override
+            public void removeChangeListener(ChangeListener l) {
+                CHANGES.removeChangeListener(l);
+            }
+        };
+    }
+
+    private static final class EventSource implements JavadocForBinaryQuery.Result {
+        private volatile ChangeSupport changes;
+
+        public void init(ChangeSupport changes) {
+            assert changes != null;
+            this.changes = changes;
+        }
+
+        @Override
+        public URL[] getRoots() {
+            return NO_ROOTS;
+        }
+
+        @Override
+        public void addChangeListener(ChangeListener l) {
+            changes.addChangeListener(l);
+        }
+
+        @Override
+        public void removeChangeListener(ChangeListener l) {
+            changes.removeChangeListener(l);
+        }
+    }
+}
@@ -25,6 +25,8 @@ public final class GradleFileUtils {
     public static final String POM_DIR_NAME = "pom";
     public static final String SOURCE_DIR_NAME = "source";
     public static final String SOURCES_CLASSIFIER = "-sources";
+    public static final String JAVADOC_DIR_NAME = "javadoc";
+    public static final String JAVADOC_CLASSIFIER = "-javadoc";
 
     private static File getUserHome() {
         String userHome = System.getProperty("user.home");
@@ -106,7 +108,8 @@ public final class GradleFileUtils {
         if (dirName == null) throw new NullPointerException("dirName");
 
         boolean result = !POM_DIR_NAME.equals(dirName)
-                && !SOURCE_DIR_NAME.equals(dirName);
+                && !SOURCE_DIR_NAME.equals(dirName)
+                && !JAVADOC_DIR_NAME.equals(dirName);
         if (result && LOGGER.isLoggable(Level.WARNING)) {
             if (!BINARY_DIR_NAMES.contains(dirName)) {
                 LOGGER.log(Level.WARNING, "{0} is assumed to be a possible binary container folder of the cache.", dirName);
@@ -121,6 +124,12 @@ public final class GradleFileUtils {
         return binFileName + SOURCES_CLASSIFIER + "." + binFileExt;
     }
 
+    public static String binaryToJavadocName(FileObject binaryPath) {
+        String binFileName = binaryPath.getName();
+        String binFileExt = binaryPath.getExt();
+        return binFileName + JAVADOC_CLASSIFIER + "." + binFileExt;
+    }
+
     public static String sourceToBinaryName(FileObject sourcePath) {
         String srcFileName = sourcePath.getName();
         if (!srcFileName.endsWith(SOURCES_CLASSIFIER)) {
@@ -151,16 +160,41 @@ public final class GradleFileUtils {
             return null;
         }
 
+        GradleCacheIndex index = GradleCacheIndexer.tryGetIndex();
+        boolean indexed = index != null && index.isIndexedTypeDir(rootDir);
+        if (indexed) {
+            File file = index.tryFindFile(rootDir, fileName);
+            FileObject fileObj = file != null ? FileUtil.toFileObject(file) : null;
+            if (fileObj != null) {
+                return asArchiveOrDir(fileObj);
+            }
+            if (file != null && !file.exists()) {
+                index.removeFileOrDir(file);
+            }
+
+            // The entry is stale (the file was removed) or the file is not
+            // in the index. Even a complete index might miss files (e.g.:
+            // files downloaded by a build executed outside the IDE) until
+            // we are notified of them, so we always fall back to listing the
+            // directory. A miss is rare compared to the number of hits.
+        }
+
         File[] subDirs = rootDir.listFiles(new FileFilter() {
             @Override
             public boolean accept(File pathname) {
                 return pathname.isDirectory();
             }
         });
+        if (subDirs == null) {
+            return null;
+        }
 
         for (File dir: subDirs) {
             File srcFileName = new File(dir, fileName);
             if (srcFileName.isFile()) {
+                if (indexed) {
+                    index.addFile(srcFileName);
+                }
                 return asArchiveOrDir(FileUtil.toFileObject(srcFileName));
             }
         }
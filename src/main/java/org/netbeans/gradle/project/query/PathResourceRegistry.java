@@ -0,0 +1,223 @@
+package org.netbeans.gradle.project.query;
+
+import java.io.File;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.netbeans.gradle.project.properties.WeakValueHashMap;
+import org.netbeans.spi.java.classpath.PathResourceImplementation;
+import org.netbeans.spi.java.classpath.support.ClassPathSupport;
+import org.openide.filesystems.FileUtil;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Shares {@code PathResourceImplementation} instances between class paths of
+ * every project. In large multi-project builds, the same jars are on the class
+ * paths of almost every project, so sharing them saves memory and the work
+ * of converting the same file to a URL over and over again.
+ * <P>
+ * The URL of a file is remembered along with the last modification time and
+ * the size of the file and is only recalculated if either of them changes.
+ * The resources themselves are only referenced weakly, so they are kept as
+ * long as there is a class path referencing them.
+ * <P>
+ * Methods of this class are safe to be called from multiple threads
+ * concurrently.
+ */
+public final class PathResourceRegistry {
+    private static final Logger LOGGER = Logger.getLogger(PathResourceRegistry.class.getName());
+
+    private static final int MAX_CACHED_FILE_COUNT = 20000;
+    private static final int RESOLVER_THREAD_COUNT = 8;
+    // Below this, it is not worth to bother with other threads.
+    private static final int MIN_FILES_PER_THREAD = 16;
+
+    private static final RequestProcessor RESOLVER
+            = new RequestProcessor("Gradle-ClassPath-Resolver", RESOLVER_THREAD_COUNT, true);
+
+    private static final Lock REGISTRY_LOCK = new ReentrantLock();
+    private static final Map<File, ArchiveInfo> FILE_INFOS = new LinkedHashMap<File, ArchiveInfo>(1024, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<File, ArchiveInfo> eldest) {
+            return size() > MAX_CACHED_FILE_COUNT;
+        }
+    };
+    // URL.equals and URL.hashCode might try to resolve host names, so
+    // the external form of the URLs are used as keys.
+    private static final Map<String, PathResourceImplementation> URL_RESOURCES
+            = new WeakValueHashMap<String, PathResourceImplementation>();
+
+    private static ArchiveInfo tryGetCachedInfo(File file) {
+        REGISTRY_LOCK.lock();
+        try {
+            return FILE_INFOS.get(file);
+        } finally {
+            REGISTRY_LOCK.unlock();
+        }
+    }
+
+    private static void setCachedInfo(File file, ArchiveInfo info) {
+        REGISTRY_LOCK.lock();
+        try {
+            if (info != null) {
+                FILE_INFOS.put(file, info);
+            }
+            else {
+                FILE_INFOS.remove(file);
+            }
+        } finally {
+            REGISTRY_LOCK.unlock();
+        }
+    }
+
+    private static URL tryGetUrl(File file) {
+        long lastModified = file.lastModified();
+        long length = file.length();
+
+        ArchiveInfo cachedInfo = tryGetCachedInfo(file);
+        if (cachedInfo != null && cachedInfo.isUpToDate(lastModified, length)) {
+            return cachedInfo.url;
+        }
+
+        URL url = FileUtil.urlForArchiveOrDir(file);
+        setCachedInfo(file, url != null ? new ArchiveInfo(lastModified, length, url) : null);
+        return url;
+    }
+
+    /**
+     * Returns the shared resource for the given jar or directory or
+     * {@code null} if the file cannot be converted to a class path entry.
+     */
+    public static PathResourceImplementation tryGetResource(File file) {
+        if (file == null) throw new NullPointerException("file");
+
+        URL url = tryGetUrl(file);
+        return url != null ? getResource(url) : null;
+    }
+
+    private static void addResources(Collection<File> files, Map<File, PathResourceImplementation> result) {
+        for (File file: files) {
+            PathResourceImplementation resource = tryGetResource(file);
+            if (resource != null) {
+                result.put(file, resource);
+            }
+        }
+    }
+
+    /**
+     * Returns the shared resources of the given jars and directories. Files
+     * which cannot be converted to a class path entry are not contained in
+     * the returned map.
+     * <P>
+     * Since the files need to be checked on the file system (which can be
+     * slow, if it is a network drive), larger collections are processed
+     * concurrently by a limited number of background threads.
+     */
+    public static Map<File, PathResourceImplementation> getResources(Collection<File> files) {
+        if (files == null) throw new NullPointerException("files");
+
+        final Map<File, PathResourceImplementation> result
+                = new ConcurrentHashMap<File, PathResourceImplementation>(2 * files.size() + 1);
+
+        int threadCount = Math.min(RESOLVER_THREAD_COUNT, files.size() / MIN_FILES_PER_THREAD);
+        if (threadCount <= 1) {
+            addResources(files, result);
+            return result;
+        }
+
+        List<List<File>> batches = new ArrayList<List<File>>(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            batches.add(new ArrayList<File>(files.size() / threadCount + 1));
+        }
+
+        int fileIndex = 0;
+        for (File file: files) {
+            batches.get(fileIndex % threadCount).add(file);
+            fileIndex++;
+        }
+
+        final CountDownLatch doneSignal = new CountDownLatch(threadCount);
+        for (final List<File> batch: batches) {
+            RESOLVER.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        addResources(batch, result);
+                    } finally {
+                        doneSignal.countDown();
+                    }
+                }
+            });
+        }
+
+        boolean interrupted = false;
+        while (true) {
+            try {
+                doneSignal.await();
+                break;
+            } catch (InterruptedException ex) {
+                // The result must be complete regardless, so we only
+                // preserve the interrupted status.
+                interrupted = true;
+            }
+        }
+
+        if (interrupted) {
+            LOGGER.log(Level.FINE, "Interrupted while waiting for the class path entries.");
+            Thread.currentThread().interrupt();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the shared resource for the given class path root.
+     */
+    public static PathResourceImplementation getResource(URL url) {
+        if (url == null) throw new NullPointerException("url");
+
+        String key = url.toExternalForm();
+
+        REGISTRY_LOCK.lock();
+        try {
+            PathResourceImplementation result = URL_RESOURCES.get(key);
+            if (result == null) {
+                result = ClassPathSupport.createResource(url);
+                URL_RESOURCES.put(key, result);
+            }
+            return result;
+        } finally {
+            REGISTRY_LOCK.unlock();
+        }
+    }
+
+    private static final class ArchiveInfo {
+        private final long lastModified;
+        private final long length;
+        public final URL url;
+
+        public ArchiveInfo(long lastModified, long length, URL url) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.url = url;
+        }
+
+        public boolean isUpToDate(long currentLastModified, long currentLength) {
+            return lastModified == currentLastModified && length == currentLength;
+        }
+    }
+
+    private PathResourceRegistry() {
+        throw new AssertionError();
+    }
+}
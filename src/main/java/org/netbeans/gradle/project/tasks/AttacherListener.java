@@ -18,6 +18,7 @@ import org.netbeans.gradle.project.api.property.GradleProperty;
 import org.netbeans.gradle.project.java.JavaExtension;
 import org.netbeans.gradle.project.java.model.NbDependencyType;
 import org.netbeans.gradle.project.java.model.NbJavaDependency;
+import org.netbeans.gradle.project.java.model.NbJavaModel;
 import org.netbeans.gradle.project.java.model.NbJavaModelUtils;
 import org.netbeans.gradle.project.java.model.NbJavaModule;
 import org.netbeans.gradle.project.java.model.NbModuleDependency;
@@ -42,7 +43,8 @@ public final class AttacherListener implements DebugTextListener.DebugeeListener
     }
 
     private ClassPath getSources() {
-        NbJavaModule mainModule = javaExt.getCurrentModel().getMainModule();
+        NbJavaModel projectModel = javaExt.getCurrentModel();
+        NbJavaModule mainModule = projectModel.getMainModule();
         List<FileObject> srcRoots = new LinkedList<FileObject>();
 
         srcRoots.addAll(mainModule.getSources(NbSourceType.SOURCE).getFileObjects());
@@ -50,8 +52,7 @@ public final class AttacherListener implements DebugTextListener.DebugeeListener
             srcRoots.addAll(mainModule.getSources(NbSourceType.TEST_SOURCE).getFileObjects());
         }
 
-        Collection<NbJavaDependency> allDependencies = NbJavaModelUtils.getAllDependencies(
-                mainModule,
+        Collection<NbJavaDependency> allDependencies = projectModel.getAllDependencies(
                 test ? NbDependencyType.TEST_RUNTIME : NbDependencyType.RUNTIME);
 
         for (NbJavaDependency dependency: allDependencies) {
@@ -0,0 +1,186 @@
+package org.netbeans.gradle.project.tasks;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import org.netbeans.gradle.project.CollectionUtils;
+import org.netbeans.gradle.project.NbStrings;
+
+public final class BuildProfile {
+    private static final int TIMELINE_WIDTH = 40;
+    private static final int MAX_SLOWEST_TASK_COUNT = 5;
+
+    private final long totalMillis;
+    private final List<TaskExecution> tasks;
+
+    public BuildProfile(long totalMillis, List<TaskExecution> tasks) {
+        if (totalMillis < 0) throw new IllegalArgumentException("totalMillis: " + totalMillis);
+
+        this.totalMillis = totalMillis;
+        this.tasks = CollectionUtils.copyNullSafeList(tasks);
+    }
+
+    public long getTotalMillis() {
+        return totalMillis;
+    }
+
+    /**
+     * Returns the executed tasks in the order they were started.
+     */
+    public List<TaskExecution> getTasks() {
+        return tasks;
+    }
+
+    public List<TaskExecution> getSlowestTasks(int maxCount) {
+        List<TaskExecution> result = new ArrayList<TaskExecution>(tasks);
+        Collections.sort(result, new Comparator<TaskExecution>() {
+            @Override
+            public int compare(TaskExecution o1, TaskExecution o2) {
+                long duration1 = o1.getDurationMillis();
+                long duration2 = o2.getDurationMillis();
+                if (duration1 == duration2) return 0;
+                return duration1 > duration2 ? -1 : 1;
+            }
+        });
+        return result.size() > maxCount
+                ? result.subList(0, maxCount)
+                : result;
+    }
+
+    private static void appendPadded(StringBuilder result, String str, int width) {
+        result.append(str);
+        for (int i = str.length(); i < width; i++) {
+            result.append(' ');
+        }
+    }
+
+    private int toTimelinePos(long millis) {
+        if (totalMillis <= 0) {
+            return 0;
+        }
+        int result = (int)(millis * TIMELINE_WIDTH / totalMillis);
+        return Math.min(result, TIMELINE_WIDTH);
+    }
+
+    private String getTimelineBar(TaskExecution task) {
+        int startPos = toTimelinePos(task.getStartMillis());
+        int endPos = toTimelinePos(task.getStartMillis() + task.getDurationMillis());
+        if (endPos <= startPos) {
+            endPos = Math.min(startPos + 1, TIMELINE_WIDTH);
+            startPos = endPos - 1;
+        }
+
+        StringBuilder result = new StringBuilder(TIMELINE_WIDTH + 2);
+        result.append('|');
+        for (int i = 0; i < TIMELINE_WIDTH; i++) {
+            result.append(i >= startPos && i < endPos ? '#' : '.');
+        }
+        result.append('|');
+        return result.toString();
+    }
+
+    private int getMaxTaskPathLength() {
+        int result = 0;
+        for (TaskExecution task: tasks) {
+            result = Math.max(result, task.getTaskPath().length());
+        }
+        return result;
+    }
+
+    /**
+     * Prints the slowest tasks and a timeline of all the executed tasks.
+     *
+     * @param output the writer to print the profile to. This argument cannot
+     *   be {@code null}.
+     * @param previousAverages the average execution times (in milliseconds)
+     *   of tasks in previous builds mapped to the path of the task. This
+     *   argument cannot be {@code null} but may be empty.
+     */
+    public void print(PrintWriter output, Map<String, Long> previousAverages) {
+        if (output == null) throw new NullPointerException("output");
+        if (previousAverages == null) throw new NullPointerException("previousAverages");
+
+        if (tasks.isEmpty()) {
+            return;
+        }
+
+        int pathWidth = getMaxTaskPathLength() + 2;
+
+        output.println();
+        output.println(NbStrings.getSlowestTasksCaption(totalMillis));
+        for (TaskExecution task: getSlowestTasks(MAX_SLOWEST_TASK_COUNT)) {
+            StringBuilder line = new StringBuilder(128);
+            line.append("  ");
+            appendPadded(line, task.getTaskPath(), pathWidth);
+            line.append(task.getDurationMillis());
+            line.append(" ms");
+            if (task.isUpToDate()) {
+                line.append(" (UP-TO-DATE)");
+            }
+
+            Long average = previousAverages.get(task.getTaskPath());
+            if (average != null) {
+                line.append(" ");
+                line.append(NbStrings.getPreviousAverageTaskTime(average));
+            }
+            output.println(line.toString());
+        }
+
+        output.println();
+        output.println(NbStrings.getTaskTimelineCaption());
+        for (TaskExecution task: tasks) {
+            StringBuilder line = new StringBuilder(128);
+            line.append("  ");
+            appendPadded(line, task.getTaskPath(), pathWidth);
+            line.append(getTimelineBar(task));
+            line.append(' ');
+            line.append(task.getDurationMillis());
+            line.append(" ms");
+            output.println(line.toString());
+        }
+    }
+
+    public static final class TaskExecution {
+        private final String taskPath;
+        private final long startMillis;
+        private final long durationMillis;
+        private final boolean upToDate;
+
+        public TaskExecution(String taskPath, long startMillis, long durationMillis, boolean upToDate) {
+            if (taskPath == null) throw new NullPointerException("taskPath");
+
+            this.taskPath = taskPath;
+            this.startMillis = startMillis;
+            this.durationMillis = durationMillis;
+            this.upToDate = upToDate;
+        }
+
+        public String getTaskPath() {
+            return taskPath;
+        }
+
+        /**
+         * Returns the time elapsed between the start of the build and the
+         * start of this task.
+         */
+        public long getStartMillis() {
+            return startMillis;
+        }
+
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+
+        public boolean isUpToDate() {
+            return upToDate;
+        }
+
+        @Override
+        public String toString() {
+            return taskPath + " (" + durationMillis + " ms" + (upToDate ? ", UP-TO-DATE)" : ")");
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package org.netbeans.gradle.project.tasks;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.openide.modules.Places;
+
+/**
+ * Stores the task execution times of the last few successful builds of each
+ * project, so that build regressions can be spotted.
+ * <P>
+ * The history of a project is stored in a single file in the cache
+ * directory of NetBeans. The first line of the file is the path of the project
+ * directory and each subsequent line is a build in the following format:
+ * {@code <build time>\t<total millis>\t<task path>=<millis>=<up-to-date>;...}
+ */
+public final class BuildProfileHistory {
+    private static final Logger LOGGER = Logger.getLogger(BuildProfileHistory.class.getName());
+
+    private static final String CACHE_DIR_NAME = "gradle-build-profiles";
+    private static final int MAX_HISTORY_SIZE = 20;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final Lock HISTORY_LOCK = new ReentrantLock();
+
+    private static File getHistoryFile(File projectDir) {
+        File cacheDir = Places.getCacheSubdirectory(CACHE_DIR_NAME);
+        String fileName = Integer.toHexString(projectDir.getAbsolutePath().hashCode()) + ".txt";
+        return new File(cacheDir, fileName);
+    }
+
+    private static List<String> readBuildLines(File projectDir, File historyFile) throws IOException {
+        if (!historyFile.isFile()) {
+            return new LinkedList<String>();
+        }
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(historyFile), UTF8));
+        try {
+            String storedProjectDir = reader.readLine();
+            if (!projectDir.getAbsolutePath().equals(storedProjectDir)) {
+                // Different project with the same hash. Simply overwrite it.
+                return new LinkedList<String>();
+            }
+
+            List<String> result = new LinkedList<String>();
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (!line.isEmpty()) {
+                    result.add(line);
+                }
+            }
+            return result;
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static void writeBuildLines(File projectDir, File historyFile, List<String> lines) throws IOException {
+        Writer writer = new OutputStreamWriter(new FileOutputStream(historyFile), UTF8);
+        try {
+            writer.write(projectDir.getAbsolutePath());
+            writer.write('\n');
+            for (String line: lines) {
+                writer.write(line);
+                writer.write('\n');
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    static String toHistoryLine(long buildTime, BuildProfile profile) {
+        StringBuilder result = new StringBuilder(256);
+        result.append(buildTime);
+        result.append('\t');
+        result.append(profile.getTotalMillis());
+        result.append('\t');
+
+        boolean first = true;
+        for (BuildProfile.TaskExecution task: profile.getTasks()) {
+            if (!first) {
+                result.append(';');
+            }
+            first = false;
+
+            result.append(task.getTaskPath());
+            result.append('=');
+            result.append(task.getDurationMillis());
+            result.append('=');
+            result.append(task.isUpToDate());
+        }
+        return result.toString();
+    }
+
+    static void addToAverages(String historyLine, Map<String, long[]> sumAndCount) {
+        String[] fields = historyLine.split("\t");
+        if (fields.length < 3) {
+            return;
+        }
+
+        for (String taskEntry: fields[2].split(";")) {
+            String[] taskFields = taskEntry.split("=");
+            if (taskFields.length != 3) {
+                continue;
+            }
+
+            // Up-to-date tasks would just distort the average.
+            if (Boolean.parseBoolean(taskFields[2])) {
+                continue;
+            }
+
+            long duration;
+            try {
+                duration = Long.parseLong(taskFields[1]);
+            } catch (NumberFormatException ex) {
+                continue;
+            }
+
+            long[] entry = sumAndCount.get(taskFields[0]);
+            if (entry == null) {
+                entry = new long[2];
+                sumAndCount.put(taskFields[0], entry);
+            }
+            entry[0] += duration;
+            entry[1]++;
+        }
+    }
+
+    /**
+     * Returns the average execution time of the tasks (which were not
+     * up-to-date) in the recorded builds of the given project.
+     */
+    public static Map<String, Long> getAverageDurations(File projectDir) {
+        if (projectDir == null) throw new NullPointerException("projectDir");
+
+        List<String> lines;
+        HISTORY_LOCK.lock();
+        try {
+            lines = readBuildLines(projectDir, getHistoryFile(projectDir));
+        } catch (IOException ex) {
+            LOGGER.log(Level.INFO, "Failed to read the build profile history of " + projectDir, ex);
+            return Collections.emptyMap();
+        } finally {
+            HISTORY_LOCK.unlock();
+        }
+
+        Map<String, long[]> sumAndCount = new HashMap<String, long[]>();
+        for (String line: lines) {
+            addToAverages(line, sumAndCount);
+        }
+
+        Map<String, Long> result = new HashMap<String, Long>(2 * sumAndCount.size());
+        for (Map.Entry<String, long[]> entry: sumAndCount.entrySet()) {
+            long[] value = entry.getValue();
+            result.put(entry.getKey(), value[0] / value[1]);
+        }
+        return result;
+    }
+
+    public static void addProfile(File projectDir, BuildProfile profile) {
+        if (projectDir == null) throw new NullPointerException("projectDir");
+        if (profile == null) throw new NullPointerException("profile");
+
+        String newLine = toHistoryLine(System.currentTimeMillis(), profile);
+
+        HISTORY_LOCK.lock();
+        try {
+            File historyFile = getHistoryFile(projectDir);
+            List<String> lines = readBuildLines(projectDir, historyFile);
+            lines.add(newLine);
+            while (lines.size() > MAX_HISTORY_SIZE) {
+                lines.remove(0);
+            }
+            writeBuildLines(projectDir, historyFile, lines);
+        } catch (IOException ex) {
+            LOGGER.log(Level.INFO, "Failed to save the build profile history of " + projectDir, ex);
+        } finally {
+            HISTORY_LOCK.unlock();
+        }
+    }
+
+    private BuildProfileHistory() {
+        throw new AssertionError();
+    }
+}
@@ -0,0 +1,223 @@
+package org.netbeans.gradle.project.tasks;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.gradle.tooling.GradleConnectionException;
+import org.gradle.tooling.GradleConnector;
+import org.gradle.tooling.ModelBuilder;
+import org.gradle.tooling.ProjectConnection;
+import org.gradle.tooling.ResultHandler;
+import org.gradle.tooling.model.build.BuildEnvironment;
+import org.netbeans.api.progress.ProgressHandle;
+import org.netbeans.gradle.project.NbGradleProject;
+import org.netbeans.gradle.project.NbStrings;
+import org.netbeans.gradle.project.model.GradleModelLoader;
+import org.netbeans.gradle.project.model.NbGradleModel;
+import org.netbeans.gradle.project.properties.GlobalGradleSettings;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Starts the Gradle daemon in the background after a project has been opened,
+ * so that the first build of the project does not have to wait for the
+ * daemon to start.
+ * <P>
+ * The daemon is started by requesting the cheapest model available
+ * ({@code BuildEnvironment}) using the same JVM arguments and Java home which
+ * are used for loading the project and executing tasks. Otherwise, Gradle
+ * would have to start a new daemon for the build anyway.
+ * <P>
+ * The daemon is warmed up at most once for each root project, Java home and
+ * JVM arguments (within an hour). It is also not
+ * warmed up if a model was loaded (not from the cache) with the same
+ * configuration, because that already started the daemon.
+ * <P>
+ * Note that the version of the Tooling API we use does not support
+ * cancellation: Canceling the warm-up only stops waiting for the daemon, the
+ * task still waits for the pending request when closing the connection.
+ */
+public final class GradleDaemonWarmUp {
+    private static final Logger LOGGER = Logger.getLogger(GradleDaemonWarmUp.class.getName());
+
+    private static final RequestProcessor WARM_UP_PROCESSOR
+            = new RequestProcessor("Gradle-Daemon-Warm-Up", 1, true);
+
+    private static final Executor LOW_PRIORITY_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            WARM_UP_PROCESSOR.post(command, 0, Thread.MIN_PRIORITY);
+        }
+    };
+
+    // The daemon is stopped after being idle for some time (3 hours by
+    // default), so we do not consider the daemon to be running forever.
+    private static final long DAEMON_WARM_DURATION_MS = TimeUnit.HOURS.toMillis(1);
+
+    private static final ConcurrentMap<List<Object>, Long> STARTED_DAEMONS
+            = new ConcurrentHashMap<List<Object>, Long>();
+
+    private static List<Object> getDaemonKey(NbGradleProject project) {
+        File projectDir = project.getProjectDirectoryAsFile();
+        File settingsFile = NbGradleModel.findSettingsGradle(projectDir);
+        File rootDir = settingsFile != null ? settingsFile.getParentFile() : null;
+
+        return Arrays.<Object>asList(
+                rootDir != null ? rootDir : projectDir,
+                GradleModelLoader.getScriptJavaHome(project),
+                GlobalGradleSettings.getGradleJvmArgs().getValue());
+    }
+
+    private static boolean isRecentlyStarted(Long startTime) {
+        return startTime != null
+                && System.currentTimeMillis() - startTime < DAEMON_WARM_DURATION_MS;
+    }
+
+    /**
+     * Tries to mark the daemon of the given key as started and returns
+     * {@code true} if it was not started recently before this call.
+     */
+    private static boolean tryMarkStarted(List<Object> daemonKey) {
+        long now = System.currentTimeMillis();
+        while (true) {
+            Long prevStartTime = STARTED_DAEMONS.putIfAbsent(daemonKey, now);
+            if (prevStartTime == null) {
+                return true;
+            }
+            if (isRecentlyStarted(prevStartTime)) {
+                return false;
+            }
+            if (STARTED_DAEMONS.replace(daemonKey, prevStartTime, now)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Notifies this class that a Gradle daemon was started (or used) for
+     * the given project by something other than warming up, so there is no
+     * need to warm it up.
+     */
+    public static void daemonStarted(NbGradleProject project) {
+        if (project == null) throw new NullPointerException("project");
+
+        STARTED_DAEMONS.put(getDaemonKey(project), System.currentTimeMillis());
+    }
+
+    /**
+     * Submits a cancellable background task starting the Gradle daemon for
+     * the given project, if this was enabled in the global settings.
+     */
+    public static void warmUpDaemon(final NbGradleProject project) {
+        if (project == null) throw new NullPointerException("project");
+
+        if (!GlobalGradleSettings.getWarmUpDaemon().getValue()) {
+            return;
+        }
+
+        final List<Object> daemonKey = getDaemonKey(project);
+        if (!tryMarkStarted(daemonKey)) {
+            LOGGER.log(Level.FINE, "The Gradle daemon has already been started for {0}", daemonKey);
+            return;
+        }
+
+        String caption = NbStrings.getWarmingUpDaemonCaption(project.getDisplayName());
+        // Submitting it as a non-blocking task prevents it from running
+        // concurrently with other Gradle commands, which would start another
+        // daemon for themselves.
+        GradleDaemonManager.submitGradleTask(LOW_PRIORITY_EXECUTOR, caption, new DaemonTask() {
+            @Override
+            public void run(ProgressHandle progress) {
+                if (!warmUpDaemonNow(project)) {
+                    STARTED_DAEMONS.remove(daemonKey);
+                }
+            }
+        }, true, GradleTasks.projectTaskCompleteListener(project));
+    }
+
+    // Returns true if the daemon was started.
+    private static boolean warmUpDaemonNow(NbGradleProject project) {
+        File projectDir = project.getProjectDirectoryAsFile();
+
+        GradleConnector gradleConnector = GradleModelLoader.createGradleConnector(project);
+        gradleConnector.forProjectDirectory(projectDir);
+
+        long startTime = System.nanoTime();
+        ProjectConnection projectConnection = null;
+        try {
+            projectConnection = gradleConnector.connect();
+            ModelBuilder<BuildEnvironment> builder = projectConnection.model(BuildEnvironment.class);
+
+            File jdkHome = GradleModelLoader.getScriptJavaHome(project);
+            if (jdkHome != null && !jdkHome.getPath().isEmpty()) {
+                builder.setJavaHome(jdkHome);
+            }
+
+            List<String> globalJvmArgs = GlobalGradleSettings.getGradleJvmArgs().getValue();
+            if (globalJvmArgs != null && !globalJvmArgs.isEmpty()) {
+                builder.setJvmArguments(globalJvmArgs.toArray(new String[0]));
+            }
+
+            if (!waitForModel(builder)) {
+                LOGGER.log(Level.INFO, "Warming up the Gradle daemon was canceled for {0}", projectDir);
+                return false;
+            }
+
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+            LOGGER.log(Level.INFO, "The Gradle daemon was warmed up for {0} in {1} ms.",
+                    new Object[]{projectDir, elapsedMillis});
+            return true;
+        } catch (GradleConnectionException ex) {
+            LOGGER.log(Level.INFO, "Failed to warm up the Gradle daemon for " + projectDir, ex);
+            return false;
+        } finally {
+            // Note: This waits for the pending request to complete even if
+            // the task was canceled.
+            if (projectConnection != null) {
+                projectConnection.close();
+            }
+        }
+    }
+
+    // Returns false if the thread was interrupted (i.e., the user canceled
+    // the task) before the daemon was started.
+    private static boolean waitForModel(ModelBuilder<BuildEnvironment> builder) {
+        final CountDownLatch doneSignal = new CountDownLatch(1);
+        final GradleConnectionException[] failureRef = new GradleConnectionException[1];
+
+        builder.get(new ResultHandler<BuildEnvironment>() {
+            @Override
+            public void onComplete(BuildEnvironment result) {
+                doneSignal.countDown();
+            }
+
+            @Override
+            public void onFailure(GradleConnectionException failure) {
+                failureRef[0] = failure;
+                doneSignal.countDown();
+            }
+        });
+
+        try {
+            doneSignal.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+
+        if (failureRef[0] != null) {
+            throw failureRef[0];
+        }
+        return true;
+    }
+
+    private GradleDaemonWarmUp() {
+        throw new AssertionError();
+    }
+}
@@ -7,6 +7,7 @@ import java.util.List;
 import org.netbeans.gradle.project.CollectionUtils;
 import org.netbeans.gradle.project.NbGradleProject;
 import org.netbeans.gradle.project.api.task.ContextAwareCommandAction;
+import org.netbeans.gradle.project.api.task.ContextAwareCommandArguments;
 import org.netbeans.gradle.project.api.task.ContextAwareCommandFinalizer;
 import org.netbeans.gradle.project.api.task.CustomCommandActions;
 import org.netbeans.gradle.project.api.task.GradleCommandTemplate;
@@ -334,6 +335,12 @@ public final class GradleTaskDef {
         TaskOutputProcessor stdErrProcessor = customActions.getStdErrProcessor();
         builder.setStdErrListener(outputProcessorToLineVisitor(stdErrProcessor));
 
+        ContextAwareCommandArguments contextAwareArguments = customActions.getContextAwareArguments();
+        if (contextAwareArguments != null) {
+            List<String> extraArguments = contextAwareArguments.getCommandArguments(project, actionContext);
+            builder.addArguments(processList(extraArguments, varReplaceMap));
+        }
+
         ContextAwareCommandAction contextAwareAction = customActions.getContextAwareAction();
         if (contextAwareAction != null) {
             ContextAwareCommandFinalizer finalizer = contextAwareAction.startCommand(project, actionContext);
@@ -123,6 +123,12 @@ public final class GradleTasks {
         buildOutput.println();
     }
 
+    private static void printBuildProfile(File projectDir, BuildProfile profile, OutputWriter buildOutput) {
+        Map<String, Long> previousAverages = BuildProfileHistory.getAverageDurations(projectDir);
+        profile.print(buildOutput, previousAverages);
+        BuildProfileHistory.addProfile(projectDir, profile);
+    }
+
     private static void configureBuildLauncher(
             NbGradleProject project,
             BuildLauncher buildLauncher,
@@ -244,11 +250,21 @@ public final class GradleTasks {
                         }
                         printCommand(buildOutput, command, taskDef);
 
+                        TaskExecutionProfiler profiler = null;
+                        if (GlobalGradleSettings.getShowBuildProfile().getValue()) {
+                            profiler = new TaskExecutionProfiler();
+                            buildLauncher.addProgressListener(profiler);
+                        }
+
                         OutputRef outputRef = configureOutput(project, taskDef, buildLauncher, ioRef);
                         try {
                             ioRef.getIo().select();
                             buildLauncher.run();
 
+                            if (profiler != null) {
+                                printBuildProfile(projectDir, profiler.finish(), buildOutput);
+                            }
+
                             taskDef.getCommandFinalizer().finalizeSuccessfulCommand(buildOutput, ioRef.getErrRef());
                         } finally {
                             // This close method will only forward the last lines
@@ -0,0 +1,158 @@
+package org.netbeans.gradle.project.tasks;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.gradle.tooling.ProgressEvent;
+import org.gradle.tooling.ProgressListener;
+
+/**
+ * Collects the progress events of a single build and derives the execution
+ * time of the tasks from them.
+ * <P>
+ * The Tooling API does not notify us when a task starts or completes, so we
+ * assume that a task is being executed from the first event whose description
+ * refers to the task until the first event not referring to the same task.
+ */
+public final class TaskExecutionProfiler implements ProgressListener {
+    private static final String[] EXECUTE_PREFIXES = {"Execute ", "Executing "};
+    private static final String[] UP_TO_DATE_MARKERS = {"UP-TO-DATE", "SKIPPED"};
+
+    private final long startNanos;
+    private final Lock eventsLock;
+    private final List<Event> events;
+
+    public TaskExecutionProfiler() {
+        this(System.nanoTime());
+    }
+
+    // Used by tests to avoid relying on the system clock.
+    TaskExecutionProfiler(long startNanos) {
+        this.startNanos = startNanos;
+        this.eventsLock = new ReentrantLock();
+        this.events = new LinkedList<Event>();
+    }
+
+    @Override
+    public void statusChanged(ProgressEvent event) {
+        recordEvent(event.getDescription(), System.nanoTime());
+    }
+
+    void recordEvent(String description, long nanoTime) {
+        Event event = new Event(description != null ? description : "", nanoTime);
+
+        eventsLock.lock();
+        try {
+            events.add(event);
+        } finally {
+            eventsLock.unlock();
+        }
+    }
+
+    private static String removeExecutePrefix(String description) {
+        for (String prefix: EXECUTE_PREFIXES) {
+            if (description.startsWith(prefix)) {
+                return description.substring(prefix.length()).trim();
+            }
+        }
+        return description;
+    }
+
+    /**
+     * Returns the path of the task the given progress description refers to
+     * or {@code null} if the description does not refer to a task.
+     */
+    static String tryGetTaskPath(String description) {
+        String trimmed = removeExecutePrefix(description.trim());
+        if (!trimmed.startsWith(":")) {
+            return null;
+        }
+
+        int pathEnd = 0;
+        while (pathEnd < trimmed.length() && !Character.isWhitespace(trimmed.charAt(pathEnd))) {
+            pathEnd++;
+        }
+
+        return pathEnd > 1 ? trimmed.substring(0, pathEnd) : null;
+    }
+
+    static boolean isUpToDate(String description) {
+        String upperCase = description.toUpperCase(Locale.US);
+        for (String marker: UP_TO_DATE_MARKERS) {
+            if (upperCase.contains(marker)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long toRelativeMillis(long nanoTime) {
+        return TimeUnit.NANOSECONDS.toMillis(Math.max(0, nanoTime - startNanos));
+    }
+
+    public BuildProfile finish() {
+        return finish(System.nanoTime());
+    }
+
+    BuildProfile finish(long endNanos) {
+        List<Event> currentEvents;
+        eventsLock.lock();
+        try {
+            currentEvents = new ArrayList<Event>(events);
+        } finally {
+            eventsLock.unlock();
+        }
+
+        List<BuildProfile.TaskExecution> tasks = new LinkedList<BuildProfile.TaskExecution>();
+
+        String currentTask = null;
+        long currentTaskStart = 0;
+        boolean currentUpToDate = false;
+
+        for (Event event: currentEvents) {
+            String taskPath = tryGetTaskPath(event.description);
+            if (currentTask != null && currentTask.equals(taskPath)) {
+                currentUpToDate = currentUpToDate || isUpToDate(event.description);
+                continue;
+            }
+
+            if (currentTask != null) {
+                tasks.add(createExecution(currentTask, currentTaskStart, event.nanoTime, currentUpToDate));
+            }
+
+            currentTask = taskPath;
+            currentTaskStart = event.nanoTime;
+            currentUpToDate = taskPath != null && isUpToDate(event.description);
+        }
+
+        if (currentTask != null) {
+            tasks.add(createExecution(currentTask, currentTaskStart, endNanos, currentUpToDate));
+        }
+
+        return new BuildProfile(toRelativeMillis(endNanos), tasks);
+    }
+
+    private BuildProfile.TaskExecution createExecution(
+            String taskPath,
+            long startTime,
+            long endTime,
+            boolean upToDate) {
+        long startMillis = toRelativeMillis(startTime);
+        long durationMillis = TimeUnit.NANOSECONDS.toMillis(Math.max(0, endTime - startTime));
+        return new BuildProfile.TaskExecution(taskPath, startMillis, durationMillis, upToDate);
+    }
+
+    private static final class Event {
+        public final String description;
+        public final long nanoTime;
+
+        public Event(String description, long nanoTime) {
+            this.description = description;
+            this.nanoTime = nanoTime;
+        }
+    }
+}
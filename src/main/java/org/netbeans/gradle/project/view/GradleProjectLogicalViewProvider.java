@@ -31,6 +31,7 @@ import org.netbeans.gradle.project.NbStrings;
 import org.netbeans.gradle.project.ProjectExtensionRef;
 import org.netbeans.gradle.project.ProjectInfo;
 import org.netbeans.gradle.project.ProjectInfo.Kind;
+import org.netbeans.gradle.project.ProjectInfoManager;
 import org.netbeans.gradle.project.api.entry.GradleProjectExtension;
 import org.netbeans.gradle.project.api.nodes.GradleProjectContextActions;
 import org.netbeans.gradle.project.api.task.CustomCommandActions;
@@ -149,6 +150,7 @@ public final class GradleProjectLogicalViewProvider implements LogicalViewProvid
     private final class GradleProjectNode extends FilterNode {
         @SuppressWarnings("VolatileArrayField")
         private volatile Action[] actions;
+        private volatile CachedIcon cachedIcon;
 
         public GradleProjectNode(Node node) {
             super(node, createChildren(), createLookup(node));
@@ -237,8 +239,23 @@ public final class GradleProjectLogicalViewProvider implements LogicalViewProvid
 
         @Override
         public Image getIcon(int type) {
+            // This method is called on every repaint, so the icon (and its
+            // tooltip) is only recomputed if the informations have changed.
+            ProjectInfoManager infoManager = project.getProjectInfoManager();
+            long infoVersion = infoManager.getVersion();
+
+            CachedIcon currentIcon = cachedIcon;
+            if (currentIcon != null && currentIcon.infoVersion == infoVersion) {
+                return currentIcon.icon;
+            }
+
+            Image icon = createIcon(infoManager.getInformations());
+            cachedIcon = new CachedIcon(infoVersion, icon);
+            return icon;
+        }
+
+        private Image createIcon(Collection<ProjectInfo> infos) {
             Image icon = NbIcons.getGradleIcon();
-            Collection<ProjectInfo> infos = project.getProjectInfoManager().getInformations();
             if (!infos.isEmpty()) {
                 Map<ProjectInfo.Kind, List<String>> infoMap
                         = new EnumMap<ProjectInfo.Kind, List<String>>(ProjectInfo.Kind.class);
@@ -282,6 +299,16 @@ public final class GradleProjectLogicalViewProvider implements LogicalViewProvid
         }
     }
 
+    private static final class CachedIcon {
+        public final long infoVersion;
+        public final Image icon;
+
+        public CachedIcon(long infoVersion, Image icon) {
+            this.infoVersion = infoVersion;
+            this.icon = icon;
+        }
+    }
+
     @Override
     public Node findPath(Node root, Object target) {
         // The implementation of this method is mostly a copy-paste from the
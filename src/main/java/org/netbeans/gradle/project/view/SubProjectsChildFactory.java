@@ -2,11 +2,11 @@ package org.netbeans.gradle.project.view;
 
 import java.awt.Image;
 import java.awt.event.ActionEvent;
+import java.text.CollationKey;
 import java.text.Collator;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 import java.util.logging.Logger;
 import javax.swing.AbstractAction;
@@ -14,7 +14,6 @@ import javax.swing.Action;
 import org.netbeans.gradle.project.NbGradleProject;
 import org.netbeans.gradle.project.NbIcons;
 import org.netbeans.gradle.project.NbStrings;
-import org.netbeans.gradle.project.api.nodes.SingleNodeFactory;
 import org.netbeans.gradle.project.java.model.NbJavaModelUtils;
 import org.netbeans.gradle.project.model.GradleProjectInfo;
 import org.openide.loaders.DataFolder;
@@ -26,7 +25,12 @@ import org.openide.util.ContextAwareAction;
 import org.openide.util.Lookup;
 import org.openide.util.lookup.Lookups;
 
-public final class SubProjectsChildFactory extends ChildFactory<SingleNodeFactory> {
+/**
+ * Lists the subprojects of a project. The nodes of the subprojects (and the
+ * child factories of their subprojects) are only created when the parent
+ * node is expanded, and the subprojects are only sorted at that time.
+ */
+public final class SubProjectsChildFactory extends ChildFactory<GradleProjectInfo> {
     private static final Logger LOGGER = Logger.getLogger(SubProjectsChildFactory.class.getName());
     private static final Collator STR_SMP = Collator.getInstance();
 
@@ -38,42 +42,41 @@ public final class SubProjectsChildFactory extends ChildFactory<SingleNodeFactor
 
         this.project = project;
         this.subProjects = new ArrayList<GradleProjectInfo>(subProjects);
-        sortModules(this.subProjects);
 
         for (GradleProjectInfo subProject: this.subProjects) {
             if (subProject == null) throw new NullPointerException("project");
         }
     }
 
-    private static void sortModules(List<GradleProjectInfo> modules) {
-        Collections.sort(modules, new Comparator<GradleProjectInfo>(){
-            @Override
-            public int compare(GradleProjectInfo o1, GradleProjectInfo o2) {
-                return STR_SMP.compare(o1.getGradleProject().getName(), o2.getGradleProject().getName());
-            }
-        });
+    private static List<GradleProjectInfo> sortModules(List<GradleProjectInfo> modules) {
+        // Compute the collation key of each name only once, instead of
+        // comparing the names with the Collator in each comparison.
+        List<SortableModule> sortableModules = new ArrayList<SortableModule>(modules.size());
+        for (GradleProjectInfo module: modules) {
+            sortableModules.add(new SortableModule(module));
+        }
+        Collections.sort(sortableModules);
+
+        List<GradleProjectInfo> result = new ArrayList<GradleProjectInfo>(sortableModules.size());
+        for (SortableModule module: sortableModules) {
+            result.add(module.module);
+        }
+        return result;
     }
 
     @Override
-    protected Node createNodeForKey(SingleNodeFactory key) {
-        return key.createNode();
+    protected Node createNodeForKey(GradleProjectInfo subProject) {
+        if (subProject.getChildren().isEmpty()) {
+            return new SubModuleNode(project, subProject);
+        }
+        else {
+            return new SubModuleWithChildren(project, subProject);
+        }
     }
 
     @Override
-    protected boolean createKeys(List<SingleNodeFactory> toPopulate) {
-        for (final GradleProjectInfo subProject: subProjects) {
-            toPopulate.add(new SingleNodeFactory() {
-                @Override
-                public Node createNode() {
-                    if (subProject.getChildren().isEmpty()) {
-                        return new SubModuleNode(project, subProject);
-                    }
-                    else {
-                        return new SubModuleWithChildren(project, subProject);
-                    }
-                }
-            });
-        }
+    protected boolean createKeys(List<GradleProjectInfo> toPopulate) {
+        toPopulate.addAll(sortModules(subProjects));
         return true;
     }
 
@@ -94,9 +97,23 @@ public final class SubProjectsChildFactory extends ChildFactory<SingleNodeFactor
         return OpenProjectsAction.createFromModules(caption, projects);
     }
 
+    private static final class SortableModule implements Comparable<SortableModule> {
+        public final GradleProjectInfo module;
+        private final CollationKey nameKey;
+
+        public SortableModule(GradleProjectInfo module) {
+            this.module = module;
+            this.nameKey = STR_SMP.getCollationKey(module.getGradleProject().getName());
+        }
+
+        @Override
+        public int compareTo(SortableModule other) {
+            return nameKey.compareTo(other.nameKey);
+        }
+    }
+
     private static class SubModuleWithChildren extends FilterNode {
         private final GradleProjectInfo module;
-        private final List<GradleProjectInfo> immediateChildren;
         private final List<GradleProjectInfo> children;
 
         public SubModuleWithChildren(NbGradleProject project, GradleProjectInfo module) {
@@ -112,7 +129,6 @@ public final class SubProjectsChildFactory extends ChildFactory<SingleNodeFactor
                     createSubprojectsChild(project, children),
                     Lookups.fixed(module));
             this.module = module;
-            this.immediateChildren = Collections.unmodifiableList(NbJavaModelUtils.getAllChildren(module));
             this.children = Collections.unmodifiableList(new ArrayList<GradleProjectInfo>(children));
         }
 
@@ -123,6 +139,11 @@ public final class SubProjectsChildFactory extends ChildFactory<SingleNodeFactor
 
         @Override
         public Action[] getActions(boolean context) {
+            // All the subprojects are only collected when they are needed
+            // because it requires traversing the whole subtree.
+            List<GradleProjectInfo> immediateChildren
+                    = Collections.unmodifiableList(NbJavaModelUtils.getAllChildren(module));
+
             return new Action[] {
                 new OpenSubProjectAction(),
                 createOpenAction(NbStrings.getOpenImmediateSubProjectsCaption(), immediateChildren),
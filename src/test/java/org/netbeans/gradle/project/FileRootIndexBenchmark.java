@@ -0,0 +1,128 @@
+package org.netbeans.gradle.project;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.netbeans.gradle.project.api.entry.TestUtils;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares the performance of looking up the source root of a file in a
+ * {@link FileRootIndex} with checking every root one by one (as
+ * {@code GradleClassPathProvider.findClassPath} did before using the index).
+ * This benchmark is not run by default because it takes a long time and
+ * verifies nothing but the measured times. Remove the {@code Ignore}
+ * annotation to run it.
+ */
+@Ignore("Benchmark: Run it manually.")
+public class FileRootIndexBenchmark {
+    private static final Logger LOGGER = Logger.getLogger(FileRootIndexBenchmark.class.getName());
+
+    private static final int MODULE_COUNT = 500;
+    private static final String[] SOURCE_SET_NAMES = {"main", "test"};
+    private static final String[] ROOT_NAMES = {"java", "resources", "groovy"};
+
+    private File tempDir;
+
+    @Before
+    public void setUp() throws IOException {
+        tempDir = File.createTempFile("file-root-index-benchmark", "");
+        if (!tempDir.delete() || !tempDir.mkdir()) {
+            throw new IOException("Failed to create temporary directory: " + tempDir);
+        }
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        TestUtils.recursiveDelete(tempDir);
+    }
+
+    private static FileObject createDir(File dir) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Failed to create directory: " + dir);
+        }
+        return FileUtil.toFileObject(FileUtil.normalizeFile(dir));
+    }
+
+    private static String findRootLinear(List<FileObject> roots, List<String> values, FileObject file) {
+        int rootCount = roots.size();
+        for (int i = 0; i < rootCount; i++) {
+            if (FileUtil.getRelativePath(roots.get(i), file) != null) {
+                return values.get(i);
+            }
+        }
+        return null;
+    }
+
+    @Test
+    public void benchmarkAgainstLinearScan() throws IOException {
+        List<FileObject> roots = new ArrayList<FileObject>();
+        List<String> values = new ArrayList<String>();
+        List<FileObject> files = new ArrayList<FileObject>();
+
+        FileRootIndex.Builder<String> builder = new FileRootIndex.Builder<String>();
+        for (int i = 0; i < MODULE_COUNT; i++) {
+            File moduleDir = new File(tempDir, "module" + i);
+            for (String sourceSet: SOURCE_SET_NAMES) {
+                for (String rootName: ROOT_NAMES) {
+                    File rootDir = new File(new File(new File(moduleDir, "src"), sourceSet), rootName);
+                    String value = i + "/" + sourceSet + "/" + rootName;
+
+                    roots.add(createDir(rootDir));
+                    values.add(value);
+                    builder.addRoot(rootDir, value);
+
+                    files.add(createDir(new File(new File(rootDir, "org"), "pckg")));
+                }
+            }
+        }
+        FileRootIndex<String> index = builder.create();
+
+        int iterationCount = 20;
+
+        // Warm up both implementations before measuring.
+        for (int i = 0; i < iterationCount; i++) {
+            for (FileObject file: files) {
+                findRootLinear(roots, values, file);
+                index.tryGetValue(file);
+            }
+        }
+
+        long linearStart = System.nanoTime();
+        for (int i = 0; i < iterationCount; i++) {
+            for (FileObject file: files) {
+                findRootLinear(roots, values, file);
+            }
+        }
+        long indexStart = System.nanoTime();
+        for (int i = 0; i < iterationCount; i++) {
+            for (FileObject file: files) {
+                index.tryGetValue(file);
+            }
+        }
+        long end = System.nanoTime();
+
+        long lookupCount = (long)iterationCount * files.size();
+        LOGGER.log(Level.INFO,
+                "Source root lookup among {0} roots, average of {1} lookups (ns): linear scan {2}, index {3}",
+                new Object[]{
+                    roots.size(),
+                    lookupCount,
+                    (indexStart - linearStart) / lookupCount,
+                    (end - indexStart) / lookupCount});
+
+        for (FileObject file: files) {
+            assertEquals(findRootLinear(roots, values, file), index.tryGetValue(file));
+        }
+    }
+}
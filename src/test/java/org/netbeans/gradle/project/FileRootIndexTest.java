@@ -0,0 +1,91 @@
+package org.netbeans.gradle.project;
+
+import java.io.File;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FileRootIndexTest {
+    private static final File BASE_DIR = new File(new File("").getAbsoluteFile(), "file-root-index-test");
+
+    private static File file(String... subPaths) {
+        File result = BASE_DIR;
+        for (String subPath: subPaths) {
+            result = new File(result, subPath);
+        }
+        return result;
+    }
+
+    @Test
+    public void testEmptyIndex() {
+        FileRootIndex<String> index = FileRootIndex.empty();
+        assertEquals(0, index.getRootCount());
+        assertNull(index.tryGetValue(file("src")));
+    }
+
+    @Test
+    public void testFindsContainingRoot() {
+        FileRootIndex.Builder<String> builder = new FileRootIndex.Builder<String>();
+        builder.addRoot(file("src", "main", "java"), "source");
+        builder.addRoot(file("src", "test", "java"), "test");
+        FileRootIndex<String> index = builder.create();
+
+        assertEquals("source", index.tryGetValue(file("src", "main", "java")));
+        assertEquals("source", index.tryGetValue(file("src", "main", "java", "pckg", "Test.java")));
+        assertEquals("test", index.tryGetValue(file("src", "test", "java", "pckg", "Test.java")));
+        assertNull(index.tryGetValue(file("src", "main")));
+        assertNull(index.tryGetValue(file("src", "main", "javax", "Test.java")));
+        assertNull(index.tryGetValue(file("src", "main", "jav")));
+    }
+
+    @Test
+    public void testDeepestRootWins() {
+        FileRootIndex.Builder<String> builder = new FileRootIndex.Builder<String>();
+        builder.addRoot(file("src", "main"), "outer");
+        builder.addRoot(file("src", "main", "java"), "inner");
+        FileRootIndex<String> index = builder.create();
+
+        assertEquals("outer", index.tryGetValue(file("src", "main", "resources", "a.txt")));
+        assertEquals("inner", index.tryGetValue(file("src", "main", "java", "A.java")));
+    }
+
+    @Test
+    public void testFirstValueOfTheSameRootWins() {
+        FileRootIndex.Builder<String> builder = new FileRootIndex.Builder<String>();
+        builder.addRoot(file("shared"), "first");
+        builder.addRoot(file("shared"), "second");
+        FileRootIndex<String> index = builder.create();
+
+        assertEquals(1, index.getRootCount());
+        assertEquals("first", index.tryGetValue(file("shared", "A.java")));
+    }
+
+    @Test
+    public void testManyModules() {
+        int moduleCount = 500;
+        String[] rootNames = {"java", "resources", "groovy"};
+        String[] sourceSetNames = {"main", "test"};
+
+        FileRootIndex.Builder<String> builder = new FileRootIndex.Builder<String>();
+        for (int i = 0; i < moduleCount; i++) {
+            for (String sourceSet: sourceSetNames) {
+                for (String rootName: rootNames) {
+                    String value = i + "/" + sourceSet + "/" + rootName;
+                    builder.addRoot(file("module" + i, "src", sourceSet, rootName), value);
+                }
+            }
+        }
+        FileRootIndex<String> index = builder.create();
+        assertEquals(moduleCount * rootNames.length * sourceSetNames.length, index.getRootCount());
+
+        for (int i = 0; i < moduleCount; i++) {
+            for (String sourceSet: sourceSetNames) {
+                for (String rootName: rootNames) {
+                    File child = file("module" + i, "src", sourceSet, rootName, "org", "pckg", "A.java");
+                    assertEquals(i + "/" + sourceSet + "/" + rootName, index.tryGetValue(child));
+                }
+            }
+            assertNull(index.tryGetValue(file("module" + i, "build.gradle")));
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package org.netbeans.gradle.project;
+
+import java.util.Collections;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ProjectInfoManagerTest {
+    private static ProjectInfo createInfo(String text) {
+        return new ProjectInfo(Collections.singleton(new ProjectInfo.Entry(ProjectInfo.Kind.WARNING, text)));
+    }
+
+    @Test
+    public void testVersionChangesWithInfo() {
+        ProjectInfoManager manager = new ProjectInfoManager();
+        ProjectInfoRef infoRef = manager.createInfoRef();
+
+        long version0 = manager.getVersion();
+
+        infoRef.setInfo(createInfo("info1"));
+        long version1 = manager.getVersion();
+        assertTrue(version0 != version1);
+
+        infoRef.setInfo(null);
+        long version2 = manager.getVersion();
+        assertTrue(version1 != version2);
+        assertTrue(manager.getInformations().isEmpty());
+    }
+
+    @Test
+    public void testVersionIsKeptWithoutChange() {
+        ProjectInfoManager manager = new ProjectInfoManager();
+        ProjectInfoRef infoRef = manager.createInfoRef();
+
+        ProjectInfo info = createInfo("info");
+        infoRef.setInfo(info);
+        long version = manager.getVersion();
+
+        infoRef.setInfo(info);
+        assertEquals(version, manager.getVersion());
+
+        manager.createInfoRef().setInfo(null);
+        assertEquals(version, manager.getVersion());
+    }
+}
@@ -0,0 +1,123 @@
+package org.netbeans.gradle.project;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class WeakValueCacheTest {
+    @Test
+    public void testPutIfAbsentKeepsFirstValue() {
+        WeakValueCache<String, Object> cache = new WeakValueCache<String, Object>();
+        Object value1 = new Object();
+        Object value2 = new Object();
+
+        assertSame(value1, cache.putIfAbsent("key", value1));
+        assertSame(value1, cache.putIfAbsent("key", value2));
+        assertSame(value1, cache.get("key"));
+        assertNull(cache.get("other-key"));
+        assertEquals(1, cache.getLiveSize());
+    }
+
+    @Test
+    public void testCollectedValuesAreReplaced() throws InterruptedException {
+        WeakValueCache<String, Object> cache = new WeakValueCache<String, Object>();
+        cache.putIfAbsent("key", new Object());
+
+        for (int i = 0; i < 100 && cache.get("key") != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertNull(cache.get("key"));
+        assertEquals(0, cache.getLiveSize());
+
+        Object newValue = new Object();
+        assertSame(newValue, cache.putIfAbsent("key", newValue));
+        assertSame(newValue, cache.get("key"));
+    }
+
+    @Test
+    public void testGetOrCreateCreatesOnlyOnce() {
+        WeakValueCache<String, Object> cache = new WeakValueCache<String, Object>();
+        final AtomicInteger createCount = new AtomicInteger(0);
+        WeakValueCache.ValueFactory<String, Object> factory = new WeakValueCache.ValueFactory<String, Object>() {
+            @Override
+            public Object createValue(String key) {
+                createCount.incrementAndGet();
+                return new Object();
+            }
+        };
+
+        Object value1 = cache.getOrCreate("key", factory);
+        Object value2 = cache.getOrCreate("key", factory);
+
+        assertSame(value1, value2);
+        assertEquals(1, createCount.get());
+    }
+
+    @Test
+    public void testGetOrCreateConcurrently() throws Exception {
+        final WeakValueCache<String, Object> cache = new WeakValueCache<String, Object>();
+        final AtomicInteger createCount = new AtomicInteger(0);
+        final WeakValueCache.ValueFactory<String, Object> factory = new WeakValueCache.ValueFactory<String, Object>() {
+            @Override
+            public Object createValue(String key) {
+                createCount.incrementAndGet();
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return new Object();
+            }
+        };
+
+        int threadCount = 8;
+        final CountDownLatch startSignal = new CountDownLatch(1);
+        final Object[] results = new Object[threadCount];
+        Thread[] threads = new Thread[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            final int index = i;
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startSignal.await();
+                        results[index] = cache.getOrCreate("key", factory);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            threads[i].start();
+        }
+
+        startSignal.countDown();
+        for (Thread thread: threads) {
+            thread.join();
+        }
+
+        for (Object result: results) {
+            assertSame(results[0], result);
+        }
+        assertEquals(1, createCount.get());
+    }
+
+    @Test
+    public void testGetOrCreateForOtherKeyFromFactory() {
+        final WeakValueCache<String, Object> cache = new WeakValueCache<String, Object>();
+        final Object innerValue = new Object();
+        Object outerValue = cache.getOrCreate("outer", new WeakValueCache.ValueFactory<String, Object>() {
+            @Override
+            public Object createValue(String key) {
+                cache.putIfAbsent("inner", innerValue);
+                return new Object();
+            }
+        });
+
+        assertSame(outerValue, cache.get("outer"));
+        assertSame(innerValue, cache.get("inner"));
+    }
+}
@@ -0,0 +1,151 @@
+package org.netbeans.gradle.project.java.tasks;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import org.gradle.tooling.BuildLauncher;
+import org.gradle.tooling.GradleConnector;
+import org.gradle.tooling.ProjectConnection;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.netbeans.gradle.project.api.entry.TestUtils;
+
+import static org.junit.Assert.*;
+
+/**
+ * Executes the init script generated by {@link DependencySourceDownloader}
+ * with Gradle, resolving the artifacts from a local Maven repository.
+ */
+public class DependencySourceDownloaderScriptTest {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final String GRADLE_VERSION = "1.6";
+
+    private File tempDir;
+    private File repoDir;
+    private File projectDir;
+    private File gradleUserHome;
+
+    @Before
+    public void setUp() throws IOException {
+        tempDir = File.createTempFile("download-sources-test", "");
+        if (!tempDir.delete() || !tempDir.mkdir()) {
+            throw new IOException("Failed to create temporary directory: " + tempDir);
+        }
+
+        repoDir = new File(tempDir, "repo");
+        projectDir = new File(tempDir, "project");
+        gradleUserHome = new File(tempDir, "gradle-user-home");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        TestUtils.recursiveDelete(tempDir);
+    }
+
+    private static void writeFile(File file, String content) throws IOException {
+        File parent = file.getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Failed to create directory: " + parent);
+        }
+
+        OutputStream output = new FileOutputStream(file);
+        try {
+            output.write(content.getBytes(UTF8));
+        } finally {
+            output.close();
+        }
+    }
+
+    private void addArtifact(String group, String name, String version, boolean withJavadoc) throws IOException {
+        File versionDir = new File(repoDir, group.replace('.', '/') + "/" + name + "/" + version);
+        String baseName = name + "-" + version;
+
+        writeFile(new File(versionDir, baseName + ".pom"),
+                "<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n"
+                + "  <modelVersion>4.0.0</modelVersion>\n"
+                + "  <groupId>" + group + "</groupId>\n"
+                + "  <artifactId>" + name + "</artifactId>\n"
+                + "  <version>" + version + "</version>\n"
+                + "</project>\n");
+        writeFile(new File(versionDir, baseName + ".jar"), "binary");
+        writeFile(new File(versionDir, baseName + "-sources.jar"), "sources");
+        if (withJavadoc) {
+            writeFile(new File(versionDir, baseName + "-javadoc.jar"), "javadoc");
+        }
+    }
+
+    private void writeProject() throws IOException {
+        writeFile(new File(projectDir, "settings.gradle"), "rootProject.name = 'download-test'\n");
+        writeFile(new File(projectDir, "build.gradle"),
+                "repositories {\n"
+                + "    maven { url " + toGroovyString(repoDir.toURI().toString()) + " }\n"
+                + "}\n");
+    }
+
+    private static String toGroovyString(String str) {
+        return "'" + str.replace("\\", "\\\\").replace("'", "\\'") + "'";
+    }
+
+    private void runInitScript(String initScript) throws IOException {
+        File initScriptFile = new File(tempDir, "init.gradle");
+        writeFile(initScriptFile, initScript);
+
+        GradleConnector connector = GradleConnector.newConnector();
+        connector.useGradleVersion(GRADLE_VERSION);
+        connector.useGradleUserHomeDir(gradleUserHome);
+        connector.forProjectDirectory(projectDir);
+
+        ProjectConnection connection = connector.connect();
+        try {
+            BuildLauncher buildLauncher = connection.newBuild();
+            buildLauncher.withArguments("--init-script", initScriptFile.getPath());
+            buildLauncher.forTasks(DependencySourceDownloader.TASK_NAME);
+            buildLauncher.run();
+        } finally {
+            connection.close();
+        }
+    }
+
+    private static File findFile(File dir, String fileName) {
+        File[] children = dir.listFiles();
+        if (children == null) {
+            return null;
+        }
+
+        for (File child: children) {
+            if (child.isDirectory()) {
+                File result = findFile(child, fileName);
+                if (result != null) {
+                    return result;
+                }
+            }
+            else if (child.getName().equals(fileName)) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    @Test
+    public void testDownloadsSourcesAndJavadocFromMavenRepository() throws IOException {
+        addArtifact("org.example", "lib1", "1.0", true);
+        addArtifact("org.example", "lib2", "2.0", false);
+        writeProject();
+
+        String initScript = DependencySourceDownloader.createInitScript(Arrays.asList(
+                "org.example:lib1:1.0",
+                "org.example:lib2:2.0",
+                "org.example:missing:3.0"));
+        runInitScript(initScript);
+
+        File cachesDir = new File(gradleUserHome, "caches");
+        assertNotNull(findFile(cachesDir, "lib1-1.0-sources.jar"));
+        assertNotNull(findFile(cachesDir, "lib1-1.0-javadoc.jar"));
+        assertNotNull(findFile(cachesDir, "lib2-2.0-sources.jar"));
+        assertNull(findFile(cachesDir, "lib2-2.0-javadoc.jar"));
+    }
+}
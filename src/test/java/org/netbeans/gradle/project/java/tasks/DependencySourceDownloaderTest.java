@@ -0,0 +1,210 @@
+package org.netbeans.gradle.project.java.tasks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.netbeans.gradle.project.java.model.NbJavaDependency;
+import org.netbeans.gradle.project.java.model.NbUriDependency;
+
+import static org.junit.Assert.*;
+
+public class DependencySourceDownloaderTest {
+    private static final AtomicInteger GROUP_INDEX = new AtomicInteger(0);
+
+    private static File getGradleUserHome() {
+        return new File(System.getProperty("java.io.tmpdir"), "gradle-user-home-test");
+    }
+
+    // Every test uses a different group because the requested artifacts are
+    // remembered for the whole session.
+    private static String newGroup() {
+        return "org.example.test" + GROUP_INDEX.getAndIncrement();
+    }
+
+    private static File versionDir(File gradleUserHome, String group, String name, String version) {
+        File result = new File(gradleUserHome, "caches");
+        result = new File(result, "artifacts-26");
+        result = new File(result, "filestore");
+        result = new File(result, group);
+        result = new File(result, name);
+        return new File(result, version);
+    }
+
+    private static File artifactFile(File versionDir, String type, String fileName) {
+        return new File(new File(new File(versionDir, type), "0123456789abcdef"), fileName);
+    }
+
+    private static NbUriDependency dependency(File file, File srcFile) {
+        return new NbUriDependency(file.toURI(), srcFile != null ? srcFile.toURI() : null, false);
+    }
+
+    @Test
+    public void testCollectsOnlyCachedArtifactsWithoutSources() {
+        File gradleUserHome = getGradleUserHome();
+        String group = newGroup();
+
+        File withoutSourcesDir = versionDir(gradleUserHome, group, "lib1", "1.0");
+        File withoutSources = artifactFile(withoutSourcesDir, "jar", "lib1-1.0.jar");
+
+        File withSourcesDir = versionDir(gradleUserHome, group, "lib2", "2.0");
+        File withSources = artifactFile(withSourcesDir, "jar", "lib2-2.0.jar");
+        File sources = artifactFile(withSourcesDir, "source", "lib2-2.0-sources.jar");
+
+        File notCached = new File(new File(System.getProperty("java.io.tmpdir"), "libs"), "lib3.jar");
+
+        List<NbJavaDependency> dependencies = Arrays.<NbJavaDependency>asList(
+                dependency(withoutSources, null),
+                dependency(withSources, sources),
+                dependency(notCached, null));
+
+        Map<String, File> artifacts = DependencySourceDownloader.collectNewArtifacts(gradleUserHome, dependencies);
+        assertEquals(Collections.singletonMap(group + ":lib1:1.0", withoutSourcesDir), artifacts);
+    }
+
+    @Test
+    public void testArtifactsAreCollectedOnlyOnce() {
+        File gradleUserHome = getGradleUserHome();
+        String group = newGroup();
+
+        File versionDir = versionDir(gradleUserHome, group, "lib", "1.0");
+        List<NbJavaDependency> dependencies = Arrays.<NbJavaDependency>asList(
+                dependency(artifactFile(versionDir, "jar", "lib-1.0.jar"), null));
+
+        assertEquals(1, DependencySourceDownloader.collectNewArtifacts(gradleUserHome, dependencies).size());
+        assertEquals(0, DependencySourceDownloader.collectNewArtifacts(gradleUserHome, dependencies).size());
+    }
+
+    @Test
+    public void testPendingDownloadsAreBatchedPerBuild() {
+        File root1 = new File("root1");
+        File root2 = new File("root2");
+
+        DependencySourceDownloader.PendingDownloads<String> pending
+                = new DependencySourceDownloader.PendingDownloads<String>();
+        pending.addArtifacts("project1", root1, Collections.singletonMap("g:a:1", new File("a")));
+        pending.addArtifacts("project2", root1, Collections.singletonMap("g:b:1", new File("b")));
+        pending.addArtifacts("project3", root2, Collections.singletonMap("g:c:1", new File("c")));
+
+        List<DependencySourceDownloader.PendingDownload<String>> downloads = pending.takeAll();
+        assertEquals(2, downloads.size());
+
+        DependencySourceDownloader.PendingDownload<String> download1 = downloads.get(0);
+        assertEquals("project1", download1.project);
+        assertEquals(root1, download1.rootProjectDir);
+        assertEquals(new HashSet<String>(Arrays.asList("g:a:1", "g:b:1")), download1.artifacts.keySet());
+
+        DependencySourceDownloader.PendingDownload<String> download2 = downloads.get(1);
+        assertEquals("project3", download2.project);
+        assertEquals(root2, download2.rootProjectDir);
+        assertEquals(Collections.singleton("g:c:1"), download2.artifacts.keySet());
+
+        assertTrue(pending.takeAll().isEmpty());
+    }
+
+    @Test
+    public void testDirsAreRefreshedAfterDownload() {
+        File versionDir = new File("version");
+        Map<String, File> artifacts = Collections.singletonMap("g:a:1", versionDir);
+
+        RecordingDownloader downloader = new RecordingDownloader(false);
+        DependencySourceDownloader.downloadArtifacts(artifacts, downloader);
+
+        assertEquals(
+                Collections.singletonList(new ArrayList<String>(artifacts.keySet())),
+                downloader.downloaded);
+        assertEquals(1, downloader.refreshed.size());
+        assertEquals(
+                new HashSet<File>(Arrays.asList(new File(versionDir, "source"), new File(versionDir, "javadoc"))),
+                new HashSet<File>(downloader.refreshed.get(0)));
+    }
+
+    @Test
+    public void testFailedDownloadIsRetried() {
+        File gradleUserHome = getGradleUserHome();
+        String group = newGroup();
+
+        File versionDir = versionDir(gradleUserHome, group, "lib", "1.0");
+        List<NbJavaDependency> dependencies = Arrays.<NbJavaDependency>asList(
+                dependency(artifactFile(versionDir, "jar", "lib-1.0.jar"), null));
+
+        Map<String, File> artifacts = DependencySourceDownloader.collectNewArtifacts(gradleUserHome, dependencies);
+        assertEquals(1, artifacts.size());
+
+        RecordingDownloader downloader = new RecordingDownloader(true);
+        DependencySourceDownloader.downloadArtifacts(artifacts, downloader);
+        assertEquals(1, downloader.refreshed.size());
+
+        assertEquals(artifacts, DependencySourceDownloader.collectNewArtifacts(gradleUserHome, dependencies));
+    }
+
+    @Test
+    public void testSuccessfulDownloadIsNotRetried() {
+        File gradleUserHome = getGradleUserHome();
+        String group = newGroup();
+
+        File versionDir = versionDir(gradleUserHome, group, "lib", "1.0");
+        List<NbJavaDependency> dependencies = Arrays.<NbJavaDependency>asList(
+                dependency(artifactFile(versionDir, "jar", "lib-1.0.jar"), null));
+
+        Map<String, File> artifacts = DependencySourceDownloader.collectNewArtifacts(gradleUserHome, dependencies);
+        DependencySourceDownloader.downloadArtifacts(artifacts, new RecordingDownloader(false));
+
+        assertTrue(DependencySourceDownloader.collectNewArtifacts(gradleUserHome, dependencies).isEmpty());
+    }
+
+    @Test
+    public void testInitScriptContainsAllArtifacts() {
+        String script = DependencySourceDownloader.createInitScript(Arrays.asList(
+                "com.google.guava:guava:14.0",
+                "junit:junit:4.11"));
+
+        assertTrue(script.contains("[group: 'com.google.guava', name: 'guava', version: '14.0']"));
+        assertTrue(script.contains("[group: 'junit', name: 'junit', version: '4.11']"));
+        assertTrue(script.contains("project.task('" + DependencySourceDownloader.TASK_NAME + "')"));
+    }
+
+    @Test
+    public void testInitScriptEscapesStrings() {
+        String script = DependencySourceDownloader.createInitScript(Arrays.asList("my'group:my\\name:1.0"));
+        assertTrue(script.contains("[group: 'my\\'group', name: 'my\\\\name', version: '1.0']"));
+    }
+
+    @Test
+    public void testInitScriptIgnoresInvalidNotations() {
+        String script = DependencySourceDownloader.createInitScript(Arrays.asList("invalid"));
+        assertFalse(script.contains("invalid"));
+    }
+
+    private static final class RecordingDownloader implements DependencySourceDownloader.ArtifactDownloader {
+        private final boolean fail;
+        public final List<Collection<String>> downloaded;
+        public final List<Collection<File>> refreshed;
+
+        public RecordingDownloader(boolean fail) {
+            this.fail = fail;
+            this.downloaded = new ArrayList<Collection<String>>();
+            this.refreshed = new ArrayList<Collection<File>>();
+        }
+
+        @Override
+        public void download(Collection<String> notations) throws IOException {
+            downloaded.add(new ArrayList<String>(notations));
+            if (fail) {
+                throw new IOException("Test failure");
+            }
+        }
+
+        @Override
+        public void refreshDirs(Collection<File> dirs) {
+            refreshed.add(new ArrayList<File>(dirs));
+        }
+    }
+}
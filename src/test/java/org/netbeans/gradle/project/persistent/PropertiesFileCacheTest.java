@@ -0,0 +1,78 @@
+package org.netbeans.gradle.project.persistent;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.netbeans.gradle.project.properties.PropertiesSnapshot;
+
+import static org.junit.Assert.*;
+
+public class PropertiesFileCacheTest {
+    private File propertiesFile;
+
+    @Before
+    public void setUp() throws Exception {
+        propertiesFile = File.createTempFile("nb-gradle-properties", ".xml");
+    }
+
+    @After
+    public void tearDown() {
+        PropertiesFileCache.invalidate(propertiesFile);
+        if (!propertiesFile.delete()) {
+            propertiesFile.deleteOnExit();
+        }
+    }
+
+    private void writeSourceLevel(String sourceLevel) throws Exception {
+        String content = "<gradle-project-properties><source-level>"
+                + sourceLevel
+                + "</source-level></gradle-project-properties>";
+
+        OutputStream output = new FileOutputStream(propertiesFile);
+        try {
+            output.write(content.getBytes("UTF-8"));
+        } finally {
+            output.close();
+        }
+    }
+
+    @Test
+    public void testUnchangedFileIsParsedOnce() throws Exception {
+        writeSourceLevel("1.6");
+
+        PropertiesSnapshot snapshot1 = PropertiesFileCache.readFromXml(propertiesFile);
+        PropertiesSnapshot snapshot2 = PropertiesFileCache.readFromXml(propertiesFile);
+
+        assertEquals("1.6", snapshot1.getSourceLevel().getValue());
+        assertSame(snapshot1, snapshot2);
+    }
+
+    @Test
+    public void testChangedFileIsParsedAgain() throws Exception {
+        writeSourceLevel("1.6");
+        PropertiesSnapshot snapshot1 = PropertiesFileCache.readFromXml(propertiesFile);
+
+        // Different size, so it is detected even if the modification time
+        // remains the same.
+        writeSourceLevel("1.7.0");
+        PropertiesSnapshot snapshot2 = PropertiesFileCache.readFromXml(propertiesFile);
+
+        assertEquals("1.6", snapshot1.getSourceLevel().getValue());
+        assertEquals("1.7.0", snapshot2.getSourceLevel().getValue());
+    }
+
+    @Test
+    public void testInvalidate() throws Exception {
+        writeSourceLevel("1.6");
+        PropertiesSnapshot snapshot1 = PropertiesFileCache.readFromXml(propertiesFile);
+
+        PropertiesFileCache.invalidate(propertiesFile);
+        PropertiesSnapshot snapshot2 = PropertiesFileCache.readFromXml(propertiesFile);
+
+        assertNotSame(snapshot1, snapshot2);
+        assertEquals("1.6", snapshot2.getSourceLevel().getValue());
+    }
+}
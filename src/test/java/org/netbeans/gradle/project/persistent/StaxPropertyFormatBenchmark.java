@@ -0,0 +1,80 @@
+package org.netbeans.gradle.project.persistent;
+
+import java.io.File;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.netbeans.gradle.project.properties.PropertiesSnapshot;
+
+import static org.netbeans.gradle.project.persistent.StaxPropertyFormatTest.*;
+
+/**
+ * Compares the performance of {@link StaxPropertyFormat} and
+ * {@link XmlPropertyFormat}. This benchmark is not run by default because it
+ * takes a long time and verifies nothing but the measured times. Remove the
+ * {@code Ignore} annotation to run it.
+ */
+@Ignore("Benchmark: Run it manually.")
+public class StaxPropertyFormatBenchmark {
+    private static final Logger LOGGER = Logger.getLogger(StaxPropertyFormatBenchmark.class.getName());
+
+    private File tempFile;
+
+    @Before
+    public void setUp() throws Exception {
+        tempFile = File.createTempFile("nb-gradle-properties", ".xml");
+    }
+
+    @After
+    public void tearDown() {
+        if (!tempFile.delete()) {
+            tempFile.deleteOnExit();
+        }
+    }
+
+    @Test
+    public void benchmarkAgainstDom() throws Exception {
+        PropertiesSnapshot snapshot = createSnapshot(20);
+        int iterationCount = 500;
+
+        // Warm up both implementations before measuring.
+        for (int i = 0; i < iterationCount; i++) {
+            XmlPropertyFormat.saveToXml(null, tempFile, snapshot);
+            XmlPropertyFormat.readFromXml(tempFile);
+            StaxPropertyFormat.saveToXml(null, tempFile, snapshot);
+            StaxPropertyFormat.readFromXml(tempFile);
+        }
+
+        long domWriteStart = System.nanoTime();
+        for (int i = 0; i < iterationCount; i++) {
+            XmlPropertyFormat.saveToXml(null, tempFile, snapshot);
+        }
+        long domReadStart = System.nanoTime();
+        for (int i = 0; i < iterationCount; i++) {
+            XmlPropertyFormat.readFromXml(tempFile);
+        }
+        long staxWriteStart = System.nanoTime();
+        for (int i = 0; i < iterationCount; i++) {
+            StaxPropertyFormat.saveToXml(null, tempFile, snapshot);
+        }
+        long staxReadStart = System.nanoTime();
+        for (int i = 0; i < iterationCount; i++) {
+            StaxPropertyFormat.readFromXml(tempFile);
+        }
+        long end = System.nanoTime();
+
+        LOGGER.log(Level.INFO,
+                "Properties file, average of {0} runs (us): DOM write {1}, DOM read {2}, StAX write {3}, StAX read {4}",
+                new Object[]{
+                    iterationCount,
+                    (domReadStart - domWriteStart) / (1000L * iterationCount),
+                    (staxWriteStart - domReadStart) / (1000L * iterationCount),
+                    (staxReadStart - staxWriteStart) / (1000L * iterationCount),
+                    (end - staxReadStart) / (1000L * iterationCount)});
+
+        assertSnapshotEquals(snapshot, StaxPropertyFormat.readFromXml(tempFile));
+    }
+}
@@ -0,0 +1,201 @@
+package org.netbeans.gradle.project.persistent;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.xml.parsers.DocumentBuilderFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.netbeans.gradle.project.properties.AuxConfig;
+import org.netbeans.gradle.project.properties.AuxConfigSource;
+import org.netbeans.gradle.project.properties.ConstPropertySource;
+import org.netbeans.gradle.project.properties.LicenseHeaderInfo;
+import org.netbeans.gradle.project.properties.PredefinedTask;
+import org.netbeans.gradle.project.properties.PropertiesSnapshot;
+import org.netbeans.gradle.project.properties.PropertySource;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import static org.junit.Assert.*;
+
+public class StaxPropertyFormatTest {
+    private File tempFile;
+
+    @Before
+    public void setUp() throws Exception {
+        tempFile = File.createTempFile("nb-gradle-properties", ".xml");
+    }
+
+    @After
+    public void tearDown() {
+        if (!tempFile.delete()) {
+            tempFile.deleteOnExit();
+        }
+    }
+
+    private static <ValueType> PropertySource<ValueType> asConst(ValueType value) {
+        return new ConstPropertySource<ValueType>(value, false);
+    }
+
+    private static PredefinedTask createTask(String displayName, int index) {
+        return new PredefinedTask(
+                displayName,
+                Arrays.asList(new PredefinedTask.Name("task" + index, index % 2 == 0)),
+                Arrays.asList("-Parg=" + index, "<&>"),
+                Collections.<String>emptyList(),
+                index % 3 == 0);
+    }
+
+    private static Element createAuxElement(String namespace, String name, int index) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+
+        Document document = factory.newDocumentBuilder().newDocument();
+        Element result = document.createElementNS(namespace, name);
+        result.setAttribute("id", Integer.toString(index));
+
+        Element child = document.createElementNS(namespace, "entry");
+        child.setTextContent("value < " + index);
+        result.appendChild(child);
+        result.appendChild(document.createElementNS(namespace, "empty"));
+        return result;
+    }
+
+    static PropertiesSnapshot createSnapshot(int taskCount) throws Exception {
+        PropertiesSnapshot.Builder builder = new PropertiesSnapshot.Builder();
+        builder.setSourceLevel(asConst("1.6"));
+        builder.setSourceEncoding(asConst(Charset.forName("ISO-8859-1")));
+
+        List<PredefinedTask> commonTasks = new ArrayList<PredefinedTask>(taskCount);
+        for (int i = 0; i < taskCount; i++) {
+            commonTasks.add(createTask("Task " + i, i));
+        }
+        builder.setCommonTasks(asConst(Collections.unmodifiableList(commonTasks)));
+
+        Map<String, String> licenseProperties = new HashMap<String, String>();
+        licenseProperties.put("organization", "Gradle & NetBeans");
+        builder.setLicenseHeader(asConst(new LicenseHeaderInfo("my-license", licenseProperties, null)));
+
+        builder.setBuiltInTask("build", asConst(createTask("build", 1)));
+
+        builder.addAuxConfig(new AuxConfig("config-a", "urn:a", createAuxElement("urn:a", "config-a", 1)), false);
+        builder.addAuxConfig(new AuxConfig("config-b", "urn:b", createAuxElement("urn:b", "config-b", 2)), false);
+
+        return builder.create();
+    }
+
+    private static String toXml(PropertiesSnapshot snapshot) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        StaxPropertyFormat.writeXml(snapshot, "\n", output);
+        return output.toString("UTF-8");
+    }
+
+    private static PropertiesSnapshot fromXml(String xml) throws Exception {
+        return StaxPropertyFormat.readXml(new ByteArrayInputStream(xml.getBytes("UTF-8")));
+    }
+
+    private static void assertTaskEquals(PredefinedTask expected, PredefinedTask actual) {
+        assertEquals(expected.getDisplayName(), actual.getDisplayName());
+        assertEquals(expected.isNonBlocking(), actual.isNonBlocking());
+        assertEquals(expected.getArguments(), actual.getArguments());
+        assertEquals(expected.getJvmArguments(), actual.getJvmArguments());
+
+        List<PredefinedTask.Name> expectedNames = expected.getTaskNames();
+        List<PredefinedTask.Name> actualNames = actual.getTaskNames();
+        assertEquals(expectedNames.size(), actualNames.size());
+        for (int i = 0; i < expectedNames.size(); i++) {
+            assertEquals(expectedNames.get(i).getName(), actualNames.get(i).getName());
+            assertEquals(expectedNames.get(i).isMustExist(), actualNames.get(i).isMustExist());
+        }
+    }
+
+    static void assertSnapshotEquals(PropertiesSnapshot expected, PropertiesSnapshot actual) {
+        assertEquals(expected.getSourceLevel().getValue(), actual.getSourceLevel().getValue());
+        assertEquals(expected.getSourceEncoding().getValue(), actual.getSourceEncoding().getValue());
+
+        LicenseHeaderInfo expectedLicense = expected.getLicenseHeader().getValue();
+        LicenseHeaderInfo actualLicense = actual.getLicenseHeader().getValue();
+        assertEquals(expectedLicense.getLicenseName(), actualLicense.getLicenseName());
+        assertEquals(expectedLicense.getProperties(), actualLicense.getProperties());
+
+        List<PredefinedTask> expectedTasks = expected.getCommonTasks().getValue();
+        List<PredefinedTask> actualTasks = actual.getCommonTasks().getValue();
+        assertEquals(expectedTasks.size(), actualTasks.size());
+        for (int i = 0; i < expectedTasks.size(); i++) {
+            assertTaskEquals(expectedTasks.get(i), actualTasks.get(i));
+        }
+
+        assertEquals(expected.getKnownBuiltInCommands(), actual.getKnownBuiltInCommands());
+        for (String command: expected.getKnownBuiltInCommands()) {
+            assertTaskEquals(
+                    expected.tryGetBuiltInTask(command).getValue(),
+                    actual.tryGetBuiltInTask(command).getValue());
+        }
+
+        assertEquals(expected.getAuxProperties().size(), actual.getAuxProperties().size());
+        for (AuxConfigSource expectedAux: expected.getAuxProperties()) {
+            AuxConfigSource actualAux = null;
+            for (AuxConfigSource candidate: actual.getAuxProperties()) {
+                if (candidate.getKey().getName().equals(expectedAux.getKey().getName())) {
+                    actualAux = candidate;
+                }
+            }
+            assertNotNull("Missing aux config: " + expectedAux.getKey().getName(), actualAux);
+
+            Element expectedElement = expectedAux.getSource().getValue();
+            Element actualElement = actualAux.getSource().getValue();
+            assertEquals(expectedElement.getNodeName(), actualElement.getNodeName());
+            assertEquals(expectedElement.getAttribute("id"), actualElement.getAttribute("id"));
+            assertEquals(expectedElement.getTextContent(), actualElement.getTextContent());
+        }
+    }
+
+    @Test
+    public void testWriteAndRead() throws Exception {
+        PropertiesSnapshot snapshot = createSnapshot(3);
+        assertSnapshotEquals(snapshot, fromXml(toXml(snapshot)));
+    }
+
+    @Test
+    public void testRewriteIsUnchanged() throws Exception {
+        String xml = toXml(createSnapshot(3));
+        assertEquals(xml, toXml(fromXml(xml)));
+    }
+
+    @Test
+    public void testAuxConfigIsKeptAsWritten() throws Exception {
+        String xml = "<gradle-project-properties><auxiliary>"
+                + "<my-config xmlns=\"urn:my\" attr=\"x\"><entry>a &amp; b</entry></my-config>"
+                + "</auxiliary></gradle-project-properties>";
+
+        String rewritten = toXml(fromXml(xml));
+        assertTrue(rewritten, rewritten.contains(
+                "<my-config xmlns=\"urn:my\" attr=\"x\"><entry>a &amp; b</entry></my-config>"));
+
+        AuxConfigSource aux = fromXml(xml).getAuxProperties().iterator().next();
+        assertEquals("my-config", aux.getKey().getName());
+        assertEquals("a & b", aux.getSource().getValue().getTextContent());
+    }
+
+    @Test
+    public void testReadsDomFormat() throws Exception {
+        PropertiesSnapshot snapshot = createSnapshot(3);
+        XmlPropertyFormat.saveToXml(null, tempFile, snapshot);
+        assertSnapshotEquals(snapshot, StaxPropertyFormat.readFromXml(tempFile));
+    }
+
+    @Test
+    public void testDomReadsStaxFormat() throws Exception {
+        PropertiesSnapshot snapshot = createSnapshot(3);
+        StaxPropertyFormat.saveToXml(null, tempFile, snapshot);
+        assertSnapshotEquals(snapshot, XmlPropertyFormat.readFromXml(tempFile));
+    }
+}
@@ -0,0 +1,118 @@
+package org.netbeans.gradle.project.properties;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PropertyChangeBatchTest {
+    private static final class CountingListener implements ChangeListener {
+        private final AtomicInteger callCount = new AtomicInteger(0);
+
+        @Override
+        public void stateChanged(ChangeEvent e) {
+            callCount.incrementAndGet();
+        }
+
+        public int getCallCount() {
+            return callCount.get();
+        }
+    }
+
+    private static MutableProperty<String> createProperty() {
+        return new DefaultMutableProperty<String>("initial", false, true);
+    }
+
+    @Test
+    public void testListenersAreNotifiedImmediatelyWithoutBatch() {
+        MutableProperty<String> property1 = createProperty();
+        MutableProperty<String> property2 = createProperty();
+
+        CountingListener listener = new CountingListener();
+        property1.addChangeListener(listener);
+        property2.addChangeListener(listener);
+
+        property1.setValue("value1");
+        property2.setValue("value2");
+
+        assertEquals(2, listener.getCallCount());
+    }
+
+    @Test
+    public void testListenerIsNotifiedOnceAfterBatch() {
+        final MutableProperty<String> property1 = createProperty();
+        final MutableProperty<String> property2 = createProperty();
+
+        final CountingListener listener = new CountingListener();
+        property1.addChangeListener(listener);
+        property2.addChangeListener(listener);
+
+        PropertyChangeBatch.runBatch(new Runnable() {
+            @Override
+            public void run() {
+                property1.setValue("value1");
+                property2.setValue("value2");
+                property1.setValue("value3");
+
+                assertEquals(0, listener.getCallCount());
+            }
+        });
+
+        assertEquals(1, listener.getCallCount());
+        assertEquals("value3", property1.getValue());
+    }
+
+    @Test
+    public void testNestedBatches() {
+        final MutableProperty<String> property1 = createProperty();
+        final MutableProperty<String> property2 = createProperty();
+
+        final CountingListener listener1 = new CountingListener();
+        final CountingListener listener2 = new CountingListener();
+        property1.addChangeListener(listener1);
+        property2.addChangeListener(listener2);
+
+        PropertyChangeBatch.runBatch(new Runnable() {
+            @Override
+            public void run() {
+                property1.setValue("value1");
+                PropertyChangeBatch.runBatch(new Runnable() {
+                    @Override
+                    public void run() {
+                        property1.setValue("value2");
+                        property2.setValue("value2");
+                    }
+                });
+
+                assertEquals(0, listener1.getCallCount());
+                assertEquals(0, listener2.getCallCount());
+            }
+        });
+
+        assertEquals(1, listener1.getCallCount());
+        assertEquals(1, listener2.getCallCount());
+    }
+
+    @Test
+    public void testListenersAreNotifiedIfBatchFails() {
+        final MutableProperty<String> property = createProperty();
+        CountingListener listener = new CountingListener();
+        property.addChangeListener(listener);
+
+        try {
+            PropertyChangeBatch.runBatch(new Runnable() {
+                @Override
+                public void run() {
+                    property.setValue("value");
+                    throw new IllegalStateException("Test exception");
+                }
+            });
+            fail("Expected IllegalStateException.");
+        } catch (IllegalStateException ex) {
+        }
+
+        assertEquals(1, listener.getCallCount());
+    }
+}
@@ -0,0 +1,127 @@
+package org.netbeans.gradle.project.query;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GradleCacheIndexTest {
+    private File cachesDir;
+
+    @Before
+    public void setUp() throws IOException {
+        File tempFile = File.createTempFile("gradle-cache-index-test", "");
+        if (!tempFile.delete() || !tempFile.mkdir()) {
+            throw new IOException("Failed to create temporary directory: " + tempFile);
+        }
+        cachesDir = tempFile;
+    }
+
+    @After
+    public void tearDown() {
+        deleteRecursively(cachesDir);
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child: children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+
+    private File typeDir(String group, String name, String version, String type) {
+        File result = new File(cachesDir, "artifacts-26");
+        result = new File(result, "filestore");
+        result = new File(result, group);
+        result = new File(result, name);
+        result = new File(result, version);
+        return new File(result, type);
+    }
+
+    private static File createFile(File typeDir, String hash, String fileName) throws IOException {
+        File hashDir = new File(typeDir, hash);
+        if (!hashDir.isDirectory() && !hashDir.mkdirs()) {
+            throw new IOException("Failed to create directory: " + hashDir);
+        }
+
+        File result = new File(hashDir, fileName);
+        if (!result.createNewFile()) {
+            throw new IOException("Failed to create file: " + result);
+        }
+        return result;
+    }
+
+    @Test
+    public void testGetClassifier() {
+        assertEquals("", GradleCacheIndex.getClassifier("guava", "14.0", "guava-14.0.jar"));
+        assertEquals("sources", GradleCacheIndex.getClassifier("guava", "14.0", "guava-14.0-sources.jar"));
+        assertEquals("jdk15-sources", GradleCacheIndex.getClassifier("lib", "1.0", "lib-1.0-jdk15-sources.jar"));
+        assertEquals("other", GradleCacheIndex.getClassifier("lib", "1.0", "other.jar"));
+    }
+
+    @Test
+    public void testFindsScannedFiles() throws IOException {
+        File jarDir = typeDir("com.google.guava", "guava", "14.0", "jar");
+        File sourceDir = typeDir("com.google.guava", "guava", "14.0", "source");
+
+        File binary = createFile(jarDir, "hash1", "guava-14.0.jar");
+        File source = createFile(sourceDir, "hash2", "guava-14.0-sources.jar");
+
+        GradleCacheIndex index = GradleCacheIndex.scan(cachesDir);
+        assertEquals(2, index.getFileCount());
+        assertTrue(index.isIndexedTypeDir(jarDir));
+        assertFalse(index.isIndexedTypeDir(jarDir.getParentFile()));
+
+        assertEquals(binary, index.tryFindFile(jarDir, "guava-14.0.jar"));
+        assertEquals(source, index.tryFindFile(sourceDir, "guava-14.0-sources.jar"));
+        assertNull(index.tryFindFile(jarDir, "guava-14.0-sources.jar"));
+        assertNull(index.tryFindFile(sourceDir, "guava-14.0-javadoc.jar"));
+    }
+
+    @Test
+    public void testAddAndRemove() throws IOException {
+        File jarDir = typeDir("junit", "junit", "4.11", "jar");
+        createFile(jarDir, "hash1", "junit-4.11.jar");
+
+        GradleCacheIndex index = GradleCacheIndex.scan(cachesDir);
+
+        File sourceDir = typeDir("junit", "junit", "4.11", "source");
+        File source = createFile(sourceDir, "hash2", "junit-4.11-sources.jar");
+        index.addFileOrDir(sourceDir);
+        assertEquals(source, index.tryFindFile(sourceDir, "junit-4.11-sources.jar"));
+
+        index.removeFileOrDir(source.getParentFile());
+        assertNull(index.tryFindFile(sourceDir, "junit-4.11-sources.jar"));
+        assertEquals(1, index.getFileCount());
+
+        index.addFileOrDir(source);
+        assertEquals(source, index.tryFindFile(sourceDir, "junit-4.11-sources.jar"));
+
+        index.removeFileOrDir(source);
+        assertNull(index.tryFindFile(sourceDir, "junit-4.11-sources.jar"));
+    }
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        File jarDir = typeDir("junit", "junit", "4.11", "jar");
+        File binary = createFile(jarDir, "hash1", "junit-4.11.jar");
+
+        StringWriter output = new StringWriter();
+        GradleCacheIndex.scan(cachesDir).writeTo(output);
+
+        GradleCacheIndex index = GradleCacheIndex.readFrom(
+                new BufferedReader(new StringReader(output.toString())));
+        assertEquals(1, index.getFileCount());
+        assertTrue(index.isIndexedTypeDir(jarDir));
+        assertEquals(binary, index.tryFindFile(jarDir, "junit-4.11.jar"));
+    }
+}
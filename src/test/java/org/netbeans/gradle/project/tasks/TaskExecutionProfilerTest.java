@@ -0,0 +1,72 @@
+package org.netbeans.gradle.project.tasks;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TaskExecutionProfilerTest {
+    private static long millisToNanos(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    @Test
+    public void testTryGetTaskPath() {
+        assertEquals(":compileJava", TaskExecutionProfiler.tryGetTaskPath(":compileJava"));
+        assertEquals(":sub:test", TaskExecutionProfiler.tryGetTaskPath("Execute :sub:test"));
+        assertEquals(":jar", TaskExecutionProfiler.tryGetTaskPath(":jar UP-TO-DATE"));
+        assertNull(TaskExecutionProfiler.tryGetTaskPath("Build"));
+        assertNull(TaskExecutionProfiler.tryGetTaskPath(":"));
+        assertNull(TaskExecutionProfiler.tryGetTaskPath(""));
+    }
+
+    @Test
+    public void testIsUpToDate() {
+        assertTrue(TaskExecutionProfiler.isUpToDate(":jar UP-TO-DATE"));
+        assertTrue(TaskExecutionProfiler.isUpToDate(":test SKIPPED"));
+        assertFalse(TaskExecutionProfiler.isUpToDate(":compileJava"));
+    }
+
+    @Test
+    public void testFinish() {
+        TaskExecutionProfiler profiler = new TaskExecutionProfiler(0);
+        profiler.recordEvent("Configuring projects", millisToNanos(0));
+        profiler.recordEvent(":compileJava", millisToNanos(100));
+        profiler.recordEvent(":processResources", millisToNanos(400));
+        profiler.recordEvent(":processResources UP-TO-DATE", millisToNanos(410));
+        profiler.recordEvent(":jar", millisToNanos(450));
+
+        BuildProfile profile = profiler.finish(millisToNanos(500));
+        assertEquals(500, profile.getTotalMillis());
+
+        List<BuildProfile.TaskExecution> tasks = profile.getTasks();
+        assertEquals(3, tasks.size());
+
+        assertEquals(":compileJava", tasks.get(0).getTaskPath());
+        assertEquals(100, tasks.get(0).getStartMillis());
+        assertEquals(300, tasks.get(0).getDurationMillis());
+        assertFalse(tasks.get(0).isUpToDate());
+
+        assertEquals(":processResources", tasks.get(1).getTaskPath());
+        assertEquals(50, tasks.get(1).getDurationMillis());
+        assertTrue(tasks.get(1).isUpToDate());
+
+        assertEquals(":jar", tasks.get(2).getTaskPath());
+        assertEquals(50, tasks.get(2).getDurationMillis());
+
+        assertEquals(":compileJava", profile.getSlowestTasks(1).get(0).getTaskPath());
+    }
+
+    @Test
+    public void testHistoryAverages() {
+        Map<String, long[]> sumAndCount = new HashMap<String, long[]>();
+        BuildProfileHistory.addToAverages("0\t100\t:a=10=false;:b=5=true", sumAndCount);
+        BuildProfileHistory.addToAverages("1\t100\t:a=30=false", sumAndCount);
+
+        assertArrayEquals(new long[]{40, 2}, sumAndCount.get(":a"));
+        assertNull(sumAndCount.get(":b"));
+    }
+}